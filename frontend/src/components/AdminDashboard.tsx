@@ -9,8 +9,9 @@ type DashboardStats = {
   totalUsers: number
   totalWorkers: number
   verifiedWorkers: number
+  onlineWorkers?: number
   mostPopularCategory: string
-  timeseries?: Array<{ date: string; jobs: number }>
+  timeseries?: Array<{ date: string; jobs: number; completed?: number; revenue?: number }>
 }
 
 type HeatmapPoint = {
@@ -19,6 +20,12 @@ type HeatmapPoint = {
   count: number
 }
 
+// Cells arrive as [lat, lng, count] triples
+type HeatmapResponse = {
+  zoom: number
+  cells: Array<[number, number, number]>
+}
+
 type UserRow = { id: number; name: string; email: string; phone: string; role: string }
 type CategoryRow = { id: number; name: string }
 
@@ -41,7 +48,13 @@ export default function AdminDashboard() {
         axios.get('/api/admin/jobs/heatmap')
       ])
       setStats(statsRes.data)
-      setHeatmapData(heatmapRes.data)
+      const heatmap: HeatmapResponse = heatmapRes.data
+      setHeatmapData(
+        heatmap.cells
+          .map(([lat, lng, count]) => ({ lat, lng, count }))
+          .sort((a, b) => b.count - a.count)
+          .slice(0, 20)
+      )
     } catch (error) {
       console.error('Failed to fetch dashboard data:', error)
     }
@@ -179,6 +192,7 @@ export default function AdminDashboard() {
               <div className="ml-4">
                 <p className="text-sm font-medium text-gray-600">Verified Workers</p>
                 <p className="text-2xl font-semibold text-gray-900">{stats.verifiedWorkers}</p>
+                <p className="text-xs text-gray-500">{stats.onlineWorkers ?? 0} online now</p>
               </div>
             </div>
           </div>
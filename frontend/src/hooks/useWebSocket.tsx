@@ -7,12 +7,30 @@ interface Notification {
   type: string
   data: any
   timestamp: number
+  seq?: number
+}
+
+export interface UnreadCounts {
+  notifications: number
+  messages: number
+}
+
+export interface WorkerLocation {
+  jobId: number
+  workerId: number
+  lat: number
+  lng: number
+  recordedAt: number
+  speed: number | null
+  heading: number | null
 }
 
 export function useWebSocket(userId?: string) {
   const [client, setClient] = useState<Client | null>(null)
   const [connected, setConnected] = useState(false)
-  const { info, success } = useToast()
+  const [unreadCounts, setUnreadCounts] = useState<UnreadCounts | null>(null)
+  const [workerLocation, setWorkerLocation] = useState<WorkerLocation | null>(null)
+  const { info, success, error } = useToast()
   const clientRef = useRef<Client | null>(null)
 
   useEffect(() => {
@@ -20,13 +38,34 @@ export function useWebSocket(userId?: string) {
 
     const stompClient = new Client({
       webSocketFactory: () => new SockJS('/ws'),
+      // The server authenticates the session from the CONNECT frame
+      beforeConnect: () => {
+        const token = localStorage.getItem('token')
+        stompClient.connectHeaders = token ? { Authorization: `Bearer ${token}` } : {}
+      },
       onConnect: () => {
         setConnected(true)
         
-        // Subscribe to user-specific notifications
-        stompClient.subscribe(`/topic/user/${userId}`, (message) => {
+        // Resolved by the server to this session's private queue; last-seq asks for what we missed
+        const seqKey = `pushSeq:${userId}`
+        const lastSeq = localStorage.getItem(seqKey)
+        stompClient.subscribe('/user/queue/notifications', (message) => {
           const notification: Notification = JSON.parse(message.body)
+          if (notification.type === 'STREAM_SYNC') {
+            localStorage.setItem(seqKey, String(notification.data.seq))
+            return
+          }
+          if (notification.seq !== undefined) {
+            const seen = Number(localStorage.getItem(seqKey) || 0)
+            if (notification.seq <= seen) return
+            localStorage.setItem(seqKey, String(notification.seq))
+          }
           handleNotification(notification)
+        }, lastSeq ? { 'last-seq': lastSeq } : {})
+
+        // Throttled live position of the worker on the way to one of our jobs; not replayed
+        stompClient.subscribe('/user/queue/location', (message) => {
+          setWorkerLocation(JSON.parse(message.body))
         })
       },
       onDisconnect: () => {
@@ -50,9 +89,26 @@ export function useWebSocket(userId?: string) {
 
   const handleNotification = (notification: Notification) => {
     switch (notification.type) {
+      case 'UNREAD_COUNTS':
+        setUnreadCounts(notification.data)
+        break
+      case 'CHAT_MESSAGE':
+        // Tell the sender it reached this device
+        clientRef.current?.publish({
+          destination: '/app/chat.ack',
+          body: JSON.stringify({ conversationId: notification.data.conversationId, seq: notification.data.seq, status: 'DELIVERED' })
+        })
+        info(`Message from ${notification.data.senderName}`, notification.data.content)
+        break
+      case 'CHAT_SENT':
+      case 'CHAT_ACK':
+        break
       case 'JOB_ACCEPTED':
         success('Job Accepted!', notification.data.message)
         break
+      case 'WORKER_ON_THE_WAY':
+        info('On The Way', notification.data.message)
+        break
       case 'JOB_STARTED':
         info('Job Started', notification.data.message)
         break
@@ -62,10 +118,16 @@ export function useWebSocket(userId?: string) {
       case 'NEW_JOB':
         info('New Job Available', notification.data.message)
         break
+      case 'PAYMENT_COMPLETED':
+        success('Payment Successful', notification.data.message)
+        break
+      case 'PAYMENT_FAILED':
+        error('Payment Failed', notification.data.message)
+        break
       default:
         info('Notification', notification.data.message || 'You have a new notification')
     }
   }
 
-  return { client, connected }
+  return { client, connected, unreadCounts, workerLocation }
 }
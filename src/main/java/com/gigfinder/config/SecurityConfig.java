@@ -37,7 +37,10 @@ public class SecurityConfig {
               // Public endpoints
               .requestMatchers("/").permitAll()
               .requestMatchers("/h2-console/**").permitAll()
+              // STOMP sessions authenticate with the JWT in their CONNECT frame
+              .requestMatchers("/ws/**").permitAll()
               .requestMatchers("/api/auth/**","/api/categories/**").permitAll()
+              .requestMatchers(HttpMethod.GET, "/api/suggest").permitAll()
               .requestMatchers(HttpMethod.GET, "/api/jobs/**").permitAll()
               .requestMatchers(HttpMethod.GET, "/api/jobs").permitAll()
               .requestMatchers(HttpMethod.GET, "/api/jobs/me").authenticated()
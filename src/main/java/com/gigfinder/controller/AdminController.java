@@ -11,10 +11,12 @@ import com.gigfinder.repository.WorkerProfileRepository;
 import com.gigfinder.repository.CategoryRepository;
 import com.gigfinder.repository.DocumentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -44,35 +46,104 @@ public class AdminController {
     @Autowired
     private com.gigfinder.service.NotificationService notificationService;
 
+    @Autowired
+    private com.gigfinder.service.SuggestService suggestService;
+
+    @Autowired
+    private com.gigfinder.service.AddressGeocodeBackfillService geocodeBackfillService;
+
+    @Autowired
+    private com.gigfinder.service.RatingAggregateService ratingAggregateService;
+
+    @Autowired
+    private com.gigfinder.service.LeaderboardService leaderboardService;
+
+    @Autowired
+    private com.gigfinder.service.AnalyticsRollupService analyticsRollupService;
+
+    @Autowired
+    private com.gigfinder.service.JobHeatmapService jobHeatmapService;
+
+    @Autowired
+    private com.gigfinder.service.JobLatencyService jobLatencyService;
+
+    @Autowired
+    private com.gigfinder.service.ActiveUserService activeUserService;
+
+    @Autowired
+    private com.gigfinder.service.JobFactStore jobFactStore;
+
+    @Autowired
+    private com.gigfinder.service.EventLogService eventLogService;
+
+    @Autowired
+    private com.gigfinder.service.UserPushService userPushService;
+
+    @Autowired
+    private com.gigfinder.service.ChatService chatService;
+
+    @Autowired
+    private com.gigfinder.service.PresenceService presenceService;
+
+    @Autowired
+    private com.gigfinder.service.LocationService locationService;
+
+    @Autowired
+    private com.gigfinder.service.EtaService etaService;
+
+    @Autowired
+    private com.gigfinder.service.NotificationRetentionService notificationRetentionService;
+
+    @Autowired
+    private com.gigfinder.service.AdminService adminService;
+
+    @Autowired
+    private com.gigfinder.service.SettlementService settlementService;
+
+    @Autowired
+    private com.gigfinder.service.PaymentPipeline paymentPipeline;
+
+    @Autowired
+    private org.springframework.context.ApplicationEventPublisher eventPublisher;
+
     @GetMapping("/dashboard")
-    public ResponseEntity<Map<String, Object>> getDashboardStats() {
+    public ResponseEntity<Map<String, Object>> getDashboardStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
         try {
-            LocalDateTime today = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-            LocalDateTime thisMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
+            LocalDate today = LocalDate.now();
+            LocalDate rangeTo = to != null ? to : today;
+            LocalDate rangeFrom = from != null ? from : rangeTo.minusDays(29);
 
             Map<String, Object> stats = new HashMap<>();
 
-            // Job statistics
-            stats.put("totalJobs", jobRepository.count());
-            stats.put("jobsToday", jobRepository.countJobsPostedToday(today));
-            stats.put("jobsThisMonth", jobRepository.countByCreatedAtBetween(thisMonth, LocalDateTime.now()));
-            stats.put("completedJobs", jobRepository.countCompletedJobsBetween(thisMonth, LocalDateTime.now()));
-
-            // User statistics
-            stats.put("totalUsers", userRepository.count());
-            stats.put("totalWorkers", workerProfileRepository.count());
-            stats.put("verifiedWorkers", workerProfileRepository.findByVerificationStatus(
-                    VerificationStatus.APPROVED).size());
-
-            // Popular categories
+            // Job and user statistics from the daily rollups
+            Map<String, Object> allTime = analyticsRollupService.allTimeTotals();
+            Map<String, Object> month = analyticsRollupService.totals(today.withDayOfMonth(1), today);
+            com.gigfinder.model.PlatformAnalytics todayRow = analyticsRollupService.day(today);
+            stats.put("totalJobs", allTime.get("jobsPosted"));
+            stats.put("jobsToday", todayRow.getTotalJobsPosted());
+            stats.put("jobsThisMonth", month.get("jobsPosted"));
+            stats.put("completedJobs", month.get("jobsCompleted"));
+            stats.put("totalUsers", allTime.get("newRegistrations"));
             stats.put("mostPopularCategory", jobRepository.findMostPopularCategory());
 
-            // Simple time-series stub for frontend charts
-            stats.put("timeseries", List.of(
-                    Map.of("date", "2025-08-01", "jobs", 5),
-                    Map.of("date", "2025-08-02", "jobs", 7),
-                    Map.of("date", "2025-08-03", "jobs", 4)
-            ));
+            // Worker counts aren't part of the rollups
+            stats.put("totalWorkers", workerProfileRepository.count());
+            stats.put("verifiedWorkers", workerProfileRepository.countByVerificationStatus(VerificationStatus.APPROVED));
+            stats.put("onlineWorkers", presenceService.onlineWorkers());
+
+            List<Map<String, Object>> timeseries = analyticsRollupService.range(rangeFrom, rangeTo).stream().map(day -> {
+                Map<String, Object> point = new HashMap<>();
+                point.put("date", day.getDate().toString());
+                point.put("jobs", day.getTotalJobsPosted());
+                point.put("completed", day.getTotalJobsCompleted());
+                point.put("revenue", day.getTotalRevenue());
+                point.put("newUsers", day.getNewRegistrations());
+                point.put("ratings", day.getTotalRatings());
+                return point;
+            }).collect(Collectors.toList());
+            stats.put("timeseries", timeseries);
 
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
@@ -148,10 +219,15 @@ public class AdminController {
             }
 
             job.setWorker(newWorker.getUser());
-            if (job.getStatus() == com.gigfinder.model.enums.JobStatus.OPEN) {
+            boolean wasOpen = job.getStatus() == com.gigfinder.model.enums.JobStatus.OPEN;
+            if (wasOpen) {
                 job.setStatus(com.gigfinder.model.enums.JobStatus.ASSIGNED);
             }
             jobRepository.save(job);
+            if (wasOpen) {
+                eventPublisher.publishEvent(new com.gigfinder.event.JobStatusChangedEvent(job,
+                        com.gigfinder.model.enums.JobStatus.OPEN, com.gigfinder.model.enums.JobStatus.ASSIGNED));
+            }
 
             notificationService.sendJobAccepted(job.getClient().getUser().getId(), jobId, newWorker.getUser().getName());
             return ResponseEntity.ok(Map.of("message","Job reassigned"));
@@ -160,24 +236,60 @@ public class AdminController {
         }
     }
 
+    // Defaults cover India; statuses is a comma-separated list of JobStatus names
     @GetMapping("/jobs/heatmap")
-    public ResponseEntity<List<Map<String, Object>>> getJobHeatmap() {
+    public ResponseEntity<Map<String, Object>> getJobHeatmap(
+            @RequestParam(defaultValue = "6.0") double minLat,
+            @RequestParam(defaultValue = "68.0") double minLng,
+            @RequestParam(defaultValue = "37.5") double maxLat,
+            @RequestParam(defaultValue = "97.5") double maxLng,
+            @RequestParam(defaultValue = "5") int zoom,
+            @RequestParam(required = false) List<com.gigfinder.model.enums.JobStatus> statuses,
+            @RequestParam(required = false) Long categoryId) {
         try {
-            List<Map<String, Object>> heatmapData = List.of(
-                    new HashMap<>(Map.of("lat", 28.6139, "lng", 77.2090, "count", 15)), // Delhi
-                    new HashMap<>(Map.of("lat", 19.0760, "lng", 72.8777, "count", 12)), // Mumbai
-                    new HashMap<>(Map.of("lat", 12.9716, "lng", 77.5946, "count", 8))   // Bangalore
-            );
+            Map<String, Object> heatmapData = jobHeatmapService.cells(minLat, minLng, maxLat, maxLng, zoom,
+                    statuses != null && !statuses.isEmpty() ? java.util.EnumSet.copyOf(statuses) : null, categoryId);
             return ResponseEntity.ok(heatmapData);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @PostMapping("/jobs/heatmap/rebuild")
+    public ResponseEntity<?> rebuildJobHeatmap() {
+        try {
+            int jobs = jobHeatmapService.rebuild();
+            return ResponseEntity.ok(Map.of("message", "Heatmap rebuilt", "jobs", jobs));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Time-to-accept / time-to-complete percentiles in seconds
+    @GetMapping("/jobs/latency")
+    public ResponseEntity<?> getJobLatency(
+            @RequestParam(defaultValue = "ACCEPT") String metric,
+            @RequestParam(defaultValue = "24") int windowHours,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng) {
+        try {
+            com.gigfinder.service.JobLatencyService.Metric m =
+                    com.gigfinder.service.JobLatencyService.Metric.valueOf(metric.toUpperCase());
+            return ResponseEntity.ok(jobLatencyService.percentiles(m, windowHours, categoryId, lat, lng));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/workers/leaderboard")
-    public ResponseEntity<List<WorkerProfile>> getWorkerLeaderboard() {
+    public ResponseEntity<List<Map<String, Object>>> getWorkerLeaderboard(
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng,
+            @RequestParam(required = false) String skill,
+            @RequestParam(defaultValue = "10") int limit) {
         try {
-            List<WorkerProfile> topWorkers = workerProfileRepository.findTop10ByOrderByRatingAvgDesc();
+            List<Map<String, Object>> topWorkers = leaderboardService.top(lat, lng, skill, Math.max(1, Math.min(limit, 100)));
             return ResponseEntity.ok(topWorkers);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -356,7 +468,9 @@ public class AdminController {
         String name = body.get("name");
         Category c = new Category();
         c.setName(name);
-        return ResponseEntity.ok(categoryRepository.save(c));
+        Category saved = categoryRepository.save(c);
+        suggestService.onCategorySaved(saved);
+        return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/categories/{id}")
@@ -364,12 +478,215 @@ public class AdminController {
         String name = body.get("name");
         Category c = categoryRepository.findById(id).orElseThrow(() -> new RuntimeException("Category not found"));
         c.setName(name);
-        return ResponseEntity.ok(categoryRepository.save(c));
+        Category saved = categoryRepository.save(c);
+        suggestService.onCategorySaved(saved);
+        return ResponseEntity.ok(saved);
     }
 
     @DeleteMapping("/categories/{id}")
     public ResponseEntity<?> deleteCategory(@PathVariable Long id) {
         categoryRepository.deleteById(id);
+        suggestService.onCategoryDeleted(id);
         return ResponseEntity.ok(Map.of("message", "Category deleted"));
     }
+
+    // ===== Address geocoding =====
+    @PostMapping("/addresses/geocode-backfill")
+    public ResponseEntity<?> startGeocodeBackfill() {
+        boolean started = geocodeBackfillService.start();
+        Map<String, Object> response = new HashMap<>(geocodeBackfillService.status());
+        response.put("message", started ? "Backfill started" : "Backfill already running");
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/addresses/geocode-backfill")
+    public ResponseEntity<Map<String, Object>> getGeocodeBackfillStatus() {
+        return ResponseEntity.ok(geocodeBackfillService.status());
+    }
+
+    // ===== Rating aggregates =====
+    @PostMapping("/workers/ratings/backfill")
+    public ResponseEntity<?> startRatingBackfill() {
+        boolean started = ratingAggregateService.startBackfill();
+        Map<String, Object> response = new HashMap<>(ratingAggregateService.backfillStatus());
+        response.put("message", started ? "Backfill started" : "Backfill already running");
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/workers/ratings/backfill")
+    public ResponseEntity<Map<String, Object>> getRatingBackfillStatus() {
+        return ResponseEntity.ok(ratingAggregateService.backfillStatus());
+    }
+
+    // ===== Analytics rollups =====
+    // Served from the in-memory job fact store; groupBy is day, category, region or status
+    @GetMapping("/reports/jobs")
+    public ResponseEntity<?> getJobReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") String groupBy,
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) List<com.gigfinder.model.enums.JobStatus> statuses,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng) {
+        try {
+            LocalDate end = to != null ? to : LocalDate.now();
+            LocalDate start = from != null ? from : end.minusDays(29);
+            Long cellId = lat != null && lng != null
+                    ? com.gigfinder.util.GeoGrid.cellId(lat, lng, com.gigfinder.util.GeoGrid.REGION_ZOOM)
+                    : null;
+            return ResponseEntity.ok(jobFactStore.report(start, end,
+                    com.gigfinder.service.JobFactStore.GroupBy.valueOf(groupBy.toUpperCase()), categoryId,
+                    statuses != null && !statuses.isEmpty() ? java.util.EnumSet.copyOf(statuses) : null, cellId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Tails the domain event log; pass the returned nextOffset to continue
+    @GetMapping("/events")
+    public ResponseEntity<?> tailEvents(
+            @RequestParam(defaultValue = "0") long from,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(eventLogService.read(from, Math.max(1, Math.min(limit, 1000))));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Live STOMP sessions, push throughput and per-session outbound queue depth
+    @GetMapping("/realtime/sessions")
+    public ResponseEntity<?> getRealtimeSessions() {
+        try {
+            return ResponseEntity.ok(userPushService.stats());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Online workers by grid cell; the same snapshot is pushed to /topic/admin/presence as it changes
+    @GetMapping("/presence")
+    public ResponseEntity<?> getPresence() {
+        try {
+            return ResponseEntity.ok(presenceService.snapshot());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Live worker location stream: points received, relayed to clients and persisted, plus ETA profiles
+    @GetMapping("/locations/stats")
+    public ResponseEntity<?> getLocationStats() {
+        try {
+            Map<String, Object> stats = new HashMap<>(locationService.stats());
+            stats.put("eta", etaService.stats());
+            return ResponseEntity.ok(stats);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Progress of the notification retention job and live/archived row counts
+    @GetMapping("/notifications/retention")
+    public ResponseEntity<?> getNotificationRetention() {
+        try {
+            return ResponseEntity.ok(notificationRetentionService.stats());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/notifications/retention/run")
+    public ResponseEntity<?> runNotificationRetention() {
+        try {
+            notificationRetentionService.requestRun();
+            return ResponseEntity.ok(Map.of("message", "Retention run requested"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Payment pipeline queue depth, outcomes and gateway counters
+    @GetMapping("/payments/pipeline")
+    public ResponseEntity<?> getPaymentPipeline() {
+        try {
+            return ResponseEntity.ok(paymentPipeline.stats());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Current settlement progress and the most recent runs
+    @GetMapping("/settlements")
+    public ResponseEntity<?> getSettlements() {
+        try {
+            return ResponseEntity.ok(settlementService.stats());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/settlements/run")
+    public ResponseEntity<?> runSettlement() {
+        try {
+            settlementService.requestRun();
+            return ResponseEntity.ok(Map.of("message", "Settlement run requested"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Files messages sent before conversations existed into conversations (run once after upgrading)
+    @PostMapping("/conversations/backfill")
+    public ResponseEntity<?> backfillConversations() {
+        try {
+            int moved = chatService.backfillConversations();
+            return ResponseEntity.ok(Map.of("message", "Conversations backfilled", "messages", moved));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/analytics/overview")
+    public ResponseEntity<?> getPlatformOverview() {
+        try {
+            return ResponseEntity.ok(adminService.getPlatformOverview());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/analytics/daily")
+    public ResponseEntity<?> getDailyStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            return ResponseEntity.ok(adminService.getDailyStats(date != null ? date : LocalDate.now()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Estimated DAU/WAU/MAU ending on the given day
+    @GetMapping("/analytics/active-users")
+    public ResponseEntity<?> getActiveUsers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            return ResponseEntity.ok(activeUserService.summary(date != null ? date : LocalDate.now()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/analytics/rebuild")
+    public ResponseEntity<?> rebuildAnalytics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            int days = analyticsRollupService.rebuild(from, to != null ? to : LocalDate.now());
+            return ResponseEntity.ok(Map.of("message", "Analytics rebuilt", "days", days));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 }
@@ -2,6 +2,8 @@ package com.gigfinder.controller;
 
 import com.gigfinder.dto.LoginDTO;
 import com.gigfinder.dto.RegisterDTO;
+import com.gigfinder.event.UserRegisteredEvent;
+import com.gigfinder.event.WorkerProfileChangedEvent;
 import com.gigfinder.model.ClientProfile;
 import com.gigfinder.model.User;
 import com.gigfinder.model.WorkerProfile;
@@ -14,6 +16,7 @@ import com.gigfinder.service.OtpService;
 import com.gigfinder.util.JwtUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -35,6 +38,7 @@ public class AuthController {
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
     private final OtpService otpService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @PostMapping("/register")
     public ResponseEntity<?> register(@Valid @RequestBody RegisterDTO dto) {
@@ -57,6 +61,7 @@ public class AuthController {
                     .build();
 
             User savedUser = userRepository.save(user);
+            eventPublisher.publishEvent(new UserRegisteredEvent(savedUser));
 
             // 2) Create appropriate profile based on role
             if (dto.getRole() == Role.CLIENT) {
@@ -88,6 +93,7 @@ public class AuthController {
                         .address(dto.getAddress())
                         .build();
                 workerProfileRepository.save(workerProfile);
+                eventPublisher.publishEvent(new WorkerProfileChangedEvent(workerProfile.getId()));
             }
 
             // Response
@@ -170,7 +176,9 @@ public class AuthController {
                         .phone(phoneNumber)
                         .role(Role.CLIENT)
                         .build();
-                return userRepository.save(u);
+                User saved = userRepository.save(u);
+                eventPublisher.publishEvent(new UserRegisteredEvent(saved));
+                return saved;
             });
 
             // Ensure client profile exists for CLIENT role
@@ -0,0 +1,38 @@
+package com.gigfinder.controller;
+
+import com.gigfinder.dto.ChatAckDTO;
+import com.gigfinder.dto.MessageDTO;
+import com.gigfinder.service.ChatService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.Map;
+
+// STOMP endpoints for chat; the session principal is the user id (see StompAuthChannelInterceptor)
+@Controller
+@RequiredArgsConstructor
+public class ChatController {
+
+    private final ChatService chatService;
+
+    @MessageMapping("/chat.send")
+    public void send(@Payload MessageDTO message, Principal principal) {
+        chatService.send(Long.valueOf(principal.getName()), message, false);
+    }
+
+    @MessageMapping("/chat.ack")
+    public void acknowledge(@Payload ChatAckDTO ack, Principal principal) {
+        chatService.acknowledge(Long.valueOf(principal.getName()), ack);
+    }
+
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, String> handleError(Exception e) {
+        return Map.of("error", e.getMessage() != null ? e.getMessage() : "Chat request failed");
+    }
+}
@@ -77,6 +77,15 @@ public class JobController {
         }
     }
 
+    @GetMapping("/{id}/eta")
+    public ResponseEntity<?> getEta(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(jobService.getEta(id));
+        } catch (Exception e) {
+            return buildErrorResponse(e);
+        }
+    }
+
     @PutMapping("/{id}/complete")
     public ResponseEntity<?> completeJob(@PathVariable Long id) {
         return handleJobAction(id, jobService::completeJob, "completing");
@@ -0,0 +1,37 @@
+package com.gigfinder.controller;
+
+import com.gigfinder.dto.LocationDTO;
+import com.gigfinder.service.LocationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.Map;
+
+// STOMP endpoint for workers streaming GPS points; relays go out on /user/queue/location
+@Controller
+@RequiredArgsConstructor
+public class LocationController {
+
+    private final LocationService locationService;
+
+    @MessageMapping("/location.report")
+    public void report(@Payload LocationDTO point, Principal principal) {
+        if (!(principal instanceof Authentication auth) || auth.getAuthorities().stream()
+                .noneMatch(a -> "ROLE_WORKER".equals(a.getAuthority()))) {
+            throw new RuntimeException("Only workers can report locations");
+        }
+        locationService.report(Long.valueOf(principal.getName()), point);
+    }
+
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, String> handleError(Exception e) {
+        return Map.of("error", e.getMessage() != null ? e.getMessage() : "Location report failed");
+    }
+}
@@ -1,14 +1,21 @@
 package com.gigfinder.controller;
 
 import com.gigfinder.dto.MessageDTO;
+import com.gigfinder.model.Conversation;
 import com.gigfinder.model.Message;
+import com.gigfinder.model.User;
 import com.gigfinder.service.MessageService;
+import com.gigfinder.util.SecurityUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -28,10 +35,46 @@ public class MessageController {
         }
     }
     
+    // History fallback; live messages arrive over STOMP. Page back with the createdAt and id of the oldest message seen.
     @GetMapping("/conversation/{userId}")
-    public ResponseEntity<?> getConversation(@PathVariable Long userId) {
+    public ResponseEntity<?> getConversation(@PathVariable Long userId,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                             @RequestParam(required = false) Long beforeId,
+                                             @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<Message> messages = messageService.getConversation(userId);
+            List<Message> messages = messageService.getConversation(userId, before, beforeId, Math.max(1, Math.min(limit, 200)));
+            return ResponseEntity.ok(messages.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error fetching conversation: " + e.getMessage());
+        }
+    }
+    
+    // Conversations with their last message and this user's unread count, most recent first; page on (lastMessageAt, conversationId)
+    @GetMapping("/inbox")
+    public ResponseEntity<?> getInbox(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                      @RequestParam(required = false) Long beforeId,
+                                      @RequestParam(defaultValue = "20") int limit) {
+        try {
+            String username = SecurityUtil.getCurrentUsername();
+            List<Conversation> conversations = messageService.getInbox(before, beforeId, Math.max(1, Math.min(limit, 100)));
+            return ResponseEntity.ok(conversations.stream()
+                .map(c -> toInboxEntry(c, username))
+                .collect(Collectors.toList()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error fetching inbox: " + e.getMessage());
+        }
+    }
+    
+    @GetMapping("/conversations/{conversationId}")
+    public ResponseEntity<?> getConversationHistory(@PathVariable Long conversationId,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                                    @RequestParam(required = false) Long beforeId,
+                                                    @RequestParam(defaultValue = "50") int limit) {
+        try {
+            List<Message> messages = messageService.getConversationHistory(conversationId, before, beforeId,
+                    Math.max(1, Math.min(limit, 200)));
             return ResponseEntity.ok(messages.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList()));
@@ -84,14 +127,34 @@ public class MessageController {
         }
     }
     
+    private Map<String, Object> toInboxEntry(Conversation conversation, String username) {
+        boolean meLow = conversation.getUserLow().getEmail().equals(username);
+        User peer = meLow ? conversation.getUserHigh() : conversation.getUserLow();
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("conversationId", conversation.getId());
+        entry.put("peerId", peer.getId());
+        entry.put("peerName", peer.getName());
+        entry.put("jobId", conversation.getJob() != null ? conversation.getJob().getId() : null);
+        entry.put("lastMessageId", conversation.getLastMessageId());
+        entry.put("lastMessagePreview", conversation.getLastMessagePreview());
+        entry.put("lastSenderId", conversation.getLastSenderId());
+        entry.put("lastMessageAt", conversation.getLastMessageAt());
+        entry.put("lastSeq", conversation.getLastSeq());
+        entry.put("unread", meLow ? conversation.getUnreadLow() : conversation.getUnreadHigh());
+        return entry;
+    }
+    
     private MessageDTO convertToDTO(Message message) {
         MessageDTO dto = new MessageDTO();
         dto.setId(message.getId());
+        dto.setSenderId(message.getSender().getId());
         dto.setReceiverId(message.getReceiver().getId());
         dto.setJobId(message.getJob() != null ? message.getJob().getId() : null);
         dto.setContent(message.getContent());
         dto.setMessageType(message.getMessageType());
-        dto.setIsRead(message.getIsRead());
+        dto.setConversationId(message.getConversation() != null ? message.getConversation().getId() : null);
+        dto.setConversationSeq(message.getConversationSeq());
+        dto.setIsRead(message.readByReceiver());
         dto.setSenderName(message.getSender().getName());
         dto.setReceiverName(message.getReceiver().getName());
         dto.setCreatedAt(message.getCreatedAt());
@@ -1,9 +1,11 @@
 package com.gigfinder.controller;
 
 import com.gigfinder.model.Notification;
+import com.gigfinder.model.NotificationArchive;
 import com.gigfinder.model.User;
-import com.gigfinder.repository.NotificationRepository;
 import com.gigfinder.repository.UserRepository;
+import com.gigfinder.service.NotificationService;
+import com.gigfinder.service.UnreadCounterService;
 import com.gigfinder.util.SecurityUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -17,13 +19,18 @@ import java.util.Map;
 public class NotificationController {
 
     @Autowired
-    private NotificationRepository notificationRepository;
+    private UserRepository userRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private NotificationService notificationService;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
 
     @GetMapping
-    public ResponseEntity<List<Notification>> getUserNotifications() {
+    public ResponseEntity<List<Notification>> getUserNotifications(
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
             String username = SecurityUtil.getCurrentUsername();
             if (username == null) {
@@ -33,8 +40,7 @@ public class NotificationController {
             User user = userRepository.findByEmail(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            List<Notification> notifications = notificationRepository
-                    .findByUserOrderByCreatedAtDesc(user);
+            List<Notification> notifications = notificationService.getNotifications(user, before, limit);
 
             return ResponseEntity.ok(notifications);
         } catch (Exception e) {
@@ -44,6 +50,27 @@ public class NotificationController {
         }
     }
 
+    @GetMapping("/archive")
+    public ResponseEntity<List<NotificationArchive>> getArchivedNotifications(
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            String username = SecurityUtil.getCurrentUsername();
+            if (username == null) {
+                return ResponseEntity.status(401).body(null);
+            }
+
+            User user = userRepository.findByEmail(username)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+            return ResponseEntity.ok(notificationService.getArchived(user, before, limit));
+        } catch (Exception e) {
+            System.err.println("Error fetching archived notifications: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
     @GetMapping("/unread")
     public ResponseEntity<List<Notification>> getUnreadNotifications() {
         try {
@@ -55,8 +82,7 @@ public class NotificationController {
             User user = userRepository.findByEmail(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            List<Notification> notifications = notificationRepository
-                    .findByUserAndReadStatusOrderByCreatedAtDesc(user, false);
+            List<Notification> notifications = notificationService.getUnread(user);
 
             return ResponseEntity.ok(notifications);
         } catch (Exception e) {
@@ -77,7 +103,7 @@ public class NotificationController {
             User user = userRepository.findByEmail(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            int updatedRows = notificationRepository.markAsRead(user, id);
+            int updatedRows = notificationService.markRead(user, id);
             
             if (updatedRows > 0) {
                 return ResponseEntity.ok(Map.of("message", "Notification marked as read"));
@@ -102,7 +128,7 @@ public class NotificationController {
             User user = userRepository.findByEmail(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            int updatedRows = notificationRepository.markAllAsRead(user);
+            int updatedRows = notificationService.markAllRead(user);
 
             return ResponseEntity.ok(Map.of("message", "All notifications marked as read", "updatedCount", updatedRows));
         } catch (Exception e) {
@@ -112,6 +138,27 @@ public class NotificationController {
         }
     }
 
+    @PutMapping("/read-up-to/{id}")
+    public ResponseEntity<?> markNotificationsReadUpTo(@PathVariable Long id) {
+        try {
+            String username = SecurityUtil.getCurrentUsername();
+            if (username == null) {
+                return ResponseEntity.status(401).body(null);
+            }
+
+            User user = userRepository.findByEmail(username)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+            int updatedRows = notificationService.markReadUpTo(user, id);
+
+            return ResponseEntity.ok(Map.of("message", "Notifications marked as read", "updatedCount", updatedRows));
+        } catch (Exception e) {
+            System.err.println("Error marking notifications as read: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.badRequest().body(Map.of("error", "Error marking notifications as read: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/count/unread")
     public ResponseEntity<Map<String, Long>> getUnreadNotificationCount() {
         try {
@@ -123,7 +170,7 @@ public class NotificationController {
             User user = userRepository.findByEmail(username)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            Long unreadCount = notificationRepository.countByUserAndReadStatus(user, false);
+            Long unreadCount = (long) unreadCounterService.counts(user.getId()).notifications();
 
             return ResponseEntity.ok(Map.of("unreadCount", unreadCount));
         } catch (Exception e) {
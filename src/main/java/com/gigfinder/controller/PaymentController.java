@@ -2,6 +2,7 @@ package com.gigfinder.controller;
 
 import com.gigfinder.dto.PaymentRequestDTO;
 import com.gigfinder.dto.PaymentResponseDTO;
+import com.gigfinder.model.Payout;
 import com.gigfinder.service.PaymentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -31,7 +32,7 @@ public class PaymentController {
     public ResponseEntity<?> processPayment(@PathVariable Long id) {
         try {
             PaymentResponseDTO payment = paymentService.processPayment(id);
-            return ResponseEntity.ok(payment);
+            return ResponseEntity.accepted().body(payment);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error processing payment: " + e.getMessage());
         }
@@ -57,6 +58,17 @@ public class PaymentController {
         }
     }
     
+    @GetMapping("/worker/payouts")
+    public ResponseEntity<?> getWorkerPayouts(@RequestParam(required = false) Long before,
+                                              @RequestParam(defaultValue = "20") int limit) {
+        try {
+            List<Payout> payouts = paymentService.getWorkerPayouts(before, limit);
+            return ResponseEntity.ok(payouts);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error fetching payouts: " + e.getMessage());
+        }
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<?> getPaymentById(@PathVariable Long id) {
         try {
@@ -1,14 +1,19 @@
 package com.gigfinder.controller;
 
+import com.gigfinder.dto.RatingResponseDTO;
 import com.gigfinder.model.Job;
 import com.gigfinder.model.Rating;
 import com.gigfinder.model.User;
+import com.gigfinder.model.WorkerProfile;
 import com.gigfinder.model.enums.Role;
 import com.gigfinder.repository.JobRepository;
 import com.gigfinder.repository.RatingRepository;
 import com.gigfinder.repository.UserRepository;
+import com.gigfinder.repository.WorkerProfileRepository;
 import com.gigfinder.service.AuthService;
+import com.gigfinder.service.RatingAggregateService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,6 +21,7 @@ import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/ratings")
@@ -26,6 +32,8 @@ public class RatingController {
     private final JobRepository jobRepository;
     private final UserRepository userRepository;
     private final AuthService authService;
+    private final WorkerProfileRepository workerProfileRepository;
+    private final RatingAggregateService ratingAggregateService;
 
     @PostMapping("/job/{jobId}")
     public ResponseEntity<?> rateJob(@PathVariable Long jobId, @RequestBody Map<String, Object> request) {
@@ -67,7 +75,7 @@ public class RatingController {
                 .comment(comment)
                 .build();
 
-            ratingRepository.save(rating);
+            ratingAggregateService.recordRating(rating);
 
             return ResponseEntity.ok(Map.of("message", "Rating submitted successfully"));
 
@@ -77,19 +85,29 @@ public class RatingController {
     }
 
     @GetMapping("/worker/{workerId}")
-    public ResponseEntity<?> getWorkerRatings(@PathVariable Long workerId) {
+    public ResponseEntity<?> getWorkerRatings(@PathVariable Long workerId,
+                                              @RequestParam(required = false) Long cursor,
+                                              @RequestParam(defaultValue = "20") int size) {
         try {
             User worker = userRepository.findById(workerId)
                 .orElseThrow(() -> new RuntimeException("Worker not found"));
 
-            List<Rating> ratings = ratingRepository.findByReviewee(worker);
-            BigDecimal avgRating = ratingRepository.getAverageRatingByReviewee(worker);
-            Long totalRatings = ratingRepository.getRatingCountByReviewee(worker);
+            int pageSize = Math.max(1, Math.min(size, 50));
+            List<RatingResponseDTO> ratings = ratingRepository.findFeedByReviewee(
+                    worker.getId(), cursor != null ? cursor : Long.MAX_VALUE, PageRequest.of(0, pageSize));
 
             Map<String, Object> response = new HashMap<>();
             response.put("ratings", ratings);
-            response.put("averageRating", avgRating != null ? avgRating.doubleValue() : 0.0);
-            response.put("totalRatings", totalRatings);
+            response.put("nextCursor", ratings.size() == pageSize ? ratings.get(ratings.size() - 1).getId() : null);
+            Optional<WorkerProfile> profile = workerProfileRepository.findByUser(worker);
+            if (profile.isPresent()) {
+                response.putAll(ratingAggregateService.summary(profile.get()));
+            } else {
+                // Clients have no stored aggregates
+                BigDecimal avgRating = ratingRepository.getAverageRatingByReviewee(worker);
+                response.put("averageRating", avgRating != null ? avgRating.doubleValue() : 0.0);
+                response.put("totalRatings", ratingRepository.getRatingCountByReviewee(worker));
+            }
 
             return ResponseEntity.ok(response);
 
@@ -0,0 +1,26 @@
+package com.gigfinder.controller;
+
+import com.gigfinder.service.SuggestService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/suggest")
+@RequiredArgsConstructor
+public class SuggestController {
+
+    private final SuggestService suggestService;
+
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> suggest(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "10") int limit) {
+        int capped = Math.max(1, Math.min(limit, 20));
+        return ResponseEntity.ok(suggestService.suggest(query, type, capped));
+    }
+}
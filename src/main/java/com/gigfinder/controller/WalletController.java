@@ -1,16 +1,18 @@
 package com.gigfinder.controller;
 
 import com.gigfinder.model.User;
-import com.gigfinder.model.Wallet;
+import com.gigfinder.model.WalletTransaction;
+import com.gigfinder.model.enums.WalletTransactionType;
 import com.gigfinder.repository.UserRepository;
-import com.gigfinder.repository.WalletRepository;
+import com.gigfinder.service.WalletService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -19,7 +21,7 @@ import java.util.Optional;
 public class WalletController {
 
     @Autowired
-    private WalletRepository walletRepository;
+    private WalletService walletService;
 
     @Autowired
     private UserRepository userRepository;
@@ -32,21 +34,8 @@ public class WalletController {
             if (userOpt.isEmpty()) {
                 return ResponseEntity.badRequest().body("User not found");
             }
-            User user = userOpt.get();
-
-            Optional<Wallet> walletOpt = walletRepository.findByUser(user);
-            if (walletOpt.isEmpty()) {
-                // Create wallet if it doesn't exist
-                Wallet wallet = Wallet.builder()
-                    .user(user)
-                    .balance(BigDecimal.ZERO)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-                walletRepository.save(wallet);
-                return ResponseEntity.ok(Map.of("balance", BigDecimal.ZERO));
-            }
 
-            return ResponseEntity.ok(Map.of("balance", walletOpt.get().getBalance()));
+            return ResponseEntity.ok(Map.of("balance", walletService.getBalance(userOpt.get().getId())));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to get balance: " + e.getMessage());
         }
@@ -62,34 +51,15 @@ public class WalletController {
             }
             User user = userOpt.get();
 
-            Double amount = (Double) request.get("amount");
+            BigDecimal amount = amount(request.get("amount"));
             String paymentMethod = (String) request.get("paymentMethod");
 
-            if (amount == null || amount <= 0) {
-                return ResponseEntity.badRequest().body("Invalid amount");
-            }
-
-            Optional<Wallet> walletOpt = walletRepository.findByUser(user);
-            Wallet wallet;
-            if (walletOpt.isEmpty()) {
-                wallet = Wallet.builder()
-                    .user(user)
-                    .balance(BigDecimal.ZERO)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            } else {
-                wallet = walletOpt.get();
-            }
-
-            // Add money to wallet
-            wallet.setBalance(wallet.getBalance().add(BigDecimal.valueOf(amount)));
-            wallet.setUpdatedAt(LocalDateTime.now());
-            walletRepository.save(wallet);
+            WalletTransaction transaction = walletService.credit(user.getId(), amount, WalletTransactionType.TOP_UP, paymentMethod);
 
-            // ✅ Include paymentMethod in response so it's not "unused"
             return ResponseEntity.ok(Map.of(
                 "message", "Money added successfully using " + paymentMethod,
-                "newBalance", wallet.getBalance()
+                "newBalance", transaction.getBalanceAfter(),
+                "transactionId", transaction.getId()
             ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to add money: " + e.getMessage());
@@ -106,32 +76,15 @@ public class WalletController {
             }
             User user = userOpt.get();
 
-            Double amount = (Double) request.get("amount");
+            BigDecimal amount = amount(request.get("amount"));
             String bankAccount = (String) request.get("bankAccount");
 
-            if (amount == null || amount <= 0) {
-                return ResponseEntity.badRequest().body("Invalid amount");
-            }
-
-            Optional<Wallet> walletOpt = walletRepository.findByUser(user);
-            if (walletOpt.isEmpty()) {
-                return ResponseEntity.badRequest().body("Wallet not found");
-            }
-
-            Wallet wallet = walletOpt.get();
-            if (wallet.getBalance().compareTo(BigDecimal.valueOf(amount)) < 0) {
-                return ResponseEntity.badRequest().body("Insufficient balance");
-            }
-
-            // Deduct money from wallet
-            wallet.setBalance(wallet.getBalance().subtract(BigDecimal.valueOf(amount)));
-            wallet.setUpdatedAt(LocalDateTime.now());
-            walletRepository.save(wallet);
+            WalletTransaction transaction = walletService.debit(user.getId(), amount, WalletTransactionType.WITHDRAWAL, bankAccount);
 
-            // ✅ Include bankAccount in response so it's not "unused"
             return ResponseEntity.ok(Map.of(
                 "message", "Withdrawal to account " + bankAccount + " initiated successfully",
-                "newBalance", wallet.getBalance()
+                "newBalance", transaction.getBalanceAfter(),
+                "transactionId", transaction.getId()
             ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to withdraw money: " + e.getMessage());
@@ -139,19 +92,31 @@ public class WalletController {
     }
 
     @GetMapping("/transactions")
-    public ResponseEntity<?> getTransactions() {
+    public ResponseEntity<?> getTransactions(@RequestParam(required = false) Long before,
+                                             @RequestParam(defaultValue = "20") int limit) {
         try {
             String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
             Optional<User> userOpt = userRepository.findByEmail(userEmail);
             if (userOpt.isEmpty()) {
                 return ResponseEntity.badRequest().body("User not found");
             }
-            // ✅ Removed unused "user" variable since it's not needed here
 
-            // This would typically fetch from a Transaction entity
-            return ResponseEntity.ok(Map.of("transactions", new Object[0]));
+            List<WalletTransaction> transactions = walletService.getTransactions(userOpt.get().getId(), before, limit);
+            // Pass nextBefore back as ?before= for the next page; an empty page ends the history
+            Map<String, Object> body = new HashMap<>();
+            body.put("transactions", transactions);
+            body.put("nextBefore", transactions.isEmpty() ? null : transactions.get(transactions.size() - 1).getId());
+            return ResponseEntity.ok(body);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to get transactions: " + e.getMessage());
         }
     }
+
+    // JSON numbers arrive as Integer or Double; going through the text keeps 0.1 exact
+    private static BigDecimal amount(Object value) {
+        if (!(value instanceof Number)) {
+            throw new RuntimeException("Invalid amount");
+        }
+        return new BigDecimal(value.toString());
+    }
 }
@@ -1,15 +1,20 @@
 package com.gigfinder.controller;
 
+import com.gigfinder.event.WorkerProfileChangedEvent;
 import com.gigfinder.model.User;
 import com.gigfinder.model.WorkerProfile;
 import com.gigfinder.repository.UserRepository;
 import com.gigfinder.repository.WorkerProfileRepository;
+import com.gigfinder.service.PresenceService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -24,6 +29,12 @@ public class WorkerController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Register or update worker profile for authenticated user
     @PostMapping
     public ResponseEntity<?> registerOrUpdateWorker(@RequestBody WorkerProfile profile) {
@@ -44,6 +55,11 @@ public class WorkerController {
             }
 
             WorkerProfile savedProfile = workerProfileRepository.save(profile);
+            if (savedProfile.getLocationLat() != null && savedProfile.getLocationLng() != null) {
+                presenceService.updateLocation(user.getId(), savedProfile.getLocationLat().doubleValue(),
+                        savedProfile.getLocationLng().doubleValue());
+            }
+            eventPublisher.publishEvent(new WorkerProfileChangedEvent(savedProfile.getId()));
             return ResponseEntity.ok(savedProfile);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to save worker profile: " + e.getMessage());
@@ -104,6 +120,10 @@ public class WorkerController {
             }
             
             WorkerProfile savedProfile = workerProfileRepository.save(profile);
+            if (savedProfile.getLocationLat() != null && savedProfile.getLocationLng() != null) {
+                presenceService.updateLocation(user.getId(), savedProfile.getLocationLat().doubleValue(),
+                        savedProfile.getLocationLng().doubleValue());
+            }
             return ResponseEntity.ok(savedProfile);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to update verification: " + e.getMessage());
@@ -146,7 +166,10 @@ public class WorkerController {
             @RequestParam(required = false) Double longitude,
             @RequestParam(defaultValue = "10.0") Double radiusKm) {
         try {
-            List<WorkerProfile> workers = workerProfileRepository.findAvailableWorkers(category, latitude, longitude, radiusKm);
+            List<WorkerProfile> workers = new ArrayList<>(
+                    workerProfileRepository.findAvailableWorkers(category, latitude, longitude, radiusKm));
+            // Workers with the app open first; the sort is stable, so the repository order holds within each group
+            workers.sort(Comparator.comparing(w -> !presenceService.isOnline(w.getUser().getId())));
             return ResponseEntity.ok(workers);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -0,0 +1,11 @@
+package com.gigfinder.dto;
+
+import lombok.Data;
+
+// Receiver's acknowledgement of a chat message, sent over STOMP to /app/chat.ack
+@Data
+public class ChatAckDTO {
+    private Long conversationId;
+    private Long seq;
+    private String status; // DELIVERED or READ
+}
@@ -0,0 +1,13 @@
+package com.gigfinder.dto;
+
+import lombok.Data;
+
+// One GPS point from a worker, sent over STOMP to /app/location.report
+@Data
+public class LocationDTO {
+    private Double lat;
+    private Double lng;
+    private Float speed;      // m/s, optional
+    private Float heading;    // degrees from north, optional
+    private Long recordedAt;  // epoch millis on the device; defaults to arrival time
+}
@@ -9,6 +9,7 @@ import java.time.LocalDateTime;
 @Data
 public class MessageDTO {
     private Long id;
+    private Long senderId;
     
     @NotNull(message = "Receiver ID is required")
     private Long receiverId;
@@ -19,6 +20,10 @@ public class MessageDTO {
     private String content;
     
     private String messageType;
+    private Long conversationId;
+    private Long conversationSeq;
+    // Client-generated id echoed back in the send ack so the client can match it
+    private String clientMessageId;
     private Boolean isRead;
     private String senderName;
     private String receiverName;
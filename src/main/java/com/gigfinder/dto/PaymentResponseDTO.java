@@ -18,5 +18,7 @@ public class PaymentResponseDTO {
     private String transactionId;
     private LocalDateTime paymentDate;
     private String failureReason;
+    private Integer attempts;
+    private Long payoutId;
     private LocalDateTime createdAt;
 }
@@ -0,0 +1,10 @@
+package com.gigfinder.event;
+
+import com.gigfinder.model.Job;
+import com.gigfinder.model.enums.JobStatus;
+
+/**
+ * Published whenever a job moves to a new status. previousStatus is null for newly posted jobs.
+ */
+public record JobStatusChangedEvent(Job job, JobStatus previousStatus, JobStatus newStatus) {
+}
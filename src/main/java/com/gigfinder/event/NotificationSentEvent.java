@@ -0,0 +1,9 @@
+package com.gigfinder.event;
+
+import java.util.Map;
+
+/**
+ * Published for every real-time notification pushed to a user.
+ */
+public record NotificationSentEvent(Long userId, String type, Map<String, Object> data) {
+}
@@ -0,0 +1,10 @@
+package com.gigfinder.event;
+
+import com.gigfinder.model.Payment;
+import com.gigfinder.model.enums.PaymentStatus;
+
+/**
+ * Published whenever a payment moves to a new status.
+ */
+public record PaymentStatusChangedEvent(Payment payment, PaymentStatus previousStatus, PaymentStatus newStatus) {
+}
@@ -0,0 +1,9 @@
+package com.gigfinder.event;
+
+import com.gigfinder.model.Rating;
+
+/**
+ * Published after a rating and the reviewee's aggregates have been written.
+ */
+public record RatingSubmittedEvent(Rating rating) {
+}
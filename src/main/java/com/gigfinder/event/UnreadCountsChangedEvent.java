@@ -0,0 +1,7 @@
+package com.gigfinder.event;
+
+/**
+ * Published when a user's unread notification or message count changes.
+ */
+public record UnreadCountsChangedEvent(Long userId) {
+}
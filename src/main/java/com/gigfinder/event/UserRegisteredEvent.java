@@ -0,0 +1,9 @@
+package com.gigfinder.event;
+
+import com.gigfinder.model.User;
+
+/**
+ * Published once a new user account has been saved.
+ */
+public record UserRegisteredEvent(User user) {
+}
@@ -0,0 +1,7 @@
+package com.gigfinder.event;
+
+/**
+ * Published after a worker profile has been created or its skills or location edited.
+ */
+public record WorkerProfileChangedEvent(Long workerId) {
+}
@@ -0,0 +1,31 @@
+package com.gigfinder.model;
+
+import com.gigfinder.util.HyperLogLog;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One HyperLogLog sketch of the users seen on a calendar day
+@Entity
+@Table(name = "active_user_sketches")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActiveUserSketch {
+
+    @Id
+    @Column(name = "sketch_date")
+    private LocalDate sketchDate;
+
+    @Column(nullable = false, length = HyperLogLog.SERIALIZED_BYTES)
+    private byte[] registers;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
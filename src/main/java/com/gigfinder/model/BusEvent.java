@@ -0,0 +1,31 @@
+package com.gigfinder.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// One frame on the cross-node notification bus; publishedAt is epoch millis on the origin node
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+@Table(name = "bus_events",
+       indexes = @Index(name = "idx_bus_events_published_at", columnList = "published_at"))
+public class BusEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "origin_node", nullable = false, length = 64)
+    private String originNode;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String destination;
+
+    @Column(columnDefinition = "text", nullable = false)
+    private String payload;
+
+    @Column(name = "published_at", nullable = false)
+    private Long publishedAt;
+}
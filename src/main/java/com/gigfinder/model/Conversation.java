@@ -0,0 +1,88 @@
+package com.gigfinder.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// A chat thread between two users (low id first), optionally about one job; doubles as the inbox row
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+@Table(name = "conversations",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_low_id", "user_high_id", "job_key"}),
+       indexes = {
+        @Index(name = "idx_conversations_pair", columnList = "user_low_id, user_high_id"),
+        @Index(name = "idx_conversations_low_activity", columnList = "user_low_id, last_message_at, id"),
+        @Index(name = "idx_conversations_high_activity", columnList = "user_high_id, last_message_at, id")
+})
+public class Conversation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_low_id")
+    private User userLow;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_high_id")
+    private User userHigh;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "job_id")
+    private Job job;
+
+    // The job's id, or 0 for the pair's general thread; the unique thread key, as job_id may be null
+    @Column(name = "job_key", nullable = false)
+    @Builder.Default
+    private Long jobKey = 0L;
+
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
+    @Column(name = "last_message_preview")
+    private String lastMessagePreview;
+
+    @Column(name = "last_sender_id")
+    private Long lastSenderId;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+
+    @Column(name = "last_seq", nullable = false)
+    @Builder.Default
+    private Long lastSeq = 0L;
+
+    // Highest seq handed out by any node on the jdbc bus; only ever moved by atomic updates
+    @Column(name = "issued_seq", nullable = false, updatable = false)
+    @Builder.Default
+    private Long issuedSeq = 0L;
+
+    // Messages the low/high participant has not read yet
+    @Column(name = "unread_low", nullable = false)
+    @Builder.Default
+    private Integer unreadLow = 0;
+
+    @Column(name = "unread_high", nullable = false)
+    @Builder.Default
+    private Integer unreadHigh = 0;
+
+    // Read watermarks: each participant has read every message up to this seq
+    @Column(name = "last_read_seq_low", nullable = false)
+    @Builder.Default
+    private Long lastReadSeqLow = 0L;
+
+    @Column(name = "last_read_seq_high", nullable = false)
+    @Builder.Default
+    private Long lastReadSeqHigh = 0L;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    public long lastReadSeqFor(Long userId) {
+        return userId.equals(userLow.getId()) ? lastReadSeqLow : lastReadSeqHigh;
+    }
+}
@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 @Builder
 @Entity
 @Table(name = "jobs", indexes = {
-        @Index(name = "idx_jobs_status", columnList = "status")
+        @Index(name = "idx_jobs_status", columnList = "status"),
+        @Index(name = "idx_jobs_accepted_at", columnList = "accepted_at")
 })
 public class Job {
 
@@ -5,10 +5,12 @@ import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
-@Entity @Table(name = "job_assignments", uniqueConstraints = @UniqueConstraint(columnNames = {"job_id"}))
+@Entity @Table(name = "job_assignments", uniqueConstraints = @UniqueConstraint(columnNames = {"job_id"}),
+        indexes = @Index(name = "idx_job_assignments_completed_at", columnList = "completed_at"))
 public class JobAssignment {
     
     @Id 
@@ -37,4 +39,11 @@ public class JobAssignment {
 
     @Column(name = "completed_at")
     private LocalDateTime completedAt;
+
+    // Where the worker was when they accepted; null if their position was unknown
+    @Column(name = "origin_lat", precision = 9, scale = 6)
+    private BigDecimal originLat;
+
+    @Column(name = "origin_lng", precision = 9, scale = 6)
+    private BigDecimal originLng;
 }
@@ -2,13 +2,14 @@ package com.gigfinder.model;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"conversation_id", "conversation_seq"}),
+       indexes = @Index(name = "idx_messages_conversation_created", columnList = "conversation_id, created_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,6 +32,10 @@ public class Message {
     @JoinColumn(name = "job_id")
     private Job job;
     
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "conversation_id")
+    private Conversation conversation;
+    
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
     
@@ -40,11 +45,31 @@ public class Message {
     @Column(name = "message_type")
     private String messageType; // TEXT, IMAGE, FILE, etc.
     
-    @CreationTimestamp
+    // Position within the conversation, assigned when the message is accepted
+    @Column(name = "conversation_seq")
+    private Long conversationSeq;
+    
+    // Set when chat accepts the message, which can be a little before the batched insert
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
     
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+    
+    // is_read is only set on rows from before read watermarks; otherwise the receiver's watermark decides
+    public boolean readByReceiver() {
+        if (Boolean.TRUE.equals(isRead)) {
+            return true;
+        }
+        return conversation != null && conversationSeq != null
+                && conversationSeq <= conversation.lastReadSeqFor(receiver.getId());
+    }
+    
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
 }
@@ -7,7 +7,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
-@Entity @Table(name = "notifications")
+@Entity
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_id_id", columnList = "user_id, id"),
+        @Index(name = "idx_notifications_user_read_created", columnList = "user_id, read_status, created_at")
+})
 public class Notification {
     
     @Id 
@@ -30,4 +34,9 @@ public class Notification {
     @Column(name = "read_status")
     @Builder.Default
     private Boolean readStatus = false;
+
+    // Older unread repeats of this title folded into this one by the retention job
+    @Column(name = "collapsed_count", nullable = false)
+    @Builder.Default
+    private Integer collapsedCount = 0;
 }
@@ -0,0 +1,44 @@
+package com.gigfinder.model;
+
+import com.gigfinder.model.enums.ArchiveReason;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// A notification moved out of the live table by NotificationRetentionService; keeps the original id
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+@Table(name = "notifications_archive", indexes = {
+        @Index(name = "idx_notifications_archive_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_notifications_archive_archived_at", columnList = "archived_at")
+})
+public class NotificationArchive {
+
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private String title;
+
+    @Column(columnDefinition = "text")
+    private String message;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "read_status", nullable = false)
+    private Boolean readStatus;
+
+    @Column(name = "collapsed_count", nullable = false)
+    private Integer collapsedCount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ArchiveReason reason;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -10,7 +10,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments",
+       indexes = {
+           @Index(name = "idx_payments_settlement", columnList = "status, payout_id, id"),
+           @Index(name = "idx_payments_next_attempt", columnList = "status, next_attempt_at")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -52,6 +56,21 @@ public class Payment {
     @Column(name = "failure_reason")
     private String failureReason;
     
+    // Gateway attempts so far, and when a PROCESSING payment is next due (its retry time, or the
+    // end of the current attempt's lease)
+    @Column(name = "attempts")
+    private Integer attempts;
+    
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "gateway_reference")
+    private String gatewayReference;
+    
+    // Set by settlement once the amount has been credited to the worker's wallet
+    @Column(name = "payout_id")
+    private Long payoutId;
+    
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
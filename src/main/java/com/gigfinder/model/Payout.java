@@ -0,0 +1,38 @@
+package com.gigfinder.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// A worker's earnings from one settlement run, credited to their wallet as one ledger entry
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+@Table(name = "payouts",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"run_id", "worker_id"}),
+       indexes = @Index(name = "idx_payouts_worker_id", columnList = "worker_id, id"))
+public class Payout {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "worker_id", nullable = false)
+    private Long workerId;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "payment_count", nullable = false)
+    private int paymentCount;
+
+    @Column(name = "wallet_transaction_id", nullable = false)
+    private Long walletTransactionId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
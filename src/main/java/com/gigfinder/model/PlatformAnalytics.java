@@ -41,12 +41,19 @@ public class PlatformAnalytics {
     @Column(name = "total_ratings")
     private Integer totalRatings;
     
+    @Column(name = "rating_score_sum")
+    private Long ratingScoreSum;
+    
     @Column(name = "average_rating", precision = 3, scale = 2)
     private BigDecimal averageRating;
     
     @Column(name = "most_popular_category")
     private String mostPopularCategory;
     
+    // Set once the day is over and the row has been reconciled against the source tables
+    @Column(name = "finalized")
+    private Boolean finalized;
+    
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private java.time.LocalDateTime createdAt;
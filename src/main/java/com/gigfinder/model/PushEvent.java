@@ -0,0 +1,31 @@
+package com.gigfinder.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// One message of a user's push stream, stored as the JSON frame that was sent
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+@Table(name = "push_events",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "seq"}),
+       indexes = @Index(name = "idx_push_events_created_at", columnList = "created_at"))
+public class PushEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long seq;
+
+    @Column(columnDefinition = "text", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
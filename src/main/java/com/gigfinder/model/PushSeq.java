@@ -0,0 +1,17 @@
+package com.gigfinder.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Last seq issued on a user's push stream; the shared counter nodes allocate from on the jdbc bus
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity @Table(name = "push_seqs")
+public class PushSeq {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long seq;
+}
@@ -8,7 +8,9 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
-@Entity @Table(name = "ratings")
+@Entity @Table(name = "ratings", indexes = {
+        @Index(name = "idx_ratings_reviewee_id", columnList = "reviewee_id, id")
+})
 public class Rating {
     
     @Id 
@@ -0,0 +1,50 @@
+package com.gigfinder.model;
+
+import com.gigfinder.model.enums.SettlementStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One settlement cycle: pays out payments completed before the cutoff, worker by worker in id order
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+@Table(name = "settlement_runs",
+       indexes = @Index(name = "idx_settlement_runs_status", columnList = "status"))
+public class SettlementRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime cutoff;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SettlementStatus status;
+
+    // Every worker up to this id has been paid in this run
+    @Column(name = "last_worker_id", nullable = false)
+    @Builder.Default
+    private Long lastWorkerId = 0L;
+
+    @Column(name = "workers_paid", nullable = false)
+    @Builder.Default
+    private int workersPaid = 0;
+
+    @Column(name = "payments_settled", nullable = false)
+    @Builder.Default
+    private int paymentsSettled = 0;
+
+    @Column(name = "total_amount", nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
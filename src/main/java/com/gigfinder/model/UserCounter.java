@@ -0,0 +1,34 @@
+package com.gigfinder.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+// Badge counts per user, adjusted in the same transaction as the rows they count
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity @Table(name = "user_counters")
+public class UserCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "unread_notifications", nullable = false)
+    @Builder.Default
+    private Integer unreadNotifications = 0;
+
+    @Column(name = "unread_messages", nullable = false)
+    @Builder.Default
+    private Integer unreadMessages = 0;
+
+    // Notifications with an id up to this one count as read
+    @Column(name = "last_read_notification_id", nullable = false)
+    @Builder.Default
+    private Long lastReadNotificationId = 0L;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
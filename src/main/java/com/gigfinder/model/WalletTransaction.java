@@ -0,0 +1,40 @@
+package com.gigfinder.model;
+
+import com.gigfinder.model.enums.WalletTransactionType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One ledger entry: amount is signed (credits positive) and balanceAfter is the wallet balance it produced
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+@Immutable
+@Table(name = "wallet_transactions",
+       indexes = @Index(name = "idx_wallet_transactions_wallet_id_id", columnList = "wallet_id, id"))
+public class WalletTransaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private WalletTransactionType type;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "balance_after", nullable = false, precision = 10, scale = 2)
+    private BigDecimal balanceAfter;
+
+    private String reference;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
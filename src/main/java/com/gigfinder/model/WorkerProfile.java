@@ -3,6 +3,7 @@ package com.gigfinder.model;
 import com.gigfinder.model.enums.VerificationStatus;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
@@ -39,9 +40,39 @@ public class WorkerProfile {
     @Column(name = "photo_url")
     private String photoUrl;
 
-    @Column(name = "rating_avg", precision = 3, scale = 2)
+    // Rating aggregates are only ever changed by atomic UPDATEs in WorkerProfileRepository,
+    // so saving a stale entity can't roll them back
+    @Column(name = "rating_avg", precision = 3, scale = 2, updatable = false)
     private BigDecimal ratingAvg;
 
+    @ColumnDefault("0")
+    @Column(name = "rating_sum", nullable = false, insertable = false, updatable = false)
+    private Long ratingSum;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_count", nullable = false, insertable = false, updatable = false)
+    private Integer ratingCount;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_1_count", nullable = false, insertable = false, updatable = false)
+    private Integer rating1Count;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_2_count", nullable = false, insertable = false, updatable = false)
+    private Integer rating2Count;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_3_count", nullable = false, insertable = false, updatable = false)
+    private Integer rating3Count;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_4_count", nullable = false, insertable = false, updatable = false)
+    private Integer rating4Count;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_5_count", nullable = false, insertable = false, updatable = false)
+    private Integer rating5Count;
+
     @Column(name = "experience_years")
     private Integer experienceYears;
 
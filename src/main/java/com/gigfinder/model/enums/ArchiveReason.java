@@ -0,0 +1,8 @@
+package com.gigfinder.model.enums;
+
+// Why the retention job moved a notification to notifications_archive
+public enum ArchiveReason {
+    AGED,
+    CAPPED,
+    COLLAPSED
+}
@@ -0,0 +1,6 @@
+package com.gigfinder.model.enums;
+
+public enum SettlementStatus {
+    RUNNING,
+    COMPLETED
+}
@@ -0,0 +1,7 @@
+package com.gigfinder.model.enums;
+
+public enum WalletTransactionType {
+    TOP_UP,
+    WITHDRAWAL,
+    SETTLEMENT
+}
@@ -0,0 +1,23 @@
+package com.gigfinder.repository;
+
+import com.gigfinder.model.ActiveUserSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ActiveUserSketchRepository extends JpaRepository<ActiveUserSketch, LocalDate> {
+    List<ActiveUserSketch> findBySketchDateBetween(LocalDate from, LocalDate to);
+
+    // Serializes the read-merge-write of one day's sketch across nodes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ActiveUserSketch s WHERE s.sketchDate = :date")
+    Optional<ActiveUserSketch> findByDateForUpdate(@Param("date") LocalDate date);
+}
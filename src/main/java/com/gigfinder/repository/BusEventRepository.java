@@ -0,0 +1,27 @@
+package com.gigfinder.repository;
+
+import com.gigfinder.model.BusEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface BusEventRepository extends JpaRepository<BusEvent, Long> {
+
+    @Query("SELECT MAX(e.id) FROM BusEvent e")
+    Long findMaxId();
+
+    @Query("SELECT e FROM BusEvent e WHERE e.id > :afterId ORDER BY e.id")
+    List<BusEvent> findAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BusEvent e WHERE e.publishedAt < :cutoff")
+    int deletePublishedBefore(@Param("cutoff") long cutoff);
+}
@@ -0,0 +1,58 @@
+package com.gigfinder.repository;
+
+import com.gigfinder.model.Conversation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+
+    // jobKey is the job's id, or 0 for the pair's general thread
+    @Query("SELECT c FROM Conversation c WHERE c.userLow.id = :low AND c.userHigh.id = :high AND c.jobKey = :jobKey")
+    Optional<Conversation> findThread(@Param("low") Long low, @Param("high") Long high, @Param("jobKey") Long jobKey);
+
+    @Query("SELECT c.id FROM Conversation c WHERE c.userLow.id = :low AND c.userHigh.id = :high")
+    List<Long> findIdsByPair(@Param("low") Long low, @Param("high") Long high);
+
+    // Inbox page, most recent activity first, strictly before (before, beforeId); served by the per-participant activity indexes
+    @Query("SELECT c FROM Conversation c JOIN FETCH c.userLow JOIN FETCH c.userHigh " +
+           "WHERE (c.userLow.id = :userId OR c.userHigh.id = :userId) " +
+           "AND (c.lastMessageAt < :before OR (c.lastMessageAt = :before AND c.id < :beforeId)) " +
+           "ORDER BY c.lastMessageAt DESC, c.id DESC")
+    List<Conversation> findInbox(@Param("userId") Long userId, @Param("before") LocalDateTime before,
+                                 @Param("beforeId") Long beforeId, Pageable pageable);
+
+    // Folds a batch of new messages into the summary; the "last" fields only move forward in seq order
+    @Modifying
+    @Query("UPDATE Conversation c SET " +
+           "c.lastMessageId = CASE WHEN c.lastSeq < :seq THEN :messageId ELSE c.lastMessageId END, " +
+           "c.lastMessagePreview = CASE WHEN c.lastSeq < :seq THEN :preview ELSE c.lastMessagePreview END, " +
+           "c.lastSenderId = CASE WHEN c.lastSeq < :seq THEN :senderId ELSE c.lastSenderId END, " +
+           "c.lastMessageAt = CASE WHEN c.lastSeq < :seq THEN :at ELSE c.lastMessageAt END, " +
+           "c.lastSeq = CASE WHEN c.lastSeq < :seq THEN :seq ELSE c.lastSeq END, " +
+           "c.unreadLow = c.unreadLow + :addLow, c.unreadHigh = c.unreadHigh + :addHigh " +
+           "WHERE c.id = :id")
+    int recordMessages(@Param("id") Long id, @Param("messageId") Long messageId, @Param("preview") String preview,
+                       @Param("senderId") Long senderId, @Param("at") LocalDateTime at, @Param("seq") Long seq,
+                       @Param("addLow") int addLow, @Param("addHigh") int addHigh);
+
+    // Legacy messages filed ahead of a thread push the seqs already handed out up with them
+    @Modifying
+    @Query("UPDATE Conversation c SET c.issuedSeq = c.issuedSeq + :shift WHERE c.id = :id AND c.issuedSeq > 0")
+    int shiftIssuedSeq(@Param("id") Long id, @Param("shift") long shift);
+
+    // Serializes watermark moves against the batch writer's summary updates
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Conversation c WHERE c.id = :id")
+    Optional<Conversation> findByIdForUpdate(@Param("id") Long id);
+}
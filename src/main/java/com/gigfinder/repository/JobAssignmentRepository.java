@@ -4,8 +4,13 @@ import com.gigfinder.model.JobAssignment;
 import com.gigfinder.model.Job;
 import com.gigfinder.model.WorkerProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.time.LocalDateTime;
@@ -22,11 +27,36 @@ public interface JobAssignmentRepository extends JpaRepository<JobAssignment, Lo
     boolean existsByJob(Job job);
 
     long countByWorkerAndAssignedAtBetween(WorkerProfile worker, LocalDateTime start, LocalDateTime end);
-}
 
+    long countByCompletedAtBetween(LocalDateTime start, LocalDateTime end);
+
+    long countByWorkerAndStatus(WorkerProfile worker, com.gigfinder.model.enums.AssignmentStatus status);
 
+    @Query("SELECT a.worker.id, COUNT(a) FROM JobAssignment a WHERE a.status = com.gigfinder.model.enums.AssignmentStatus.COMPLETED GROUP BY a.worker.id")
+    List<Object[]> countCompletedByWorker();
 
+    @Query("SELECT j.createdAt, a.completedAt, cat.id, COALESCE(j.locationLat, c.locationLat), COALESCE(j.locationLng, c.locationLng) " +
+           "FROM JobAssignment a JOIN a.job j JOIN j.client c LEFT JOIN j.category cat WHERE a.completedAt >= :since")
+    List<Object[]> findCompleteLatencyRowsSince(@Param("since") LocalDateTime since);
 
+    // (accepted, started, job lat, job lng, origin lat, origin lng) for learning travel speeds
+    @Query("SELECT j.acceptedAt, a.startedAt, COALESCE(j.locationLat, c.locationLat), COALESCE(j.locationLng, c.locationLng), " +
+           "a.originLat, a.originLng FROM JobAssignment a JOIN a.job j JOIN j.client c " +
+           "WHERE a.startedAt >= :since AND j.acceptedAt IS NOT NULL AND a.originLat IS NOT NULL")
+    List<Object[]> findTravelRowsSince(@Param("since") LocalDateTime since);
 
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobAssignment a SET a.originLat = :lat, a.originLng = :lng WHERE a.job.id = :jobId")
+    int recordOrigin(@Param("jobId") Long jobId, @Param("lat") BigDecimal lat, @Param("lng") BigDecimal lng);
 
+    // (origin lat, origin lng) of the job's assignment
+    @Query("SELECT a.originLat, a.originLng FROM JobAssignment a WHERE a.job.id = :jobId AND a.originLat IS NOT NULL")
+    List<Object[]> findOriginByJobId(@Param("jobId") Long jobId);
 
+    // (job id, client user id) of the worker's current assignments, most recent first
+    @Query("SELECT j.id, c.user.id FROM JobAssignment a JOIN a.job j JOIN j.client c WHERE a.worker.user.id = :userId " +
+           "AND a.status IN (com.gigfinder.model.enums.AssignmentStatus.ASSIGNED, com.gigfinder.model.enums.AssignmentStatus.IN_PROGRESS) " +
+           "ORDER BY a.assignedAt DESC")
+    List<Object[]> findActiveJobClientsByWorkerUser(@Param("userId") Long userId);
+}
@@ -1,5 +1,6 @@
 package com.gigfinder.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -29,7 +30,7 @@ public interface JobRepository extends JpaRepository<Job, Long>, JpaSpecificatio
     List<Job> findByClientUser(User user);
     
     @Query("SELECT COUNT(j) FROM Job j WHERE j.status = :status")
-    Long countByStatus(@Param("status") String status);
+    Long countByStatus(@Param("status") JobStatus status);
     
     @Query("SELECT COUNT(j) FROM Job j WHERE j.createdAt >= :startTime")
     Long countJobsPostedToday(@Param("startTime") LocalDateTime startTime);
@@ -45,4 +46,27 @@ public interface JobRepository extends JpaRepository<Job, Long>, JpaSpecificatio
     
     @Query("SELECT c.name FROM Job j JOIN j.category c GROUP BY c.name ORDER BY COUNT(j) DESC LIMIT 1")
     String findMostPopularCategory();
+    
+    @Query("SELECT c.name, COUNT(j) FROM Job j JOIN j.category c WHERE j.createdAt BETWEEN :startTime AND :endTime " +
+           "GROUP BY c.name ORDER BY COUNT(j) DESC")
+    List<Object[]> countJobsByCategoryNameBetween(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+    
+    @Query("SELECT c.id, COUNT(j) FROM Job j JOIN j.category c GROUP BY c.id")
+    List<Object[]> countJobsByCategory();
+    
+    @Query("SELECT s.id, COUNT(j) FROM Job j JOIN j.subCategory s GROUP BY s.id")
+    List<Object[]> countJobsBySubCategory();
+
+    // Falls back to the client's location for jobs posted without a pin
+    @Query("SELECT j.id, COALESCE(j.locationLat, c.locationLat), COALESCE(j.locationLng, c.locationLng), cat.id, j.status " +
+           "FROM Job j JOIN j.client c LEFT JOIN j.category cat WHERE j.id > :afterId ORDER BY j.id")
+    List<Object[]> findHeatmapRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT j.createdAt, j.acceptedAt, cat.id, COALESCE(j.locationLat, c.locationLat), COALESCE(j.locationLng, c.locationLng) " +
+           "FROM Job j JOIN j.client c LEFT JOIN j.category cat WHERE j.acceptedAt >= :since")
+    List<Object[]> findAcceptLatencyRowsSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT j.id, j.createdAt, cat.id, COALESCE(j.locationLat, c.locationLat), COALESCE(j.locationLng, c.locationLng), " +
+           "j.status, j.budget, j.acceptedAt FROM Job j JOIN j.client c LEFT JOIN j.category cat WHERE j.id > :afterId ORDER BY j.id")
+    List<Object[]> findFactRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
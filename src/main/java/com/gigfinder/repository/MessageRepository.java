@@ -2,10 +2,14 @@ package com.gigfinder.repository;
 
 import com.gigfinder.model.Message;
 import com.gigfinder.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -14,9 +18,45 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     List<Message> findByReceiverOrderByCreatedAtDesc(User receiver);
     List<Message> findBySenderOrderByCreatedAtDesc(User sender);
     
-    @Query("SELECT m FROM Message m WHERE (m.sender = ?1 AND m.receiver = ?2) OR (m.sender = ?2 AND m.receiver = ?1) ORDER BY m.createdAt DESC")
-    List<Message> findConversationBetweenUsers(User user1, User user2);
+    // Keyset page of one conversation, newest first, strictly before (before, beforeId)
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver JOIN FETCH m.conversation " +
+           "WHERE m.conversation.id = :conversationId " +
+           "AND (m.createdAt < :before OR (m.createdAt = :before AND m.id < :beforeId)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findHistory(@Param("conversationId") Long conversationId, @Param("before") LocalDateTime before,
+                              @Param("beforeId") Long beforeId, Pageable pageable);
     
-    @Query("SELECT COUNT(m) FROM Message m WHERE m.receiver = ?1 AND m.isRead = false")
-    Long countUnreadMessagesByReceiver(User receiver);
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver JOIN FETCH m.conversation " +
+           "WHERE m.conversation.id IN :conversationIds " +
+           "AND (m.createdAt < :before OR (m.createdAt = :before AND m.id < :beforeId)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findHistoryAcross(@Param("conversationIds") List<Long> conversationIds, @Param("before") LocalDateTime before,
+                                    @Param("beforeId") Long beforeId, Pageable pageable);
+    
+    // Messages written before conversations existed, for the backfill
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver LEFT JOIN FETCH m.job " +
+           "WHERE m.conversation IS NULL ORDER BY m.id")
+    List<Message> findWithoutConversation(Pageable pageable);
+    
+    boolean existsByConversationIsNull();
+    
+    // One thread's messages written before conversations existed, in the order they were sent
+    @Query("SELECT m FROM Message m WHERE m.conversation IS NULL " +
+           "AND ((m.sender.id = :low AND m.receiver.id = :high) OR (m.sender.id = :high AND m.receiver.id = :low)) " +
+           "AND COALESCE(m.job.id, 0) = :jobKey ORDER BY m.createdAt, m.id")
+    List<Message> findLegacyInThread(@Param("low") Long low, @Param("high") Long high, @Param("jobKey") Long jobKey);
+    
+    // Two steps through negative seqs, since one in-place shift can collide on the unique (conversation, seq) row by row
+    @Modifying
+    @Query("UPDATE Message m SET m.conversationSeq = -(m.conversationSeq + :shift) WHERE m.conversation.id = :conversationId")
+    int shiftSeqsNegated(@Param("conversationId") Long conversationId, @Param("shift") long shift);
+
+    @Modifying
+    @Query("UPDATE Message m SET m.conversationSeq = -m.conversationSeq WHERE m.conversation.id = :conversationId AND m.conversationSeq < 0")
+    int restoreShiftedSeqs(@Param("conversationId") Long conversationId);
+    
+    // Messages to the receiver still unread past a prospective watermark
+    @Query("SELECT COUNT(m) FROM Message m WHERE m.conversation.id = :conversationId AND m.receiver.id = :receiverId " +
+           "AND m.conversationSeq > :seq AND m.isRead = false")
+    long countUnreadAfter(@Param("conversationId") Long conversationId, @Param("receiverId") Long receiverId, @Param("seq") long seq);
 }
@@ -0,0 +1,26 @@
+package com.gigfinder.repository;
+
+import com.gigfinder.model.NotificationArchive;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationArchiveRepository extends JpaRepository<NotificationArchive, Long> {
+
+    // Keyset page of one user's archived notifications, newest first
+    @Query("SELECT a FROM NotificationArchive a WHERE a.userId = :userId AND a.id < :beforeId ORDER BY a.id DESC")
+    List<NotificationArchive> findForUser(@Param("userId") Long userId, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM NotificationArchive a WHERE a.archivedAt < :cutoff")
+    int deleteArchivedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
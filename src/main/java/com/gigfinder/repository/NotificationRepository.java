@@ -2,6 +2,8 @@ package com.gigfinder.repository;
 
 import com.gigfinder.model.Notification;
 import com.gigfinder.model.User;
+import com.gigfinder.model.enums.ArchiveReason;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,28 +11,84 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
-    List<Notification> findByUserOrderByCreatedAtDesc(User user);
-    List<Notification> findByUserAndReadStatusOrderByCreatedAtDesc(User user, Boolean readStatus);
+    // Keyset page, newest first. Read state folds in the user's watermark; results are detached copies, not managed entities
+    @Query("SELECT new com.gigfinder.model.Notification(n.id, n.user, n.title, n.message, n.createdAt, " +
+           "CASE WHEN n.readStatus = true OR n.id <= :watermark THEN true ELSE false END, n.collapsedCount) " +
+           "FROM Notification n WHERE n.user = :user AND n.id < :beforeId ORDER BY n.id DESC")
+    List<Notification> findForUser(@Param("user") User user, @Param("watermark") Long watermark,
+                                   @Param("beforeId") Long beforeId, Pageable pageable);
     
+    @Query("SELECT n FROM Notification n WHERE n.user = :user AND n.readStatus = false AND n.id > :watermark " +
+           "ORDER BY n.createdAt DESC")
+    List<Notification> findUnreadForUser(@Param("user") User user, @Param("watermark") Long watermark);
+    
+    @Query("SELECT MAX(n.id) FROM Notification n WHERE n.user = :user")
+    Long findMaxIdByUser(@Param("user") User user);
+    
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.user = :user AND n.readStatus = false AND n.id > :id")
+    long countUnreadAfter(@Param("user") User user, @Param("id") Long id);
+    
+    // Out-of-order read of a single notification past the watermark
     @Modifying
     @Transactional
-    @Query("UPDATE Notification n SET n.readStatus = true WHERE n.user = :user AND n.id = :notificationId")
-    int markAsRead(@Param("user") User user, @Param("notificationId") Long notificationId);
+    @Query("UPDATE Notification n SET n.readStatus = true WHERE n.user = :user AND n.id = :notificationId " +
+           "AND n.id > :watermark AND n.readStatus = false")
+    int markAsRead(@Param("user") User user, @Param("notificationId") Long notificationId, @Param("watermark") Long watermark);
+    
+    // Retention queries below; the modifying ones run inside NotificationRetentionService's transactions
+    
+    // Read notifications created before the cutoff, oldest first
+    @Query("SELECT n.id FROM Notification n LEFT JOIN UserCounter c ON c.userId = n.user.id " +
+           "WHERE n.createdAt < :cutoff AND (n.readStatus = true OR n.id <= COALESCE(c.lastReadNotificationId, 0)) " +
+           "ORDER BY n.id")
+    List<Long> findReadIdsCreatedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    @Query("SELECT n.user.id FROM Notification n GROUP BY n.user.id HAVING COUNT(n) > :cap")
+    List<Long> findUserIdsOverCap(@Param("cap") long cap, Pageable pageable);
+    
+    @Query("SELECT n.id FROM Notification n WHERE n.user.id = :userId ORDER BY n.id DESC")
+    List<Long> findIdsByUserNewestFirst(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query("SELECT n.id FROM Notification n WHERE n.user.id = :userId AND n.id <= :maxId ORDER BY n.id")
+    List<Long> findIdsByUserUpTo(@Param("userId") Long userId, @Param("maxId") Long maxId, Pageable pageable);
+    
+    // (user id, title, newest id) of titles a user has more than one unread notification for
+    @Query("SELECT n.user.id, n.title, MAX(n.id) FROM Notification n LEFT JOIN UserCounter c ON c.userId = n.user.id " +
+           "WHERE n.readStatus = false AND n.id > COALESCE(c.lastReadNotificationId, 0) AND n.title IS NOT NULL " +
+           "GROUP BY n.user.id, n.title HAVING COUNT(n) > 1")
+    List<Object[]> findUnreadRepeats(Pageable pageable);
+    
+    @Query("SELECT n.id FROM Notification n WHERE n.user.id = :userId AND n.title = :title AND n.readStatus = false " +
+           "AND n.id > :watermark AND n.id < :keepId ORDER BY n.id")
+    List<Long> findUnreadRepeatIds(@Param("userId") Long userId, @Param("title") String title,
+                                   @Param("watermark") Long watermark, @Param("keepId") Long keepId, Pageable pageable);
+    
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.id IN :ids AND n.readStatus = false AND n.id > :watermark")
+    long countUnreadIn(@Param("ids") Collection<Long> ids, @Param("watermark") Long watermark);
     
+    @Query("SELECT COALESCE(SUM(n.collapsedCount), 0) FROM Notification n WHERE n.id IN :ids")
+    long sumCollapsedIn(@Param("ids") Collection<Long> ids);
+    
+    // Rows past the watermark keep their own read flag; pass Long.MAX_VALUE when every row is known to be read
     @Modifying
-    @Transactional
-    @Query("UPDATE Notification n SET n.readStatus = true WHERE n.user = :user")
-    int markAllAsRead(@Param("user") User user);
+    @Query("INSERT INTO NotificationArchive (id, userId, title, message, createdAt, readStatus, collapsedCount, reason, archivedAt) " +
+           "SELECT n.id, n.user.id, n.title, n.message, n.createdAt, " +
+           "CASE WHEN n.readStatus = true OR n.id <= :watermark THEN true ELSE false END, n.collapsedCount, :reason, :archivedAt " +
+           "FROM Notification n WHERE n.id IN :ids")
+    int archive(@Param("ids") Collection<Long> ids, @Param("watermark") Long watermark,
+                @Param("reason") ArchiveReason reason, @Param("archivedAt") LocalDateTime archivedAt);
+    
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
     
-    Long countByUserAndReadStatus(User user, Boolean readStatus);
+    @Modifying
+    @Query("UPDATE Notification n SET n.collapsedCount = n.collapsedCount + :added WHERE n.id = :id")
+    int addCollapsed(@Param("id") Long id, @Param("added") int added);
 }
-
-
-
-
-
-
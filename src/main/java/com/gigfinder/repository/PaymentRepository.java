@@ -3,10 +3,13 @@ package com.gigfinder.repository;
 import com.gigfinder.model.Payment;
 import com.gigfinder.model.User;
 import com.gigfinder.model.enums.PaymentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -27,4 +30,56 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     
     @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.status = 'COMPLETED' AND p.createdAt BETWEEN :startTime AND :endTime")
     BigDecimal sumRevenueBetween(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+    
+    @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.status = 'COMPLETED' AND p.paymentDate BETWEEN :startTime AND :endTime")
+    BigDecimal sumCompletedPaymentsBetween(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+
+    // Keyset scan of completed payments not yet paid out: {id, worker user id, amount}
+    @Query("SELECT p.id, p.worker.id, p.amount FROM Payment p WHERE p.status = 'COMPLETED' AND p.payoutId IS NULL " +
+           "AND p.paymentDate < :cutoff AND p.id > :afterId ORDER BY p.id")
+    List<Object[]> findUnsettledAfter(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId, Pageable pageable);
+
+    // Points each worker's scanned payments at that worker's payout in the run; returns how many were marked
+    @Modifying
+    @Query("UPDATE Payment p SET p.payoutId = (SELECT po.id FROM Payout po WHERE po.runId = :runId AND po.workerId = p.worker.id), " +
+           "p.updatedAt = :now WHERE p.worker.id IN :workerIds AND p.status = 'COMPLETED' AND p.payoutId IS NULL " +
+           "AND p.paymentDate < :cutoff AND p.id <= :maxId")
+    int markSettled(@Param("runId") Long runId, @Param("workerIds") List<Long> workerIds, @Param("cutoff") LocalDateTime cutoff,
+                    @Param("maxId") Long maxId, @Param("now") LocalDateTime now);
+
+    // Payment state transitions are conditional on the current state, so repeats and races change nothing
+
+    // PENDING -> PROCESSING; the caller owns the first attempt until leaseUntil
+    @Modifying
+    @Transactional
+    @Query("UPDATE Payment p SET p.status = :processing, p.attempts = 1, p.nextAttemptAt = :leaseUntil, p.updatedAt = :now " +
+           "WHERE p.id = :id AND p.status = 'PENDING'")
+    int startProcessing(@Param("id") Long id, @Param("processing") PaymentStatus processing,
+                        @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Processing payments whose retry is due or whose attempt's lease ran out
+    @Query("SELECT p.id FROM Payment p WHERE p.status = 'PROCESSING' AND p.nextAttemptAt <= :now ORDER BY p.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Takes the next attempt of a due payment; of several callers only one wins
+    @Modifying
+    @Transactional
+    @Query("UPDATE Payment p SET p.attempts = COALESCE(p.attempts, 0) + 1, p.nextAttemptAt = :leaseUntil, p.updatedAt = :now " +
+           "WHERE p.id = :id AND p.status = 'PROCESSING' AND p.nextAttemptAt <= :now")
+    int claimAttempt(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Payment p SET p.nextAttemptAt = :retryAt, p.failureReason = :reason, p.updatedAt = :now " +
+           "WHERE p.id = :id AND p.status = 'PROCESSING'")
+    int scheduleRetry(@Param("id") Long id, @Param("retryAt") LocalDateTime retryAt, @Param("reason") String reason,
+                      @Param("now") LocalDateTime now);
+
+    // PROCESSING -> COMPLETED or FAILED
+    @Modifying
+    @Transactional
+    @Query("UPDATE Payment p SET p.status = :outcome, p.paymentDate = :paymentDate, p.gatewayReference = :reference, " +
+           "p.failureReason = :reason, p.nextAttemptAt = NULL, p.updatedAt = :now WHERE p.id = :id AND p.status = 'PROCESSING'")
+    int finishProcessing(@Param("id") Long id, @Param("outcome") PaymentStatus outcome, @Param("paymentDate") LocalDateTime paymentDate,
+                         @Param("reference") String reference, @Param("reason") String reason, @Param("now") LocalDateTime now);
 }
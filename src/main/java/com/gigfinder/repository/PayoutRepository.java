@@ -0,0 +1,18 @@
+package com.gigfinder.repository;
+
+import com.gigfinder.model.Payout;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PayoutRepository extends JpaRepository<Payout, Long> {
+
+    // Keyset page of one worker's payouts, newest first
+    @Query("SELECT p FROM Payout p WHERE p.workerId = :workerId AND p.id < :beforeId ORDER BY p.id DESC")
+    List<Payout> findForWorker(@Param("workerId") Long workerId, @Param("beforeId") Long beforeId, Pageable pageable);
+}
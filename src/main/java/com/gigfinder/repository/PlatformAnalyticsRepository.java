@@ -0,0 +1,59 @@
+package com.gigfinder.repository;
+
+import com.gigfinder.model.PlatformAnalytics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PlatformAnalyticsRepository extends JpaRepository<PlatformAnalytics, Long> {
+    Optional<PlatformAnalytics> findByDate(LocalDate date);
+
+    List<PlatformAnalytics> findByDateBetweenOrderByDateAsc(LocalDate from, LocalDate to);
+
+    @Query("SELECT p.date FROM PlatformAnalytics p WHERE p.date BETWEEN :from AND :to")
+    List<LocalDate> findDatesBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT MIN(p.date) FROM PlatformAnalytics p")
+    LocalDate findFirstDate();
+
+    // Applies a batch of counter deltas in one statement so concurrent flushes can't lose updates
+    @Modifying
+    @Transactional
+    @Query("UPDATE PlatformAnalytics p SET " +
+           "p.totalJobsPosted = COALESCE(p.totalJobsPosted, 0) + :jobsPosted, " +
+           "p.totalJobsCompleted = COALESCE(p.totalJobsCompleted, 0) + :jobsCompleted, " +
+           "p.totalRevenue = COALESCE(p.totalRevenue, 0) + :revenue, " +
+           "p.newRegistrations = COALESCE(p.newRegistrations, 0) + :registrations, " +
+           "p.totalRatings = COALESCE(p.totalRatings, 0) + :ratings, " +
+           "p.ratingScoreSum = COALESCE(p.ratingScoreSum, 0) + :ratingScoreSum, " +
+           "p.averageRating = CASE WHEN COALESCE(p.totalRatings, 0) + :ratings = 0 THEN NULL " +
+           "ELSE ROUND(CAST(COALESCE(p.ratingScoreSum, 0) + :ratingScoreSum AS BigDecimal) / (COALESCE(p.totalRatings, 0) + :ratings), 2) END, " +
+           "p.activeUsers = CASE WHEN COALESCE(p.activeUsers, 0) > :activeUsers THEN p.activeUsers ELSE :activeUsers END, " +
+           "p.mostPopularCategory = COALESCE(:mostPopularCategory, p.mostPopularCategory), " +
+           "p.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE p.date = :date")
+    int applyDeltas(@Param("date") LocalDate date,
+                    @Param("jobsPosted") int jobsPosted,
+                    @Param("jobsCompleted") int jobsCompleted,
+                    @Param("revenue") BigDecimal revenue,
+                    @Param("registrations") int registrations,
+                    @Param("ratings") int ratings,
+                    @Param("ratingScoreSum") long ratingScoreSum,
+                    @Param("activeUsers") int activeUsers,
+                    @Param("mostPopularCategory") String mostPopularCategory);
+
+    @Query("SELECT COALESCE(SUM(p.totalJobsPosted), 0), COALESCE(SUM(p.totalJobsCompleted), 0), " +
+           "COALESCE(SUM(p.totalRevenue), 0), COALESCE(SUM(p.newRegistrations), 0), " +
+           "COALESCE(SUM(p.totalRatings), 0), COALESCE(SUM(p.ratingScoreSum), 0) " +
+           "FROM PlatformAnalytics p WHERE p.date BETWEEN :from AND :to")
+    List<Object[]> sumBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
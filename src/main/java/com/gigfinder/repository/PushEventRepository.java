@@ -0,0 +1,36 @@
+package com.gigfinder.repository;
+
+import com.gigfinder.model.PushEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PushEventRepository extends JpaRepository<PushEvent, Long> {
+
+    @Query("SELECT MAX(e.seq) FROM PushEvent e WHERE e.userId = :userId")
+    Long findMaxSeq(@Param("userId") Long userId);
+
+    // The gap (afterSeq, beforeSeq) of one user's stream, oldest first
+    @Query("SELECT e.payload FROM PushEvent e WHERE e.userId = :userId AND e.seq > :afterSeq AND e.seq < :beforeSeq " +
+           "ORDER BY e.seq")
+    List<String> findPayloadsBetween(@Param("userId") Long userId, @Param("afterSeq") long afterSeq,
+                                     @Param("beforeSeq") long beforeSeq, Pageable pageable);
+
+    @Query("SELECT MIN(e.seq) FROM PushEvent e WHERE e.userId = :userId")
+    Long findMinSeq(@Param("userId") Long userId);
+
+    // Each user's newest row is kept however old, so findMaxSeq never goes back and seqs don't restart
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PushEvent e WHERE e.createdAt < :cutoff " +
+           "AND e.seq < (SELECT MAX(e2.seq) FROM PushEvent e2 WHERE e2.userId = e.userId)")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,7 +1,9 @@
 package com.gigfinder.repository;
 
+import com.gigfinder.dto.RatingResponseDTO;
 import com.gigfinder.model.Rating;
 import com.gigfinder.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,6 +16,14 @@ import java.util.List;
 @Repository
 public interface RatingRepository extends JpaRepository<Rating, Long> {
     List<Rating> findByReviewee(User reviewee);
+
+    // Keyset page, newest first; served by the (reviewee_id, id) index
+    @Query("SELECT new com.gigfinder.dto.RatingResponseDTO(r.id, j.title, rv.name, re.name, r.score, r.comment, r.createdAt) " +
+           "FROM Rating r JOIN r.job j JOIN r.reviewer rv JOIN r.reviewee re " +
+           "WHERE re.id = :revieweeId AND r.id < :beforeId ORDER BY r.id DESC")
+    List<RatingResponseDTO> findFeedByReviewee(@Param("revieweeId") Long revieweeId,
+                                               @Param("beforeId") Long beforeId,
+                                               Pageable pageable);
     
     @Query("SELECT AVG(r.score) FROM Rating r WHERE r.reviewee = :reviewee")
     BigDecimal getAverageRatingByReviewee(@Param("reviewee") User reviewee);
@@ -29,6 +39,9 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
     
     @Query("SELECT COUNT(r) FROM Rating r WHERE r.createdAt BETWEEN :startTime AND :endTime")
     Long countByCreatedAtBetween(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+    
+    @Query("SELECT COALESCE(SUM(r.score), 0) FROM Rating r WHERE r.createdAt BETWEEN :startTime AND :endTime")
+    Long sumScoreBetween(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
 }
 
 
@@ -3,6 +3,7 @@ package com.gigfinder.repository;
 import com.gigfinder.model.ServicePackage;
 import com.gigfinder.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +14,7 @@ public interface ServicePackageRepository extends JpaRepository<ServicePackage,
     List<ServicePackage> findByIsActiveTrue();
     List<ServicePackage> findByCategoryAndIsActiveTrue(Category category);
     List<ServicePackage> findByPackageType(String packageType);
+    
+    @Query("SELECT p.id, p.name, c.id FROM ServicePackage p LEFT JOIN p.category c WHERE p.isActive = true")
+    List<Object[]> findActivePackageNames();
 }
@@ -0,0 +1,16 @@
+package com.gigfinder.repository;
+
+import com.gigfinder.model.SettlementRun;
+import com.gigfinder.model.enums.SettlementStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SettlementRunRepository extends JpaRepository<SettlementRun, Long> {
+    Optional<SettlementRun> findFirstByStatusOrderByIdDesc(SettlementStatus status);
+
+    List<SettlementRun> findTop20ByOrderByIdDesc();
+}
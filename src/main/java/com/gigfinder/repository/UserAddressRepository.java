@@ -2,7 +2,10 @@ package com.gigfinder.repository;
 
 import com.gigfinder.model.UserAddress;
 import com.gigfinder.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +16,10 @@ public interface UserAddressRepository extends JpaRepository<UserAddress, Long>
     List<UserAddress> findByUser(User user);
     Optional<UserAddress> findByUserAndIsDefaultTrue(User user);
     List<UserAddress> findByUserAndAddressType(User user, String addressType);
+    
+    @Query("SELECT a.city, a.postalCode, COUNT(a) FROM UserAddress a GROUP BY a.city, a.postalCode")
+    List<Object[]> countByLocality();
+    
+    @Query("SELECT a FROM UserAddress a WHERE a.id > :afterId AND (a.locationLat IS NULL OR a.locationLng IS NULL) ORDER BY a.id")
+    List<UserAddress> findMissingCoordinatesAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
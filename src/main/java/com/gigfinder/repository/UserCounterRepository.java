@@ -0,0 +1,66 @@
+package com.gigfinder.repository;
+
+import com.gigfinder.model.UserCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserCounterRepository extends JpaRepository<UserCounter, Long> {
+
+    // Scalar read so a counter entity cached earlier in the session can't mask a bulk update
+    @Query("SELECT c.unreadNotifications, c.unreadMessages FROM UserCounter c WHERE c.userId = :userId")
+    List<Object[]> findCounts(@Param("userId") Long userId);
+
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE UserCounter c SET c.unreadNotifications = CASE WHEN c.unreadNotifications + :delta < 0 THEN 0 " +
+           "ELSE c.unreadNotifications + :delta END, c.updatedAt = CURRENT_TIMESTAMP WHERE c.userId = :userId")
+    int adjustNotifications(@Param("userId") Long userId, @Param("delta") int delta);
+
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE UserCounter c SET c.unreadMessages = CASE WHEN c.unreadMessages + :delta < 0 THEN 0 " +
+           "ELSE c.unreadMessages + :delta END, c.updatedAt = CURRENT_TIMESTAMP WHERE c.userId = :userId")
+    int adjustMessages(@Param("userId") Long userId, @Param("delta") int delta);
+
+    @Query("SELECT c.lastReadNotificationId FROM UserCounter c WHERE c.userId = :userId")
+    Optional<Long> findNotificationWatermark(@Param("userId") Long userId);
+
+    // Moves the notification watermark forward only; the unread count becomes what lies past it
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("UPDATE UserCounter c SET c.lastReadNotificationId = :upToId, c.unreadNotifications = :remaining, " +
+           "c.updatedAt = CURRENT_TIMESTAMP WHERE c.userId = :userId AND c.lastReadNotificationId < :upToId")
+    int advanceNotificationWatermark(@Param("userId") Long userId, @Param("upToId") Long upToId,
+                                     @Param("remaining") int remaining);
+
+    // Seeds a user's counters from the source tables; a no-op if the row already exists
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("INSERT INTO UserCounter (userId, unreadNotifications, unreadMessages, lastReadNotificationId, updatedAt) " +
+           "SELECT u.id, " +
+           "CAST((SELECT COUNT(n) FROM Notification n WHERE n.user = u AND n.readStatus = false) AS Integer), " +
+           "CAST((SELECT COUNT(m) FROM Message m LEFT JOIN m.conversation cv WHERE m.receiver = u AND m.isRead = false " +
+           "AND (cv IS NULL OR m.conversationSeq > CASE WHEN cv.userLow = u THEN cv.lastReadSeqLow ELSE cv.lastReadSeqHigh END)) AS Integer), " +
+           "0L, CURRENT_TIMESTAMP FROM User u " +
+           "WHERE u.id = :userId AND NOT EXISTS (SELECT c FROM UserCounter c WHERE c.userId = u.id)")
+    int initialize(@Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("INSERT INTO UserCounter (userId, unreadNotifications, unreadMessages, lastReadNotificationId, updatedAt) " +
+           "SELECT u.id, " +
+           "CAST((SELECT COUNT(n) FROM Notification n WHERE n.user = u AND n.readStatus = false) AS Integer), " +
+           "CAST((SELECT COUNT(m) FROM Message m LEFT JOIN m.conversation cv WHERE m.receiver = u AND m.isRead = false " +
+           "AND (cv IS NULL OR m.conversationSeq > CASE WHEN cv.userLow = u THEN cv.lastReadSeqLow ELSE cv.lastReadSeqHigh END)) AS Integer), " +
+           "0L, CURRENT_TIMESTAMP FROM User u " +
+           "WHERE NOT EXISTS (SELECT c FROM UserCounter c WHERE c.userId = u.id)")
+    int initializeMissing();
+}
@@ -16,14 +16,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByPhone(String phone);
     
     @Query("SELECT COUNT(u) FROM User u WHERE u.role = :role")
-    Long countByRole(@Param("role") String role);
-    
-    @Query("SELECT COUNT(u) FROM User u WHERE u.createdAt >= :startTime")
-    Long countActiveUsersToday(@Param("startTime") LocalDateTime startTime);
+    Long countByRole(@Param("role") Role role);
     
     @Query("SELECT COUNT(u) FROM User u WHERE u.createdAt >= :startTime")
     Long countNewRegistrationsToday(@Param("startTime") LocalDateTime startTime);
     
     @Query("SELECT COUNT(u) FROM User u WHERE u.createdAt BETWEEN :startTime AND :endTime")
     Long countByCreatedAtBetween(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+    
+    @Query("SELECT MIN(u.createdAt) FROM User u")
+    LocalDateTime findEarliestCreatedAt();
 }
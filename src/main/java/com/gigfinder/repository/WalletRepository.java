@@ -3,11 +3,39 @@ package com.gigfinder.repository;
 import com.gigfinder.model.User;
 import com.gigfinder.model.Wallet;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface WalletRepository extends JpaRepository<Wallet, Long> {
     Optional<Wallet> findByUser(User user);
+
+    @Query("SELECT w.id FROM Wallet w WHERE w.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT w.balance FROM Wallet w WHERE w.id = :walletId")
+    BigDecimal findBalance(@Param("walletId") Long walletId);
+
+    // Rows of (user id, wallet id)
+    @Query("SELECT w.user.id, w.id FROM Wallet w WHERE w.user.id IN :userIds")
+    List<Object[]> findIdsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Rows of (wallet id, balance)
+    @Query("SELECT w.id, w.balance FROM Wallet w WHERE w.id IN :walletIds")
+    List<Object[]> findBalances(@Param("walletIds") Collection<Long> walletIds);
+
+    // The only way balances change: one conditional update, so concurrent operations cannot lose
+    // each other's changes or overdraw. Returns 0 if the balance would go negative.
+    @Modifying
+    @Query("UPDATE Wallet w SET w.balance = w.balance + :delta, w.updatedAt = :now " +
+           "WHERE w.id = :walletId AND w.balance + :delta >= 0")
+    int adjustBalance(@Param("walletId") Long walletId, @Param("delta") BigDecimal delta, @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,24 @@
+package com.gigfinder.repository;
+
+import com.gigfinder.model.WalletTransaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WalletTransactionRepository extends JpaRepository<WalletTransaction, Long> {
+
+    // Keyset page of one wallet's ledger, newest first
+    @Query("SELECT t FROM WalletTransaction t WHERE t.walletId = :walletId AND t.id < :beforeId ORDER BY t.id DESC")
+    List<WalletTransaction> findPage(@Param("walletId") Long walletId, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    // Rows of (wallet id, newest entry id) carrying the reference
+    @Query("SELECT t.walletId, MAX(t.id) FROM WalletTransaction t WHERE t.walletId IN :walletIds AND t.reference = :reference " +
+           "GROUP BY t.walletId")
+    List<Object[]> findIdsByReference(@Param("walletIds") Collection<Long> walletIds, @Param("reference") String reference);
+}
@@ -4,9 +4,11 @@ import com.gigfinder.model.User;
 import com.gigfinder.model.WorkerProfile;
 import com.gigfinder.model.enums.VerificationStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -27,10 +29,26 @@ public interface WorkerProfileRepository extends JpaRepository<WorkerProfile, Lo
         @Param("longitude") Double longitude,
         @Param("radiusKm") Double radiusKm);
     List<WorkerProfile> findByVerificationStatus(VerificationStatus status);
+    long countByVerificationStatus(VerificationStatus status);
     List<WorkerProfile> findByVerificationStatusIn(List<VerificationStatus> statuses);
     List<WorkerProfile> findBySkillsContaining(String skill);
     
     List<WorkerProfile> findTop10ByOrderByRatingAvgDesc();
+
+    @Query("SELECT w FROM WorkerProfile w JOIN FETCH w.user")
+    List<WorkerProfile> findAllWithUser();
+
+    @Query("SELECT w FROM WorkerProfile w JOIN FETCH w.user WHERE w.id = :id")
+    Optional<WorkerProfile> findByIdWithUser(@Param("id") Long id);
+    
+    @Query("SELECT w.locationLat, w.locationLng FROM WorkerProfile w WHERE w.user.id = :userId")
+    List<Object[]> findLocationByUserId(@Param("userId") Long userId);
+    
+    // Batched by LocationService; the caller owns the transaction
+    @Modifying
+    @Query("UPDATE WorkerProfile w SET w.locationLat = :lat, w.locationLng = :lng WHERE w.user.id = :userId")
+    int updateLocationByUserId(@Param("userId") Long userId, @Param("lat") java.math.BigDecimal lat,
+                               @Param("lng") java.math.BigDecimal lng);
     
     @Query("SELECT w FROM WorkerProfile w WHERE w.locationLat BETWEEN :minLat AND :maxLat " +
            "AND w.locationLng BETWEEN :minLng AND :maxLng")
@@ -39,4 +57,38 @@ public interface WorkerProfileRepository extends JpaRepository<WorkerProfile, Lo
         @Param("maxLat") java.math.BigDecimal maxLat,
         @Param("minLng") java.math.BigDecimal minLng,
         @Param("maxLng") java.math.BigDecimal maxLng);
+
+    // Single-statement increment so concurrent ratings for the same worker never lose updates;
+    // clears the persistence context so later reads in the request don't see stale aggregates
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE WorkerProfile w SET w.ratingSum = w.ratingSum + :score, w.ratingCount = w.ratingCount + 1, " +
+           "w.rating1Count = w.rating1Count + CASE WHEN :score = 1 THEN 1 ELSE 0 END, " +
+           "w.rating2Count = w.rating2Count + CASE WHEN :score = 2 THEN 1 ELSE 0 END, " +
+           "w.rating3Count = w.rating3Count + CASE WHEN :score = 3 THEN 1 ELSE 0 END, " +
+           "w.rating4Count = w.rating4Count + CASE WHEN :score = 4 THEN 1 ELSE 0 END, " +
+           "w.rating5Count = w.rating5Count + CASE WHEN :score = 5 THEN 1 ELSE 0 END, " +
+           "w.ratingAvg = ROUND(CAST(w.ratingSum + :score AS BigDecimal) / (w.ratingCount + 1), 2) " +
+           "WHERE w.user.id = :userId")
+    int applyRating(@Param("userId") Long userId, @Param("score") int score);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE WorkerProfile w SET " +
+           "w.ratingSum = COALESCE((SELECT SUM(r.score) FROM Rating r WHERE r.reviewee = w.user), 0), " +
+           "w.ratingCount = (SELECT COUNT(r) FROM Rating r WHERE r.reviewee = w.user), " +
+           "w.rating1Count = (SELECT COUNT(r) FROM Rating r WHERE r.reviewee = w.user AND r.score = 1), " +
+           "w.rating2Count = (SELECT COUNT(r) FROM Rating r WHERE r.reviewee = w.user AND r.score = 2), " +
+           "w.rating3Count = (SELECT COUNT(r) FROM Rating r WHERE r.reviewee = w.user AND r.score = 3), " +
+           "w.rating4Count = (SELECT COUNT(r) FROM Rating r WHERE r.reviewee = w.user AND r.score = 4), " +
+           "w.rating5Count = (SELECT COUNT(r) FROM Rating r WHERE r.reviewee = w.user AND r.score = 5), " +
+           "w.ratingAvg = (SELECT ROUND(AVG(CAST(r.score AS BigDecimal)), 2) FROM Rating r WHERE r.reviewee = w.user) " +
+           "WHERE w.id BETWEEN :fromId AND :toId")
+    int recomputeRatingAggregates(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("SELECT COALESCE(SUM(w.ratingSum), 0), COALESCE(SUM(w.ratingCount), 0) FROM WorkerProfile w")
+    List<Object[]> sumRatingTotals();
+
+    @Query("SELECT MIN(w.id), MAX(w.id) FROM WorkerProfile w")
+    List<Object[]> findIdRange();
 }
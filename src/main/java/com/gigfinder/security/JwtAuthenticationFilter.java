@@ -1,5 +1,6 @@
 package com.gigfinder.security;
 
+import com.gigfinder.service.ActiveUserService;
 import com.gigfinder.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -23,6 +24,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final ActiveUserService activeUserService;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -53,6 +55,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                activeUserService.record(userDetails.getUsername());
             }
         }
 
@@ -0,0 +1,85 @@
+package com.gigfinder.security;
+
+import com.gigfinder.model.User;
+import com.gigfinder.repository.UserRepository;
+import com.gigfinder.util.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+/**
+ * Authenticates STOMP sessions from the JWT sent in the CONNECT frame. The session principal
+ * is named after the user id, which is what user destinations are resolved against. Clients
+ * may only subscribe to their own {@code /user/queue/**} destinations and shared topics;
+ * {@code /topic/admin/**} is for admins.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private final JwtUtil jwtUtil;
+    private final UserRepository userRepository;
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            String authHeader = accessor.getFirstNativeHeader("Authorization");
+            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                throw new AccessDeniedException("Missing bearer token");
+            }
+            User user;
+            try {
+                String email = jwtUtil.extractUsername(authHeader.substring(7));
+                user = userRepository.findByEmail(email)
+                        .orElseThrow(() -> new AccessDeniedException("Unknown user"));
+            } catch (AccessDeniedException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new AccessDeniedException("Invalid token");
+            }
+            accessor.setUser(new UsernamePasswordAuthenticationToken(String.valueOf(user.getId()), null,
+                    Collections.singleton(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))));
+            return message;
+        }
+
+        if (StompCommand.SUBSCRIBE.equals(accessor.getCommand()) || StompCommand.SEND.equals(accessor.getCommand())) {
+            if (accessor.getUser() == null) {
+                throw new AccessDeniedException("Not authenticated");
+            }
+            String destination = accessor.getDestination();
+            // Per-user traffic only flows through /user/queue; the resolved session queues and the
+            // old per-user topics must not be subscribable by id
+            if (StompCommand.SUBSCRIBE.equals(accessor.getCommand()) && destination != null
+                    && (destination.startsWith("/queue/") || destination.startsWith("/topic/user/"))) {
+                throw new AccessDeniedException("Subscription to " + destination + " is not allowed");
+            }
+            if (StompCommand.SUBSCRIBE.equals(accessor.getCommand()) && destination != null
+                    && destination.startsWith("/topic/admin/") && !isAdmin(accessor)) {
+                throw new AccessDeniedException("Subscription to " + destination + " requires an admin");
+            }
+        }
+        return message;
+    }
+
+    private static boolean isAdmin(StompHeaderAccessor accessor) {
+        return accessor.getUser() instanceof Authentication auth && auth.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+    }
+}
@@ -0,0 +1,140 @@
+package com.gigfinder.service;
+
+import com.gigfinder.model.ActiveUserSketch;
+import com.gigfinder.repository.ActiveUserSketchRepository;
+import com.gigfinder.util.HyperLogLog;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Daily/weekly/monthly active users from per-day HyperLogLog sketches. Every authenticated
+ * request is offered to today's sketch in memory; changed sketches are written back on a
+ * timer, so requests never wait on the database. Each write merges the stored registers first,
+ * so nodes sharing the table never overwrite each other's users.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActiveUserService {
+
+    // Enough days in memory to answer MAU without touching the table
+    private static final int RESIDENT_DAYS = 30;
+
+    private final ActiveUserSketchRepository sketchRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<LocalDate, HyperLogLog> sketches = new ConcurrentHashMap<>();
+    private final Set<LocalDate> dirty = ConcurrentHashMap.newKeySet();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDate today = LocalDate.now();
+        for (ActiveUserSketch row : sketchRepository.findBySketchDateBetween(today.minusDays(RESIDENT_DAYS - 1), today)) {
+            sketches.merge(row.getSketchDate(), HyperLogLog.fromBytes(row.getRegisters()), (mine, stored) -> {
+                mine.merge(stored);
+                return mine;
+            });
+        }
+        log.info("Loaded {} active user sketches", sketches.size());
+    }
+
+    public void record(String username) {
+        LocalDate today = LocalDate.now();
+        if (sketches.computeIfAbsent(today, d -> new HyperLogLog()).offer(HyperLogLog.hash(username))) {
+            dirty.add(today);
+        }
+    }
+
+    public long dailyActive(LocalDate date) {
+        return uniques(date, date);
+    }
+
+    // Distinct users across [from, to], merging one sketch per day
+    public long uniques(LocalDate from, LocalDate to) {
+        HyperLogLog merged = new HyperLogLog();
+        Map<LocalDate, HyperLogLog> stored = null;
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            HyperLogLog day = sketches.get(d);
+            if (day == null) {
+                if (stored == null) {
+                    stored = loadRange(from, to);
+                }
+                day = stored.get(d);
+            }
+            if (day != null) {
+                merged.merge(day);
+            }
+        }
+        return merged.estimate();
+    }
+
+    public Map<String, Object> summary(LocalDate date) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("date", date);
+        summary.put("dau", dailyActive(date));
+        summary.put("wau", uniques(date.minusDays(6), date));
+        summary.put("mau", uniques(date.minusDays(29), date));
+        return summary;
+    }
+
+    @Scheduled(fixedDelayString = "${gigfinder.analytics.active-users.flush-interval-ms:60000}")
+    public synchronized void flush() {
+        for (LocalDate date : Set.copyOf(dirty)) {
+            HyperLogLog sketch = sketches.get(date);
+            if (sketch == null) {
+                dirty.remove(date);
+                continue;
+            }
+            // Cleared before the registers are read so an offer racing the write marks the day
+            // again; restored if the write fails so the day is retried on the next flush
+            dirty.remove(date);
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(date, sketch));
+            } catch (Exception e) {
+                dirty.add(date);
+                log.warn("Could not flush active user sketch for {}", date, e);
+            }
+        }
+        LocalDate oldest = LocalDate.now().minusDays(RESIDENT_DAYS - 1);
+        sketches.keySet().removeIf(date -> date.isBefore(oldest) && !dirty.contains(date));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Folds the stored registers (other nodes' users) into ours before writing the union back
+    private void write(LocalDate date, HyperLogLog sketch) {
+        ActiveUserSketch row = sketchRepository.findByDateForUpdate(date).orElse(null);
+        if (row == null) {
+            sketchRepository.save(ActiveUserSketch.builder()
+                    .sketchDate(date)
+                    .registers(sketch.toBytes())
+                    .build());
+            return;
+        }
+        sketch.merge(HyperLogLog.fromBytes(row.getRegisters()));
+        row.setRegisters(sketch.toBytes());
+    }
+
+    private Map<LocalDate, HyperLogLog> loadRange(LocalDate from, LocalDate to) {
+        Map<LocalDate, HyperLogLog> stored = new HashMap<>();
+        for (ActiveUserSketch row : sketchRepository.findBySketchDateBetween(from, to)) {
+            stored.put(row.getSketchDate(), HyperLogLog.fromBytes(row.getRegisters()));
+        }
+        return stored;
+    }
+}
@@ -0,0 +1,102 @@
+package com.gigfinder.service;
+
+import com.gigfinder.model.UserAddress;
+import com.gigfinder.repository.UserAddressRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AddressGeocodeBackfillService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final UserAddressRepository addressRepository;
+    private final GeocodingService geocodingService;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "geocode-backfill");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private volatile long scanned;
+    private volatile long resolved;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        scanned = 0;
+        resolved = 0;
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        executor.submit(() -> {
+            try {
+                run();
+            } catch (Exception e) {
+                log.error("Address geocode backfill failed", e);
+            } finally {
+                finishedAt = LocalDateTime.now();
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", running.get());
+        status.put("scanned", scanned);
+        status.put("resolved", resolved);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        return status;
+    }
+
+    // Walks addresses without coordinates by id so each chunk is an index range scan,
+    // and unresolvable rows are never revisited
+    private void run() {
+        long afterId = 0L;
+        while (true) {
+            List<UserAddress> chunk = addressRepository.findMissingCoordinatesAfter(afterId, PageRequest.of(0, CHUNK_SIZE));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            List<UserAddress> updated = new ArrayList<>();
+            for (UserAddress address : chunk) {
+                geocodingService.resolve(address.getPostalCode(), address.getCity()).ifPresent(coords -> {
+                    address.setLocationLat(coords.lat());
+                    address.setLocationLng(coords.lng());
+                    updated.add(address);
+                });
+            }
+            addressRepository.saveAll(updated);
+            scanned += chunk.size();
+            resolved += updated.size();
+            afterId = chunk.get(chunk.size() - 1).getId();
+        }
+        log.info("Address geocode backfill finished: {} scanned, {} resolved", scanned, resolved);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
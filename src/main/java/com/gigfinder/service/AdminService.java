@@ -2,6 +2,8 @@ package com.gigfinder.service;
 
 import com.gigfinder.dto.PlatformStatsDTO;
 import com.gigfinder.model.*;
+import com.gigfinder.model.enums.JobStatus;
+import com.gigfinder.model.enums.Role;
 import com.gigfinder.model.enums.VerificationStatus;
 import com.gigfinder.model.enums.ReportStatus;
 import com.gigfinder.repository.*;
@@ -22,57 +24,60 @@ public class AdminService {
     private final UserRepository userRepository;
     private final WorkerProfileRepository workerRepository;
     private final JobRepository jobRepository;
-    private final PaymentRepository paymentRepository;
-    private final RatingRepository ratingRepository;
     private final ReportRepository reportRepository;
     private final PaymentRefundRepository refundRepository;
+    private final AnalyticsRollupService analyticsRollupService;
     
     public PlatformStatsDTO getPlatformOverview() {
         PlatformStatsDTO stats = new PlatformStatsDTO();
+        LocalDate today = LocalDate.now();
+        Map<String, Object> totals = analyticsRollupService.allTimeTotals();
+        PlatformAnalytics todayRow = analyticsRollupService.day(today);
         
         // User statistics
-        stats.setTotalUsers(userRepository.count());
+        stats.setTotalUsers((Long) totals.get("newRegistrations"));
         stats.setTotalWorkers(workerRepository.count());
-        stats.setTotalClients(userRepository.countByRole("CLIENT"));
+        stats.setTotalClients(userRepository.countByRole(Role.CLIENT));
         
         // Job statistics
-        stats.setTotalJobs(jobRepository.count());
-        stats.setCompletedJobs(jobRepository.countByStatus("COMPLETED"));
-        stats.setPendingJobs(jobRepository.countByStatus("OPEN"));
+        stats.setTotalJobs((Long) totals.get("jobsPosted"));
+        stats.setCompletedJobs((Long) totals.get("jobsCompleted"));
+        stats.setPendingJobs(jobRepository.countByStatus(JobStatus.OPEN));
         
         // Revenue statistics
-        BigDecimal totalRevenue = paymentRepository.sumCompletedPayments();
-        stats.setTotalRevenue(totalRevenue != null ? totalRevenue : BigDecimal.ZERO);
+        stats.setTotalRevenue((BigDecimal) totals.get("revenue"));
         
         // Rating statistics
-        BigDecimal avgRating = ratingRepository.getAverageRating();
+        BigDecimal avgRating = (BigDecimal) totals.get("averageRating");
         stats.setAverageRating(avgRating != null ? avgRating : BigDecimal.ZERO);
-        stats.setTotalRatings(ratingRepository.count());
+        stats.setTotalRatings((Long) totals.get("ratings"));
         
         // Today's statistics
-        LocalDateTime today = LocalDate.now().atStartOfDay();
-        stats.setActiveUsersToday(userRepository.countActiveUsersToday(today));
-        stats.setNewRegistrationsToday(userRepository.countNewRegistrationsToday(today));
-        stats.setJobsPostedToday(jobRepository.countJobsPostedToday(today));
-        stats.setJobsCompletedToday(jobRepository.countJobsCompletedToday(today));
+        stats.setActiveUsersToday(todayRow.getActiveUsers().longValue());
+        stats.setNewRegistrationsToday(todayRow.getNewRegistrations().longValue());
+        stats.setJobsPostedToday(todayRow.getTotalJobsPosted().longValue());
+        stats.setJobsCompletedToday(todayRow.getTotalJobsCompleted().longValue());
         
-        // Most popular category
+        // Most popular category (all time; the daily rollups only know each day's)
         stats.setMostPopularCategory(jobRepository.findMostPopularCategory());
         
         return stats;
     }
     
     public Map<String, Object> getDailyStats(LocalDate date) {
+        PlatformAnalytics day = analyticsRollupService.day(date);
         Map<String, Object> stats = new HashMap<>();
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(23, 59, 59);
         
         stats.put("date", date);
-        stats.put("newUsers", userRepository.countByCreatedAtBetween(startOfDay, endOfDay));
-        stats.put("newJobs", jobRepository.countByCreatedAtBetween(startOfDay, endOfDay));
-        stats.put("completedJobs", jobRepository.countCompletedJobsBetween(startOfDay, endOfDay));
-        stats.put("totalRevenue", paymentRepository.sumRevenueBetween(startOfDay, endOfDay));
-        stats.put("newRatings", ratingRepository.countByCreatedAtBetween(startOfDay, endOfDay));
+        stats.put("newUsers", day.getNewRegistrations());
+        stats.put("newJobs", day.getTotalJobsPosted());
+        stats.put("completedJobs", day.getTotalJobsCompleted());
+        stats.put("totalRevenue", day.getTotalRevenue());
+        stats.put("newRatings", day.getTotalRatings());
+        stats.put("averageRating", day.getAverageRating());
+        stats.put("activeUsers", day.getActiveUsers());
+        stats.put("mostPopularCategory", day.getMostPopularCategory());
+        stats.put("finalized", Boolean.TRUE.equals(day.getFinalized()));
         
         return stats;
     }
@@ -0,0 +1,385 @@
+package com.gigfinder.service;
+
+import com.gigfinder.event.JobStatusChangedEvent;
+import com.gigfinder.event.PaymentStatusChangedEvent;
+import com.gigfinder.event.RatingSubmittedEvent;
+import com.gigfinder.event.UserRegisteredEvent;
+import com.gigfinder.model.PlatformAnalytics;
+import com.gigfinder.model.enums.JobStatus;
+import com.gigfinder.model.enums.PaymentStatus;
+import com.gigfinder.repository.JobAssignmentRepository;
+import com.gigfinder.repository.JobRepository;
+import com.gigfinder.repository.PaymentRepository;
+import com.gigfinder.repository.PlatformAnalyticsRepository;
+import com.gigfinder.repository.RatingRepository;
+import com.gigfinder.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maintains one PlatformAnalytics row per day. Domain events bump in-memory counters which
+ * are flushed into today's row as a single increment every few seconds; after midnight the
+ * closed day is reconciled against the source tables and marked finalized. Days without a row,
+ * such as the history from before the rollups existed, are recomputed at startup, so all-time
+ * totals can be summed from the rows.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsRollupService {
+
+    // Unflushed counter deltas plus whole-day state for one calendar day
+    private static final class DayBucket {
+        final LongAdder jobsPosted = new LongAdder();
+        final LongAdder jobsCompleted = new LongAdder();
+        final LongAdder revenuePaise = new LongAdder();
+        final LongAdder registrations = new LongAdder();
+        final LongAdder ratings = new LongAdder();
+        final LongAdder ratingScoreSum = new LongAdder();
+        final Map<String, LongAdder> jobsByCategory = new ConcurrentHashMap<>();
+
+        String topCategory() {
+            String top = null;
+            long best = 0;
+            for (Map.Entry<String, LongAdder> e : jobsByCategory.entrySet()) {
+                long count = e.getValue().sum();
+                if (count > best) {
+                    best = count;
+                    top = e.getKey();
+                }
+            }
+            return top;
+        }
+
+        void clearDeltas() {
+            jobsPosted.reset();
+            jobsCompleted.reset();
+            revenuePaise.reset();
+            registrations.reset();
+            ratings.reset();
+            ratingScoreSum.reset();
+        }
+    }
+
+    private final PlatformAnalyticsRepository analyticsRepository;
+    private final JobRepository jobRepository;
+    private final JobAssignmentRepository jobAssignmentRepository;
+    private final PaymentRepository paymentRepository;
+    private final RatingRepository ratingRepository;
+    private final UserRepository userRepository;
+    private final ActiveUserService activeUserService;
+
+    private final Map<LocalDate, DayBucket> buckets = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        LocalDate today = LocalDate.now();
+        backfillMissingDays(today.minusDays(1));
+        // Deltas that were not flushed before the last shutdown are recovered from the source tables
+        recompute(today, false);
+        LocalDate yesterday = today.minusDays(1);
+        boolean yesterdayFinal = analyticsRepository.findByDate(yesterday)
+                .map(p -> Boolean.TRUE.equals(p.getFinalized()))
+                .orElse(false);
+        if (!yesterdayFinal) {
+            recompute(yesterday, true);
+        }
+        DayBucket bucket = bucket(today);
+        for (Object[] row : jobRepository.countJobsByCategoryNameBetween(today.atStartOfDay(), endOf(today))) {
+            bucket.jobsByCategory.computeIfAbsent((String) row[0], k -> new LongAdder()).add(((Number) row[1]).longValue());
+        }
+    }
+
+    @EventListener
+    public void onJobStatusChanged(JobStatusChangedEvent event) {
+        DayBucket bucket = bucket(LocalDate.now());
+        if (event.previousStatus() == null) {
+            bucket.jobsPosted.increment();
+            if (event.job().getCategory() != null) {
+                bucket.jobsByCategory.computeIfAbsent(event.job().getCategory().getName(), k -> new LongAdder()).increment();
+            }
+        }
+        if (event.newStatus() == JobStatus.COMPLETED) {
+            bucket.jobsCompleted.increment();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingSubmitted(RatingSubmittedEvent event) {
+        DayBucket bucket = bucket(LocalDate.now());
+        bucket.ratings.increment();
+        bucket.ratingScoreSum.add(event.rating().getScore());
+    }
+
+    @EventListener
+    public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        if (event.newStatus() != PaymentStatus.COMPLETED || event.payment().getAmount() == null) {
+            return;
+        }
+        DayBucket bucket = bucket(LocalDate.now());
+        bucket.revenuePaise.add(event.payment().getAmount().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue());
+    }
+
+    @EventListener
+    public void onUserRegistered(UserRegisteredEvent event) {
+        DayBucket bucket = bucket(LocalDate.now());
+        bucket.registrations.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${gigfinder.analytics.flush-interval-ms:30000}")
+    public synchronized void flush() {
+        // Today's row tracks the active user estimate even when no domain events arrived
+        bucket(LocalDate.now());
+        for (Map.Entry<LocalDate, DayBucket> entry : buckets.entrySet()) {
+            LocalDate date = entry.getKey();
+            DayBucket bucket = entry.getValue();
+            // Snapshot the counters and take off only what was written, so a failed write keeps
+            // its deltas for the next flush and events arriving meanwhile are not lost either
+            long jobsPosted = bucket.jobsPosted.sum();
+            long jobsCompleted = bucket.jobsCompleted.sum();
+            long revenuePaise = bucket.revenuePaise.sum();
+            long registrations = bucket.registrations.sum();
+            long ratings = bucket.ratings.sum();
+            long ratingScoreSum = bucket.ratingScoreSum.sum();
+            try {
+                write(date, (int) jobsPosted, (int) jobsCompleted, BigDecimal.valueOf(revenuePaise, 2), (int) registrations,
+                        (int) ratings, ratingScoreSum, (int) activeUserService.dailyActive(date), bucket.topCategory());
+            } catch (Exception e) {
+                log.warn("Could not flush platform analytics for {}; keeping the deltas for the next flush", date, e);
+                continue;
+            }
+            bucket.jobsPosted.add(-jobsPosted);
+            bucket.jobsCompleted.add(-jobsCompleted);
+            bucket.revenuePaise.add(-revenuePaise);
+            bucket.registrations.add(-registrations);
+            bucket.ratings.add(-ratings);
+            bucket.ratingScoreSum.add(-ratingScoreSum);
+        }
+    }
+
+    private void write(LocalDate date, int jobsPosted, int jobsCompleted, BigDecimal revenue, int registrations,
+                       int ratings, long ratingScoreSum, int activeUsers, String topCategory) {
+        int updated = analyticsRepository.applyDeltas(date, jobsPosted, jobsCompleted, revenue,
+                registrations, ratings, ratingScoreSum, activeUsers, topCategory);
+        if (updated == 0) {
+            try {
+                analyticsRepository.save(PlatformAnalytics.builder()
+                        .date(date)
+                        .totalJobsPosted(jobsPosted)
+                        .totalJobsCompleted(jobsCompleted)
+                        .totalRevenue(revenue)
+                        .newRegistrations(registrations)
+                        .totalRatings(ratings)
+                        .ratingScoreSum(ratingScoreSum)
+                        .averageRating(average(ratingScoreSum, ratings))
+                        .activeUsers(activeUsers)
+                        .mostPopularCategory(topCategory)
+                        .finalized(false)
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                // Another writer created the row first
+                analyticsRepository.applyDeltas(date, jobsPosted, jobsCompleted, revenue,
+                        registrations, ratings, ratingScoreSum, activeUsers, topCategory);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${gigfinder.analytics.finalize-cron:0 5 0 * * *}")
+    public void finalizeYesterday() {
+        finalizeDay(LocalDate.now().minusDays(1));
+    }
+
+    public synchronized void finalizeDay(LocalDate date) {
+        recompute(date, true);
+        buckets.remove(date);
+        log.info("Finalized platform analytics for {}", date);
+    }
+
+    // Recomputes every day in the range from the source tables
+    public synchronized int rebuild(LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now();
+        int days = 0;
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            recompute(d, d.isBefore(today));
+            days++;
+        }
+        return days;
+    }
+
+    /** Totals over every day since the first one with a rollup. */
+    public Map<String, Object> allTimeTotals() {
+        LocalDate today = LocalDate.now();
+        LocalDate first = analyticsRepository.findFirstDate();
+        return totals(first != null && first.isBefore(today) ? first : today, today);
+    }
+
+    public PlatformAnalytics day(LocalDate date) {
+        PlatformAnalytics row = analyticsRepository.findByDate(date).orElseGet(() -> empty(date));
+        return withPending(row);
+    }
+
+    public List<PlatformAnalytics> range(LocalDate from, LocalDate to) {
+        Map<LocalDate, PlatformAnalytics> rows = new HashMap<>();
+        for (PlatformAnalytics row : analyticsRepository.findByDateBetweenOrderByDateAsc(from, to)) {
+            rows.put(row.getDate(), row);
+        }
+        List<PlatformAnalytics> result = new ArrayList<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            result.add(withPending(rows.getOrDefault(d, empty(d))));
+        }
+        return result;
+    }
+
+    public Map<String, Object> totals(LocalDate from, LocalDate to) {
+        Object[] sums = analyticsRepository.sumBetween(from, to).get(0);
+        long jobsPosted = ((Number) sums[0]).longValue();
+        long jobsCompleted = ((Number) sums[1]).longValue();
+        BigDecimal revenue = sums[2] instanceof BigDecimal b ? b : BigDecimal.valueOf(((Number) sums[2]).doubleValue());
+        long registrations = ((Number) sums[3]).longValue();
+        long ratings = ((Number) sums[4]).longValue();
+        long ratingScoreSum = ((Number) sums[5]).longValue();
+
+        for (Map.Entry<LocalDate, DayBucket> entry : buckets.entrySet()) {
+            if (entry.getKey().isBefore(from) || entry.getKey().isAfter(to)) {
+                continue;
+            }
+            DayBucket bucket = entry.getValue();
+            jobsPosted += bucket.jobsPosted.sum();
+            jobsCompleted += bucket.jobsCompleted.sum();
+            revenue = revenue.add(BigDecimal.valueOf(bucket.revenuePaise.sum(), 2));
+            registrations += bucket.registrations.sum();
+            ratings += bucket.ratings.sum();
+            ratingScoreSum += bucket.ratingScoreSum.sum();
+        }
+
+        Map<String, Object> totals = new HashMap<>();
+        totals.put("jobsPosted", jobsPosted);
+        totals.put("jobsCompleted", jobsCompleted);
+        totals.put("revenue", revenue);
+        totals.put("newRegistrations", registrations);
+        totals.put("ratings", ratings);
+        totals.put("averageRating", average(ratingScoreSum, ratings));
+        return totals;
+    }
+
+    // Recomputes the closed days since the first user registered that have no row yet
+    private synchronized void backfillMissingDays(LocalDate to) {
+        LocalDateTime firstUser = userRepository.findEarliestCreatedAt();
+        if (firstUser == null || firstUser.toLocalDate().isAfter(to)) {
+            return;
+        }
+        LocalDate from = firstUser.toLocalDate();
+        Set<LocalDate> present = new HashSet<>(analyticsRepository.findDatesBetween(from, to));
+        int days = 0;
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            if (!present.contains(d)) {
+                recompute(d, true);
+                days++;
+            }
+        }
+        if (days > 0) {
+            log.info("Backfilled platform analytics for {} days between {} and {}", days, from, to);
+        }
+    }
+
+    private void recompute(LocalDate date, boolean finalized) {
+        // The source tables cover whatever is still pending in memory for the day; flushing it as well would count it twice
+        DayBucket pending = buckets.get(date);
+        if (pending != null) {
+            pending.clearDeltas();
+        }
+        LocalDateTime start = date.atStartOfDay();
+        LocalDateTime end = endOf(date);
+
+        long ratings = orZero(ratingRepository.countByCreatedAtBetween(start, end));
+        long ratingScoreSum = orZero(ratingRepository.sumScoreBetween(start, end));
+        BigDecimal revenue = paymentRepository.sumCompletedPaymentsBetween(start, end);
+        List<Object[]> categories = jobRepository.countJobsByCategoryNameBetween(start, end);
+
+        PlatformAnalytics row = analyticsRepository.findByDate(date).orElseGet(() -> empty(date));
+        row.setTotalJobsPosted((int) orZero(jobRepository.countByCreatedAtBetween(start, end)));
+        row.setTotalJobsCompleted((int) jobAssignmentRepository.countByCompletedAtBetween(start, end));
+        row.setTotalRevenue(revenue != null ? revenue : BigDecimal.ZERO);
+        row.setNewRegistrations((int) orZero(userRepository.countByCreatedAtBetween(start, end)));
+        row.setTotalRatings((int) ratings);
+        row.setRatingScoreSum(ratingScoreSum);
+        row.setAverageRating(average(ratingScoreSum, ratings));
+        row.setMostPopularCategory(categories.isEmpty() ? null : (String) categories.get(0)[0]);
+        row.setFinalized(finalized);
+        // Active users can't be derived from the source tables; take the day's sketch estimate
+        row.setActiveUsers(Math.max(row.getActiveUsers() != null ? row.getActiveUsers() : 0, (int) activeUserService.dailyActive(date)));
+        analyticsRepository.save(row);
+    }
+
+    private PlatformAnalytics withPending(PlatformAnalytics row) {
+        DayBucket bucket = buckets.get(row.getDate());
+        if (bucket == null) {
+            return row;
+        }
+        int ratings = row.getTotalRatings() + (int) bucket.ratings.sum();
+        long ratingScoreSum = row.getRatingScoreSum() + bucket.ratingScoreSum.sum();
+        return PlatformAnalytics.builder()
+                .id(row.getId())
+                .date(row.getDate())
+                .totalJobsPosted(row.getTotalJobsPosted() + (int) bucket.jobsPosted.sum())
+                .totalJobsCompleted(row.getTotalJobsCompleted() + (int) bucket.jobsCompleted.sum())
+                .totalRevenue(row.getTotalRevenue().add(BigDecimal.valueOf(bucket.revenuePaise.sum(), 2)))
+                .newRegistrations(row.getNewRegistrations() + (int) bucket.registrations.sum())
+                .totalRatings(ratings)
+                .ratingScoreSum(ratingScoreSum)
+                .averageRating(average(ratingScoreSum, ratings))
+                .activeUsers(Math.max(row.getActiveUsers(), (int) activeUserService.dailyActive(row.getDate())))
+                .mostPopularCategory(bucket.topCategory() != null ? bucket.topCategory() : row.getMostPopularCategory())
+                .finalized(row.getFinalized())
+                .build();
+    }
+
+    private DayBucket bucket(LocalDate date) {
+        return buckets.computeIfAbsent(date, d -> new DayBucket());
+    }
+
+    private static PlatformAnalytics empty(LocalDate date) {
+        return PlatformAnalytics.builder()
+                .date(date)
+                .totalJobsPosted(0)
+                .totalJobsCompleted(0)
+                .totalRevenue(BigDecimal.ZERO)
+                .newRegistrations(0)
+                .totalRatings(0)
+                .ratingScoreSum(0L)
+                .activeUsers(0)
+                .finalized(false)
+                .build();
+    }
+
+    private static BigDecimal average(long scoreSum, long count) {
+        return count > 0 ? BigDecimal.valueOf(scoreSum).divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP) : null;
+    }
+
+    private static LocalDateTime endOf(LocalDate date) {
+        return date.plusDays(1).atStartOfDay().minusNanos(1);
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -0,0 +1,460 @@
+package com.gigfinder.service;
+
+import com.gigfinder.dto.ChatAckDTO;
+import com.gigfinder.dto.MessageDTO;
+import com.gigfinder.model.Conversation;
+import com.gigfinder.model.Message;
+import com.gigfinder.model.User;
+import com.gigfinder.repository.ConversationRepository;
+import com.gigfinder.repository.JobRepository;
+import com.gigfinder.repository.MessageRepository;
+import com.gigfinder.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Real-time chat. A message gets the next sequence number of its conversation, issued by the
+ * {@link NotificationBus} so it is unique across nodes, and is pushed to the receiver's stream
+ * straight away; rows, the conversation's inbox summary and the unread counters are written in
+ * batches behind it. Receivers ack delivery and reads, and the sender
+ * is told about both. Reads move a per-participant watermark instead of flagging each message.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChatService {
+
+    private static final int FLUSH_BATCH = 500;
+    private static final int FLUSH_ATTEMPTS = 3;
+    private static final long IDLE_EVICT_MS = 30 * 60 * 1000L;
+    private static final int PREVIEW_LENGTH = 120;
+
+    // Conversation identity: ordered user pair plus job (0 when the thread is not about a job)
+    private record ConversationKey(long low, long high, long jobId) {
+        static ConversationKey of(long a, long b, Long jobId) {
+            return new ConversationKey(Math.min(a, b), Math.max(a, b), jobId != null ? jobId : 0L);
+        }
+    }
+
+    // Resident per conversation; synchronizing on it orders numbering and pushes
+    private static final class ConversationState {
+        final Long id;
+        final long lowUserId;
+        long lastSeq;
+        long persistedSeq;    // highest seq known to be in messages
+        long lastActive;
+        boolean evicted;
+
+        ConversationState(Conversation conversation) {
+            this.id = conversation.getId();
+            this.lowUserId = conversation.getUserLow().getId();
+            this.lastSeq = conversation.getLastSeq();
+            this.persistedSeq = lastSeq;
+            this.lastActive = System.currentTimeMillis();
+        }
+    }
+
+    // A message waiting for the batch writer, with the number of flushes that failed to write it
+    private record Pending(Message message, ConversationState conversation, boolean receiverIsLow, int failures) {
+        Long conversationId() {
+            return conversation.id;
+        }
+    }
+
+    private final MessageRepository messageRepository;
+    private final ConversationRepository conversationRepository;
+    private final UserRepository userRepository;
+    private final JobRepository jobRepository;
+    private final UserPushService userPushService;
+    private final NotificationBus notificationBus;
+    private final UnreadCounterService unreadCounterService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<ConversationKey, ConversationState> conversations = new ConcurrentHashMap<>();
+    private final BlockingQueue<Pending> pending = new LinkedBlockingQueue<>();
+
+    // Whether messages from before conversations existed may still be waiting to be filed
+    private volatile boolean legacyRemaining = true;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkLegacyMessages() {
+        legacyRemaining = messageRepository.existsByConversationIsNull();
+    }
+
+    /**
+     * Accepts a message from {@code senderId}. With {@code persistNow} the row is written before
+     * returning (REST callers need its id); otherwise it is queued for the next batch.
+     */
+    public Message send(Long senderId, MessageDTO request, boolean persistNow) {
+        if (request.getReceiverId() == null) {
+            throw new RuntimeException("Receiver ID is required");
+        }
+        if (request.getContent() == null || request.getContent().isBlank()) {
+            throw new RuntimeException("Message content is required");
+        }
+        if (request.getReceiverId().equals(senderId)) {
+            throw new RuntimeException("Cannot send a message to yourself");
+        }
+        User sender = userRepository.findById(senderId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        User receiver = userRepository.findById(request.getReceiverId())
+                .orElseThrow(() -> new RuntimeException("Receiver not found"));
+        if (request.getJobId() != null && !jobRepository.existsById(request.getJobId())) {
+            throw new RuntimeException("Job not found");
+        }
+
+        Message message = Message.builder()
+                .sender(sender)
+                .receiver(receiver)
+                .job(request.getJobId() != null ? jobRepository.getReferenceById(request.getJobId()) : null)
+                .content(request.getContent())
+                .messageType(request.getMessageType() != null ? request.getMessageType() : "TEXT")
+                .isRead(false)
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        Pending entry;
+        while (true) {
+            ConversationState conversation = conversation(sender.getId(), receiver.getId(), request.getJobId());
+            // Numbering and pushing under the conversation lock keeps the receiver's stream in seq order
+            synchronized (conversation) {
+                if (conversation.evicted) {
+                    continue;
+                }
+                message.setConversation(conversationRepository.getReferenceById(conversation.id));
+                conversation.lastSeq = notificationBus.nextConversationSeq(conversation.id, conversation.lastSeq);
+                message.setConversationSeq(conversation.lastSeq);
+                conversation.lastActive = System.currentTimeMillis();
+                entry = new Pending(message, conversation, receiver.getId() == conversation.lowUserId, 0);
+                if (!persistNow) {
+                    pending.add(entry);
+                }
+                userPushService.send(receiver.getId(), "CHAT_MESSAGE", toPayload(message, request.getClientMessageId()));
+                break;
+            }
+        }
+        if (persistNow) {
+            persist(List.of(entry));
+        }
+
+        Map<String, Object> sent = new HashMap<>();
+        sent.put("conversationId", entry.conversationId());
+        sent.put("receiverId", receiver.getId());
+        sent.put("seq", message.getConversationSeq());
+        sent.put("clientMessageId", request.getClientMessageId());
+        userPushService.send(sender.getId(), "CHAT_SENT", sent);
+        return message;
+    }
+
+    /** Relays a delivery or read ack to the other participant; reads also move the reader's watermark. */
+    public void acknowledge(Long userId, ChatAckDTO ack) {
+        if (ack.getConversationId() == null || ack.getSeq() == null) {
+            throw new RuntimeException("conversationId and seq are required");
+        }
+        Conversation conversation = conversationRepository.findById(ack.getConversationId())
+                .orElseThrow(() -> new RuntimeException("Conversation not found"));
+        Long lowId = conversation.getUserLow().getId();
+        Long highId = conversation.getUserHigh().getId();
+        if (!userId.equals(lowId) && !userId.equals(highId)) {
+            throw new RuntimeException("Not a participant of this conversation");
+        }
+        Long peerId = userId.equals(lowId) ? highId : lowId;
+
+        boolean read = "READ".equalsIgnoreCase(ack.getStatus());
+        if (read) {
+            markReadUpTo(conversation.getId(), userId, ack.getSeq());
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("conversationId", conversation.getId());
+        data.put("peerId", userId);
+        data.put("seq", ack.getSeq());
+        data.put("status", read ? "READ" : "DELIVERED");
+        userPushService.send(peerId, "CHAT_ACK", data);
+    }
+
+    /**
+     * Moves {@code userId}'s read watermark in the conversation up to {@code seq}. This is one row
+     * update however many messages it covers. Returns how many unread messages it cleared.
+     */
+    public int markReadUpTo(Long conversationId, Long userId, long seq) {
+        // The messages being read may still be waiting for the batch writer
+        flush();
+        Integer cleared = transactionTemplate.execute(status -> {
+            Conversation conversation = conversationRepository.findByIdForUpdate(conversationId)
+                    .orElseThrow(() -> new RuntimeException("Conversation not found"));
+            boolean low = userId.equals(conversation.getUserLow().getId());
+            // Capped at the last recorded message so later ones cannot arrive already read
+            long upTo = Math.min(seq, conversation.getLastSeq());
+            if (upTo <= conversation.lastReadSeqFor(userId)) {
+                return 0;
+            }
+            int remaining = (int) messageRepository.countUnreadAfter(conversationId, userId, upTo);
+            int n;
+            if (low) {
+                n = conversation.getUnreadLow() - remaining;
+                conversation.setLastReadSeqLow(upTo);
+                conversation.setUnreadLow(remaining);
+            } else {
+                n = conversation.getUnreadHigh() - remaining;
+                conversation.setLastReadSeqHigh(upTo);
+                conversation.setUnreadHigh(remaining);
+            }
+            if (n != 0) {
+                unreadCounterService.messagesChanged(userId, -n);
+            }
+            return Math.max(n, 0);
+        });
+        return cleared != null ? cleared : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${gigfinder.chat.flush-interval-ms:200}")
+    public synchronized void flush() {
+        List<Pending> batch = new ArrayList<>(FLUSH_BATCH);
+        while (pending.drainTo(batch, FLUSH_BATCH) > 0) {
+            try {
+                persist(batch);
+            } catch (Exception e) {
+                log.error("Failed to persist {} chat messages; retrying on the next flush", batch.size(), e);
+                requeue(batch);
+                // Whatever is still queued waits for the next flush too
+                break;
+            }
+            batch.clear();
+        }
+        evictIdleConversations();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Files messages written before conversations existed into their conversations. Threads are
+     * also filed as they are first loaded, so this only sweeps up the ones nobody has used since
+     * the upgrade. Returns the number moved.
+     */
+    public synchronized int backfillConversations() {
+        int moved = 0;
+        while (true) {
+            List<Message> page = messageRepository.findWithoutConversation(PageRequest.of(0, FLUSH_BATCH));
+            if (page.isEmpty()) {
+                legacyRemaining = false;
+                return moved;
+            }
+            Set<ConversationKey> keys = new LinkedHashSet<>();
+            for (Message message : page) {
+                keys.add(ConversationKey.of(message.getSender().getId(), message.getReceiver().getId(),
+                        message.getJob() != null ? message.getJob().getId() : null));
+            }
+            int filed = 0;
+            for (ConversationKey key : keys) {
+                // A resident thread had its messages filed when it was loaded
+                if (!conversations.containsKey(key)) {
+                    filed += fileLegacy(thread(key).getId(), key);
+                }
+            }
+            if (filed == 0) {
+                log.warn("{} messages without a conversation could not be filed", page.size());
+                return moved;
+            }
+            moved += filed;
+        }
+    }
+
+    /**
+     * Numbers a thread's messages from before conversations existed in the order they were sent,
+     * ahead of any sent since: those move up past them, along with read watermarks that cover
+     * them. Runs under the conversation's row lock before the thread is resident. Returns the
+     * number filed.
+     */
+    private int fileLegacy(Long conversationId, ConversationKey key) {
+        Integer filed = transactionTemplate.execute(status -> {
+            // Locked first, so a node filing the same thread at the same time finds nothing left
+            Conversation conversation = conversationRepository.findByIdForUpdate(conversationId).orElseThrow();
+            List<Message> legacy = messageRepository.findLegacyInThread(key.low(), key.high(), key.jobId());
+            if (legacy.isEmpty()) {
+                return 0;
+            }
+            int shift = legacy.size();
+            boolean hadMessages = conversation.getLastSeq() > 0;
+            if (hadMessages) {
+                messageRepository.shiftSeqsNegated(conversationId, shift);
+                messageRepository.restoreShiftedSeqs(conversationId);
+            }
+            conversationRepository.shiftIssuedSeq(conversationId, shift);
+            long seq = 0;
+            int[] unread = new int[2];
+            for (Message message : legacy) {
+                message.setConversation(conversation);
+                message.setConversationSeq(++seq);
+                if (!Boolean.TRUE.equals(message.getIsRead())) {
+                    unread[message.getReceiver().getId() == key.low() ? 0 : 1]++;
+                }
+            }
+            // user_counters already counts the legacy unread; a watermark moved past them reads them
+            if (conversation.getLastReadSeqLow() > 0) {
+                conversation.setLastReadSeqLow(conversation.getLastReadSeqLow() + shift);
+                if (unread[0] > 0) {
+                    unreadCounterService.messagesChanged(key.low(), -unread[0]);
+                }
+            } else {
+                conversation.setUnreadLow(conversation.getUnreadLow() + unread[0]);
+            }
+            if (conversation.getLastReadSeqHigh() > 0) {
+                conversation.setLastReadSeqHigh(conversation.getLastReadSeqHigh() + shift);
+                if (unread[1] > 0) {
+                    unreadCounterService.messagesChanged(key.high(), -unread[1]);
+                }
+            } else {
+                conversation.setUnreadHigh(conversation.getUnreadHigh() + unread[1]);
+            }
+            conversation.setLastSeq(conversation.getLastSeq() + shift);
+            if (!hadMessages) {
+                Message last = legacy.get(legacy.size() - 1);
+                conversation.setLastMessageId(last.getId());
+                conversation.setLastMessagePreview(preview(last.getContent()));
+                conversation.setLastSenderId(last.getSender().getId());
+                conversation.setLastMessageAt(last.getCreatedAt());
+            }
+            return shift;
+        });
+        return filed != null ? filed : 0;
+    }
+
+    // One transaction per batch: rows, inbox summaries and unread counters move together
+    private void persist(List<Pending> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Message> messages = new ArrayList<>(batch.size());
+            for (Pending p : batch) {
+                messages.add(p.message());
+            }
+            messageRepository.saveAll(messages);
+
+            Map<Long, Pending> latest = new LinkedHashMap<>();
+            Map<Long, int[]> unreadAdded = new HashMap<>();
+            Map<Long, Integer> unreadByReceiver = new HashMap<>();
+            for (Pending p : batch) {
+                latest.merge(p.conversationId(), p, (a, b) ->
+                        b.message().getConversationSeq() > a.message().getConversationSeq() ? b : a);
+                if (!Boolean.TRUE.equals(p.message().getIsRead())) {
+                    unreadAdded.computeIfAbsent(p.conversationId(), id -> new int[2])[p.receiverIsLow() ? 0 : 1]++;
+                    unreadByReceiver.merge(p.message().getReceiver().getId(), 1, Integer::sum);
+                }
+            }
+            for (Pending p : latest.values()) {
+                Message last = p.message();
+                int[] added = unreadAdded.getOrDefault(p.conversationId(), new int[2]);
+                conversationRepository.recordMessages(p.conversationId(), last.getId(), preview(last.getContent()),
+                        last.getSender().getId(), last.getCreatedAt(), last.getConversationSeq(), added[0], added[1]);
+            }
+            unreadByReceiver.forEach(unreadCounterService::messagesChanged);
+        });
+        for (Pending p : batch) {
+            synchronized (p.conversation()) {
+                p.conversation().persistedSeq = Math.max(p.conversation().persistedSeq, p.message().getConversationSeq());
+            }
+        }
+    }
+
+    // Puts a failed batch back for the next flush; entries out of attempts get one last try on their own
+    private void requeue(List<Pending> batch) {
+        List<Pending> retry = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            // The rolled-back insert may have handed the message an id
+            p.message().setId(null);
+            if (p.failures() + 1 < FLUSH_ATTEMPTS) {
+                retry.add(new Pending(p.message(), p.conversation(), p.receiverIsLow(), p.failures() + 1));
+                continue;
+            }
+            try {
+                persist(List.of(p));
+            } catch (Exception e) {
+                p.message().setId(null);
+                log.error("Dropping chat message {} of conversation {} after {} attempts",
+                        p.message().getConversationSeq(), p.conversationId(), FLUSH_ATTEMPTS, e);
+            }
+        }
+        pending.addAll(retry);
+    }
+
+    // Conversations are only dropped once every message numbered here is written, so reloading resumes their seqs
+    private void evictIdleConversations() {
+        long cutoff = System.currentTimeMillis() - IDLE_EVICT_MS;
+        for (ConversationKey key : conversations.keySet()) {
+            conversations.computeIfPresent(key, (k, conversation) -> {
+                synchronized (conversation) {
+                    boolean idle = conversation.lastActive < cutoff && conversation.persistedSeq >= conversation.lastSeq;
+                    conversation.evicted = idle;
+                    return idle ? null : conversation;
+                }
+            });
+        }
+    }
+
+    private ConversationState conversation(Long a, Long b, Long jobId) {
+        return conversations.computeIfAbsent(ConversationKey.of(a, b, jobId), key -> {
+            Conversation conversation = thread(key);
+            // Legacy messages take the first seqs, so they are filed before this node numbers anything
+            if (legacyRemaining && fileLegacy(conversation.getId(), key) > 0) {
+                conversation = conversationRepository.findById(conversation.getId()).orElseThrow();
+            }
+            return new ConversationState(conversation);
+        });
+    }
+
+    // Finds or opens the thread; two nodes opening it at once race on its unique key and the loser reads the winner's row
+    private Conversation thread(ConversationKey key) {
+        return conversationRepository.findThread(key.low(), key.high(), key.jobId()).orElseGet(() -> {
+            try {
+                return conversationRepository.save(Conversation.builder()
+                        .userLow(userRepository.getReferenceById(key.low()))
+                        .userHigh(userRepository.getReferenceById(key.high()))
+                        .job(key.jobId() != 0 ? jobRepository.getReferenceById(key.jobId()) : null)
+                        .jobKey(key.jobId())
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                return conversationRepository.findThread(key.low(), key.high(), key.jobId()).orElseThrow(() -> e);
+            }
+        });
+    }
+
+    private static String preview(String content) {
+        return content.length() <= PREVIEW_LENGTH ? content : content.substring(0, PREVIEW_LENGTH);
+    }
+
+    private static Map<String, Object> toPayload(Message message, String clientMessageId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("conversationId", message.getConversation().getId());
+        data.put("senderId", message.getSender().getId());
+        data.put("senderName", message.getSender().getName());
+        data.put("receiverId", message.getReceiver().getId());
+        data.put("jobId", message.getJob() != null ? message.getJob().getId() : null);
+        data.put("seq", message.getConversationSeq());
+        data.put("content", message.getContent());
+        data.put("messageType", message.getMessageType());
+        data.put("clientMessageId", clientMessageId);
+        data.put("createdAt", message.getCreatedAt().toString());
+        return data;
+    }
+}
@@ -0,0 +1,218 @@
+package com.gigfinder.service;
+
+import com.gigfinder.event.JobStatusChangedEvent;
+import com.gigfinder.model.Job;
+import com.gigfinder.model.enums.JobStatus;
+import com.gigfinder.repository.JobAssignmentRepository;
+import com.gigfinder.repository.WorkerProfileRepository;
+import com.gigfinder.util.GeoGrid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Arrival estimates for workers heading to an assigned job. Travel speed is learned per region
+ * cell from past jobs as straight-line distance over the accepted-to-started interval, so detours
+ * and the time taken to set off are already priced in. The worker's position at acceptance is
+ * stored on the assignment as the trip's origin, so the profiles are relearned from the same
+ * trips after a restart. Estimates are cached per (worker, job) and only recomputed once the
+ * worker has moved more than the recompute distance.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EtaService {
+
+    // Regions with fewer samples fall back to the global profile, then to the default speed
+    private static final int MIN_SAMPLES = 5;
+    // Samples outside these bounds are waits or bad coordinates rather than travel
+    private static final double MIN_SAMPLE_KM = 0.5;
+    private static final long MIN_SAMPLE_SECONDS = 60;
+    private static final long MAX_SAMPLE_SECONDS = 3 * 3600;
+    private static final double MIN_SPEED_KMH = 2;
+    private static final double MAX_SPEED_KMH = 80;
+    private static final long GLOBAL = -1L;
+
+    private final LocationService locationService;
+    private final WorkerProfileRepository workerProfileRepository;
+    private final JobAssignmentRepository jobAssignmentRepository;
+
+    @Value("${gigfinder.eta.default-speed-kmh:18}")
+    private double defaultSpeedKmh;
+
+    @Value("${gigfinder.eta.recompute-distance-m:250}")
+    private double recomputeDistanceM;
+
+    @Value("${gigfinder.eta.profile-days:30}")
+    private int profileDays;
+
+    // Ratio of sums rather than a mean of speeds, so short hops do not dominate
+    private record Speed(double km, double hours, int samples) {
+        Speed plus(double sampleKm, double sampleHours) {
+            return new Speed(km + sampleKm, hours + sampleHours, samples + 1);
+        }
+    }
+
+    private record EtaKey(Long workerUserId, Long jobId) {}
+
+    private record Eta(double fromLat, double fromLng, double distanceKm, double speedKmh, String speedSource,
+                       long computedAt, long arrivalAt) {}
+
+    private final Map<Long, Speed> speeds = new ConcurrentHashMap<>();
+    private final Map<EtaKey, Eta> estimates = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        int learned = 0;
+        for (Object[] row : jobAssignmentRepository.findTravelRowsSince(LocalDateTime.now().minusDays(profileDays))) {
+            if (row[2] == null || row[3] == null || row[4] == null || row[5] == null) {
+                continue;
+            }
+            learned += learn((LocalDateTime) row[0], (LocalDateTime) row[1], ((Number) row[2]).doubleValue(),
+                    ((Number) row[3]).doubleValue(), ((Number) row[4]).doubleValue(), ((Number) row[5]).doubleValue()) ? 1 : 0;
+        }
+        log.info("ETA speed profiles learned from {} trips across {} regions", learned, Math.max(0, speeds.size() - 1));
+    }
+
+    @EventListener
+    public void onJobStatusChanged(JobStatusChangedEvent event) {
+        Job job = event.job();
+        if (event.newStatus() == JobStatus.ASSIGNED && job.getWorker() != null) {
+            double[] origin = workerPosition(job.getWorker().getId());
+            if (origin != null) {
+                jobAssignmentRepository.recordOrigin(job.getId(), BigDecimal.valueOf(origin[0]), BigDecimal.valueOf(origin[1]));
+            }
+            return;
+        }
+        estimates.keySet().removeIf(key -> key.jobId().equals(job.getId()));
+        double[] destination = destination(job);
+        if (event.newStatus() == JobStatus.IN_PROGRESS && destination != null) {
+            List<Object[]> origin = jobAssignmentRepository.findOriginByJobId(job.getId());
+            if (!origin.isEmpty()) {
+                learn(job.getAcceptedAt(), LocalDateTime.now(), destination[0], destination[1],
+                        ((Number) origin.get(0)[0]).doubleValue(), ((Number) origin.get(0)[1]).doubleValue());
+            }
+        }
+    }
+
+    /**
+     * Estimated arrival of the worker at the job, or null if either position is unknown. The
+     * estimate is reused until the worker moves beyond the recompute distance; etaSeconds counts
+     * down towards the cached arrival time in between.
+     */
+    public Map<String, Object> estimate(Long workerUserId, Job job) {
+        double[] destination = destination(job);
+        double[] position = workerPosition(workerUserId);
+        if (destination == null || position == null) {
+            return null;
+        }
+        EtaKey key = new EtaKey(workerUserId, job.getId());
+        long now = System.currentTimeMillis();
+        Eta eta = estimates.compute(key, (k, cached) -> {
+            if (cached != null && distanceKm(cached.fromLat(), cached.fromLng(), position[0], position[1]) * 1000 < recomputeDistanceM) {
+                return cached;
+            }
+            return compute(position, destination, now);
+        });
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("jobId", job.getId());
+        result.put("workerId", workerUserId);
+        result.put("distanceKm", Math.round(eta.distanceKm() * 10) / 10.0);
+        result.put("speedKmh", Math.round(eta.speedKmh() * 10) / 10.0);
+        result.put("speedSource", eta.speedSource());
+        result.put("etaSeconds", Math.max(0, (eta.arrivalAt() - now) / 1000));
+        result.put("arrivalAt", eta.arrivalAt());
+        result.put("computedAt", eta.computedAt());
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Speed global = speeds.get(GLOBAL);
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("regions", Math.max(0, speeds.size() - 1));
+        stats.put("samples", global != null ? global.samples() : 0);
+        stats.put("globalSpeedKmh", global != null && global.hours() > 0 ? Math.round(global.km() / global.hours() * 10) / 10.0 : null);
+        stats.put("cachedEstimates", estimates.size());
+        return stats;
+    }
+
+    private Eta compute(double[] from, double[] to, long now) {
+        double km = distanceKm(from[0], from[1], to[0], to[1]);
+        String source = "region";
+        Speed speed = speeds.get(GeoGrid.cellId(to[0], to[1], GeoGrid.REGION_ZOOM));
+        if (speed == null || speed.samples() < MIN_SAMPLES) {
+            source = "global";
+            speed = speeds.get(GLOBAL);
+        }
+        double kmh;
+        if (speed != null && speed.samples() >= MIN_SAMPLES) {
+            kmh = speed.km() / speed.hours();
+        } else {
+            source = "default";
+            kmh = defaultSpeedKmh;
+        }
+        long travelMs = Math.round(km / kmh * 3_600_000);
+        return new Eta(from[0], from[1], km, kmh, source, now, now + travelMs);
+    }
+
+    private boolean learn(LocalDateTime acceptedAt, LocalDateTime startedAt, double jobLat, double jobLng,
+                          double fromLat, double fromLng) {
+        if (acceptedAt == null || startedAt == null) {
+            return false;
+        }
+        long seconds = Duration.between(acceptedAt, startedAt).getSeconds();
+        double km = distanceKm(fromLat, fromLng, jobLat, jobLng);
+        double hours = seconds / 3600.0;
+        if (seconds < MIN_SAMPLE_SECONDS || seconds > MAX_SAMPLE_SECONDS || km < MIN_SAMPLE_KM
+                || km / hours < MIN_SPEED_KMH || km / hours > MAX_SPEED_KMH) {
+            return false;
+        }
+        long cellId = GeoGrid.cellId(jobLat, jobLng, GeoGrid.REGION_ZOOM);
+        speeds.merge(cellId, new Speed(km, hours, 1), (current, sample) -> current.plus(km, hours));
+        speeds.merge(GLOBAL, new Speed(km, hours, 1), (current, sample) -> current.plus(km, hours));
+        return true;
+    }
+
+    // Latest streamed point, else the location saved on the worker's profile
+    private double[] workerPosition(Long workerUserId) {
+        double[] latest = locationService.latest(workerUserId);
+        if (latest != null) {
+            return new double[]{latest[0], latest[1]};
+        }
+        List<Object[]> rows = workerProfileRepository.findLocationByUserId(workerUserId);
+        if (rows.isEmpty() || rows.get(0)[0] == null || rows.get(0)[1] == null) {
+            return null;
+        }
+        return new double[]{((Number) rows.get(0)[0]).doubleValue(), ((Number) rows.get(0)[1]).doubleValue()};
+    }
+
+    private static double[] destination(Job job) {
+        BigDecimal lat = job.getLocationLat();
+        BigDecimal lng = job.getLocationLng();
+        if ((lat == null || lng == null) && job.getClient() != null) {
+            lat = job.getClient().getLocationLat();
+            lng = job.getClient().getLocationLng();
+        }
+        return lat != null && lng != null ? new double[]{lat.doubleValue(), lng.doubleValue()} : null;
+    }
+
+    private static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 6371 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,202 @@
+package com.gigfinder.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gigfinder.event.JobStatusChangedEvent;
+import com.gigfinder.event.NotificationSentEvent;
+import com.gigfinder.event.PaymentStatusChangedEvent;
+import com.gigfinder.event.RatingSubmittedEvent;
+import com.gigfinder.event.UserRegisteredEvent;
+import com.gigfinder.model.Job;
+import com.gigfinder.model.Payment;
+import com.gigfinder.model.Rating;
+import com.gigfinder.util.MappedEventLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable, ordered record of domain events in a segmented memory-mapped log. Listeners hand
+ * events to a single writer thread which appends whatever has queued up and syncs the batch
+ * with one force, so a burst of events costs one disk flush. Consumers tail the log by offset.
+ */
+@Service
+@Slf4j
+public class EventLogService {
+
+    private record Pending(byte[] payload, CompletableFuture<Long> offset) {}
+
+    private static final TypeReference<Map<String, Object>> RECORD_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final String directory;
+    private final int segmentBytes;
+    private final int maxBatch;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private MappedEventLog eventLog;
+    private Thread writer;
+    private volatile boolean running;
+
+    public EventLogService(ObjectMapper objectMapper,
+                           @Value("${gigfinder.eventlog.dir:data/events}") String directory,
+                           @Value("${gigfinder.eventlog.segment-bytes:67108864}") int segmentBytes,
+                           @Value("${gigfinder.eventlog.max-batch:512}") int maxBatch) {
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBatch = maxBatch;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        eventLog = new MappedEventLog(Paths.get(directory), segmentBytes);
+        running = true;
+        writer = new Thread(this::writeLoop, "event-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Event log opened at {} (offset {})", Paths.get(directory).toAbsolutePath(), eventLog.committedOffset());
+    }
+
+    @EventListener
+    public void onJobStatusChanged(JobStatusChangedEvent event) {
+        Job job = event.job();
+        Map<String, Object> data = new HashMap<>();
+        data.put("jobId", job.getId());
+        data.put("from", event.previousStatus() != null ? event.previousStatus().name() : null);
+        data.put("to", event.newStatus().name());
+        data.put("workerId", job.getWorker() != null ? job.getWorker().getId() : null);
+        data.put("clientId", job.getClient() != null ? job.getClient().getUser().getId() : null);
+        append("JOB_STATUS_CHANGED", data);
+    }
+
+    @EventListener
+    public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        Payment payment = event.payment();
+        Map<String, Object> data = new HashMap<>();
+        data.put("paymentId", payment.getId());
+        data.put("jobId", payment.getJob() != null ? payment.getJob().getId() : null);
+        data.put("amount", payment.getAmount());
+        data.put("from", event.previousStatus() != null ? event.previousStatus().name() : null);
+        data.put("to", event.newStatus().name());
+        append("PAYMENT_STATUS_CHANGED", data);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingSubmitted(RatingSubmittedEvent event) {
+        Rating rating = event.rating();
+        Map<String, Object> data = new HashMap<>();
+        data.put("ratingId", rating.getId());
+        data.put("jobId", rating.getJob() != null ? rating.getJob().getId() : null);
+        data.put("reviewerId", rating.getReviewer().getId());
+        data.put("revieweeId", rating.getReviewee().getId());
+        data.put("score", rating.getScore());
+        append("RATING_SUBMITTED", data);
+    }
+
+    @EventListener
+    public void onUserRegistered(UserRegisteredEvent event) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", event.user().getId());
+        data.put("role", event.user().getRole() != null ? event.user().getRole().name() : null);
+        append("USER_REGISTERED", data);
+    }
+
+    @EventListener
+    public void onNotificationSent(NotificationSentEvent event) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", event.userId());
+        data.put("notificationType", event.type());
+        data.put("jobId", event.data() != null ? event.data().get("jobId") : null);
+        append("NOTIFICATION_SENT", data);
+    }
+
+    /** Queues an event; the future completes with its offset once the record is on disk. */
+    public CompletableFuture<Long> append(String type, Map<String, Object> data) {
+        CompletableFuture<Long> offset = new CompletableFuture<>();
+        try {
+            Map<String, Object> record = new HashMap<>();
+            record.put("type", type);
+            record.put("at", System.currentTimeMillis());
+            record.put("data", data);
+            queue.add(new Pending(objectMapper.writeValueAsBytes(record), offset));
+        } catch (Exception e) {
+            log.warn("Could not queue {} event for the event log", type, e);
+            offset.completeExceptionally(e);
+        }
+        return offset;
+    }
+
+    /** Committed records from {@code fromOffset} onwards, plus the offset to resume from. */
+    public Map<String, Object> read(long fromOffset, int limit) throws IOException {
+        long from = Math.max(fromOffset, eventLog.firstOffset());
+        List<Map<String, Object>> records = new ArrayList<>();
+        long nextOffset = from;
+        for (MappedEventLog.Entry entry : eventLog.read(from, limit)) {
+            Map<String, Object> record = objectMapper.readValue(entry.payload(), RECORD_TYPE);
+            record.put("offset", entry.offset());
+            records.add(record);
+            nextOffset = entry.nextOffset();
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("records", records);
+        result.put("nextOffset", nextOffset);
+        result.put("endOffset", eventLog.committedOffset());
+        return result;
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                List<Long> offsets = new ArrayList<>(batch.size());
+                for (Pending pending : batch) {
+                    offsets.add(eventLog.append(pending.payload()));
+                }
+                // Group commit: one sync covers the whole batch
+                eventLog.force();
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).offset().complete(offsets.get(i));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                log.error("Event log write failed for a batch of {} events", batch.size(), e);
+                for (Pending pending : batch) {
+                    pending.offset().completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws Exception {
+        running = false;
+        writer.join(5000);
+        eventLog.close();
+    }
+}
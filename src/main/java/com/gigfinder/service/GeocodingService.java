@@ -0,0 +1,309 @@
+package com.gigfinder.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Offline geocoder backed by a pincode gazetteer.
+ * The CSV source is compiled once into a sorted binary file which is memory-mapped, so
+ * lookups are a binary search over the mapping with no external service involved. The source
+ * is either the bundled seed (pincode,locality,district,state,lat,lng; mostly cities) or the
+ * India Post pincode directory export, recognised by its header; a pincode served by several
+ * post offices resolves to their centroid.
+ */
+@Service
+@Slf4j
+public class GeocodingService {
+
+    public record Coordinates(double lat, double lng) {}
+
+    private static final int MAGIC = 0x475A5431; // "GZT1"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 24;
+    private static final int PIN_RECORD_BYTES = 12;  // int pincode, int latE6, int lngE6
+    private static final int CITY_RECORD_BYTES = 16; // long nameHash, int latE6, int lngE6
+    private static final String BUNDLED_SEED = "india_pincodes.csv";
+
+    // Column positions of pincode, locality, district, lat and lng in the seed
+    private static final int[] SEED_COLUMNS = {0, 1, 2, 4, 5};
+
+    private final Resource source;
+    private final Path file;
+
+    private MappedByteBuffer buffer;
+    private int pinCount;
+    private int cityCount;
+
+    public GeocodingService(@Value("${gigfinder.geo.gazetteer-source:classpath:geo/india_pincodes.csv}") Resource source,
+                            @Value("${gigfinder.geo.gazetteer-file:data/geo/pincodes.bin}") String file) {
+        this.source = source;
+        this.file = Paths.get(file);
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        byte[] csv;
+        try (InputStream in = source.getInputStream()) {
+            csv = in.readAllBytes();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(csv);
+        long checksum = crc.getValue();
+
+        if (!isCurrent(checksum)) {
+            compile(csv, checksum);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        pinCount = buffer.getInt(16);
+        cityCount = buffer.getInt(20);
+        log.info("Pincode gazetteer mapped: {} pincodes, {} localities", pinCount, cityCount);
+        if (BUNDLED_SEED.equals(source.getFilename())) {
+            log.warn("Using the bundled seed gazetteer, which mostly covers cities; set gigfinder.geo.gazetteer-source "
+                    + "to the India Post pincode directory export so rural pincodes resolve");
+        }
+    }
+
+    public Optional<Coordinates> resolve(String postalCode, String city) {
+        Optional<Coordinates> byPin = resolvePostalCode(postalCode);
+        return byPin.isPresent() ? byPin : resolveCity(city);
+    }
+
+    public Optional<Coordinates> resolvePostalCode(String postalCode) {
+        int pin = parsePin(postalCode);
+        if (pin < 0) {
+            return Optional.empty();
+        }
+        int lo = 0;
+        int hi = pinCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int at = HEADER_BYTES + mid * PIN_RECORD_BYTES;
+            int value = buffer.getInt(at);
+            if (value < pin) {
+                lo = mid + 1;
+            } else if (value > pin) {
+                hi = mid - 1;
+            } else {
+                return Optional.of(new Coordinates(buffer.getInt(at + 4) / 1e6, buffer.getInt(at + 8) / 1e6));
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Optional<Coordinates> resolveCity(String city) {
+        String name = normalize(city);
+        if (name.isEmpty()) {
+            return Optional.empty();
+        }
+        long hash = hash(name);
+        int base = HEADER_BYTES + pinCount * PIN_RECORD_BYTES;
+        int lo = 0;
+        int hi = cityCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int at = base + mid * CITY_RECORD_BYTES;
+            long value = buffer.getLong(at);
+            if (value < hash) {
+                lo = mid + 1;
+            } else if (value > hash) {
+                hi = mid - 1;
+            } else {
+                return Optional.of(new Coordinates(buffer.getInt(at + 8) / 1e6, buffer.getInt(at + 12) / 1e6));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean isCurrent(long checksum) throws IOException {
+        if (!Files.exists(file) || Files.size(file) < HEADER_BYTES) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            return header.getInt() == MAGIC && header.getInt() == FORMAT_VERSION && header.getLong() == checksum;
+        }
+    }
+
+    private void compile(byte[] csv, long checksum) throws IOException {
+        // Pincodes, localities and districts all resolve to the centroid of their post offices
+        TreeMap<Integer, double[]> pins = new TreeMap<>();
+        Map<Long, double[]> cities = new HashMap<>();
+
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8))) {
+            int[] columns = SEED_COLUMNS;
+            int width = 6;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] cols = line.split(",", -1);
+                if (cols.length >= 5 && line.toLowerCase(Locale.ROOT).contains("pincode")) {
+                    columns = directoryColumns(cols);
+                    width = Arrays.stream(columns).max().orElse(0) + 1;
+                    continue;
+                }
+                if (cols.length < width) {
+                    continue;
+                }
+                int pin = parsePin(cols[columns[0]]);
+                double lat = parseDegrees(cols[columns[3]]);
+                double lng = parseDegrees(cols[columns[4]]);
+                // The directory has rows without coordinates, and some with them swapped or zeroed
+                if (pin < 0 || !inIndia(lat, lng)) {
+                    skipped++;
+                    continue;
+                }
+                double[] at = pins.computeIfAbsent(pin, p -> new double[3]);
+                at[0] += lat;
+                at[1] += lng;
+                at[2]++;
+                for (String name : new String[]{officeName(cols[columns[1]]), cols[columns[2]]}) {
+                    String key = normalize(name);
+                    if (!key.isEmpty()) {
+                        double[] acc = cities.computeIfAbsent(hash(key), h -> new double[3]);
+                        acc[0] += lat;
+                        acc[1] += lng;
+                        acc[2]++;
+                    }
+                }
+            }
+        }
+
+        TreeMap<Long, double[]> sortedCities = new TreeMap<>(cities);
+        int size = HEADER_BYTES + pins.size() * PIN_RECORD_BYTES + sortedCities.size() * CITY_RECORD_BYTES;
+        ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
+        out.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(checksum).putInt(pins.size()).putInt(sortedCities.size());
+        pins.forEach((pin, acc) -> out.putInt(pin)
+                .putInt(toE6(acc[0] / acc[2]))
+                .putInt(toE6(acc[1] / acc[2])));
+        sortedCities.forEach((hash, acc) -> out.putLong(hash)
+                .putInt(toE6(acc[0] / acc[2]))
+                .putInt(toE6(acc[1] / acc[2])));
+        out.flip();
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Compiled pincode gazetteer to {} ({} rows skipped)", file.toAbsolutePath(), skipped);
+    }
+
+    // Maps the India Post directory header (officename, pincode, district, latitude, longitude)
+    private static int[] directoryColumns(String[] header) {
+        int[] columns = {-1, -1, -1, -1, -1};
+        for (int i = 0; i < header.length; i++) {
+            switch (header[i].trim().toLowerCase(Locale.ROOT)) {
+                case "pincode" -> columns[0] = i;
+                case "officename", "office name" -> columns[1] = i;
+                case "district", "districtname" -> columns[2] = i;
+                case "latitude" -> columns[3] = i;
+                case "longitude" -> columns[4] = i;
+                default -> { }
+            }
+        }
+        for (int column : columns) {
+            if (column < 0) {
+                throw new IllegalArgumentException("Gazetteer header lacks pincode, officename, district, latitude or longitude: "
+                        + String.join(",", header));
+            }
+        }
+        return columns;
+    }
+
+    // Directory office names carry their type, e.g. "Adgaon B.O"
+    private static String officeName(String name) {
+        return name.replaceAll("(?i)\\s+[BSHG]\\.?\\s?O\\.?$", "");
+    }
+
+    private static double parseDegrees(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static boolean inIndia(double lat, double lng) {
+        return lat >= 6 && lat <= 37.5 && lng >= 68 && lng <= 97.5;
+    }
+
+    private static int toE6(double degrees) {
+        return (int) Math.round(degrees * 1e6);
+    }
+
+    private static int parsePin(String postalCode) {
+        if (postalCode == null) {
+            return -1;
+        }
+        String digits = postalCode.replaceAll("\\s", "");
+        if (digits.length() != 6) {
+            return -1;
+        }
+        for (int i = 0; i < 6; i++) {
+            if (!Character.isDigit(digits.charAt(i))) {
+                return -1;
+            }
+        }
+        return Integer.parseInt(digits);
+    }
+
+    private static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    // 64-bit FNV-1a
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,296 @@
+package com.gigfinder.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gigfinder.model.BusEvent;
+import com.gigfinder.repository.BusEventRepository;
+import com.gigfinder.util.LatencyHistogram;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-node bus over the bus_events table, so it runs on the database the nodes already share.
+ * Published frames are delivered on this node straight away and appended to the table in
+ * batches; every node polls the table in id order from a high-water mark and delivers the rows
+ * other nodes wrote. Ids can commit out of order, so a hole below newer rows is waited on for
+ * the gap timeout before it is given up as a rolled-back insert.
+ * Push stream seqs come from a per-user counter row in push_seqs, bumped with one atomic update,
+ * so two nodes sending to the same user never issue the same seq; chat seqs are bumped the same
+ * way on the conversation's issued_seq. Both are taken over a small pool of their own: senders
+ * often still hold a connection from the main pool, and waiting on that pool for a second one
+ * can starve it under load.
+ * Lag is publish time on the origin node to delivery here, so it includes clock skew.
+ */
+@Component
+@ConditionalOnProperty(name = "gigfinder.bus.type", havingValue = "jdbc")
+@RequiredArgsConstructor
+@Slf4j
+public class JdbcNotificationBus implements NotificationBus {
+
+    private static final int WRITE_BATCH = 500;
+    private static final int READ_BATCH = 500;
+    private static final long LAG_WINDOW_MS = 60_000;
+    private static final TypeReference<Map<String, Object>> FRAME_TYPE = new TypeReference<>() {};
+
+    // Quoted to match the names Hibernate generates with globally quoted identifiers
+    private static final String ADVANCE_SEQ = "UPDATE \"push_seqs\" SET \"seq\" = CASE WHEN \"seq\" < ? THEN ? + 1 ELSE \"seq\" + 1 END WHERE \"user_id\" = ?";
+    private static final String SELECT_SEQ = "SELECT \"seq\" FROM \"push_seqs\" WHERE \"user_id\" = ?";
+    private static final String INSERT_SEQ = "INSERT INTO \"push_seqs\" (\"user_id\", \"seq\") VALUES (?, ?)";
+    private static final String ADVANCE_CONVERSATION_SEQ = "UPDATE \"conversations\" SET \"issued_seq\" = CASE WHEN \"issued_seq\" < ? THEN ? + 1 ELSE \"issued_seq\" + 1 END WHERE \"id\" = ?";
+    private static final String SELECT_CONVERSATION_SEQ = "SELECT \"issued_seq\" FROM \"conversations\" WHERE \"id\" = ?";
+
+    private final BusEventRepository busEventRepository;
+    private final ObjectMapper objectMapper;
+    private final DataSourceProperties dataSourceProperties;
+
+    @Value("${gigfinder.bus.node-id:}")
+    private String nodeId;
+
+    @Value("${gigfinder.bus.gap-timeout-ms:2000}")
+    private long gapTimeoutMs;
+
+    @Value("${gigfinder.bus.retention-ms:600000}")
+    private long retentionMs;
+
+    @Value("${gigfinder.bus.seq-pool-size:4}")
+    private int seqPoolSize;
+
+    private HikariDataSource seqDataSource;
+    private JdbcTemplate seqJdbc;
+    private TransactionTemplate seqTemplate;
+
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+    private final BlockingQueue<BusEvent> outbox = new LinkedBlockingQueue<>();
+
+    // Poll state, only touched by poll(): every id <= highWater is handled, plus the ids in handledAbove
+    private long highWater = -1;
+    private final TreeSet<Long> handledAbove = new TreeSet<>();
+    private long gapSince;
+
+    // Lag over the current and previous minute
+    private volatile LatencyHistogram lagCurrent = new LatencyHistogram();
+    private volatile LatencyHistogram lagPrevious = new LatencyHistogram();
+    private long lagWindowStart = System.currentTimeMillis();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+    private final AtomicLong deliveredRemote = new AtomicLong();
+    private final AtomicLong gapsSkipped = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString().substring(0, 8);
+        }
+        log.info("Notification bus on bus_events as node {}", nodeId);
+        seqDataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        seqDataSource.setPoolName("push-seq");
+        seqDataSource.setMaximumPoolSize(seqPoolSize);
+        seqJdbc = new JdbcTemplate(seqDataSource);
+        seqTemplate = new TransactionTemplate(new DataSourceTransactionManager(seqDataSource));
+    }
+
+    @Override
+    public void subscribe(String destination, Handler handler) {
+        handlers.put(destination, handler);
+    }
+
+    @Override
+    public void publish(Long userId, String destination, Map<String, Object> frame) {
+        published.incrementAndGet();
+        Handler handler = handlers.get(destination);
+        if (handler != null) {
+            handler.deliver(userId, frame, true);
+        }
+        try {
+            outbox.add(BusEvent.builder()
+                    .originNode(nodeId)
+                    .userId(userId)
+                    .destination(destination)
+                    .payload(objectMapper.writeValueAsString(frame))
+                    .publishedAt(System.currentTimeMillis())
+                    .build());
+        } catch (Exception e) {
+            log.warn("Could not serialize bus frame for user {} on {}", userId, destination, e);
+        }
+    }
+
+    @Override
+    public long nextSeq(Long userId, long lastSeen) {
+        while (true) {
+            Long seq = bump(ADVANCE_SEQ, SELECT_SEQ, userId, lastSeen);
+            if (seq != null) {
+                return seq;
+            }
+            // The user's first seq from the shared counter; a node racing to create the row makes this one bump it instead
+            try {
+                seqJdbc.update(INSERT_SEQ, userId, lastSeen + 1);
+                return lastSeen + 1;
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Push seq counter for user {} was created concurrently", userId);
+            }
+        }
+    }
+
+    @Override
+    public long nextConversationSeq(Long conversationId, long lastSeen) {
+        Long seq = bump(ADVANCE_CONVERSATION_SEQ, SELECT_CONVERSATION_SEQ, conversationId, lastSeen);
+        if (seq == null) {
+            throw new RuntimeException("Conversation not found");
+        }
+        return seq;
+    }
+
+    // Bumps a counter row past lastSeen; null when the row does not exist
+    private Long bump(String advanceSql, String selectSql, Long id, long lastSeen) {
+        // The update holds the row lock until commit, so the value read back is the one it issued
+        return seqTemplate.execute(status -> seqJdbc.update(advanceSql, lastSeen, lastSeen, id) == 1
+                ? seqJdbc.queryForObject(selectSql, Long.class, id) : null);
+    }
+
+    @Scheduled(fixedDelayString = "${gigfinder.bus.flush-interval-ms:50}")
+    public void flush() {
+        List<BusEvent> batch = new ArrayList<>(WRITE_BATCH);
+        while (outbox.drainTo(batch, WRITE_BATCH) > 0) {
+            try {
+                busEventRepository.saveAll(batch);
+                written.addAndGet(batch.size());
+            } catch (Exception e) {
+                // Local sessions already have these; only other nodes miss them
+                writeFailures.addAndGet(batch.size());
+                log.warn("Could not write {} bus frames; other nodes will not see them", batch.size(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${gigfinder.bus.poll-interval-ms:100}")
+    public synchronized void poll() {
+        if (highWater < 0) {
+            // Start from the tail: earlier frames were for sessions that lived on other nodes
+            Long max = busEventRepository.findMaxId();
+            highWater = max != null ? max : 0;
+            return;
+        }
+        long cursor = highWater;
+        List<BusEvent> rows;
+        do {
+            rows = busEventRepository.findAfter(cursor, PageRequest.of(0, READ_BATCH));
+            for (BusEvent row : rows) {
+                cursor = row.getId();
+                if (handledAbove.add(row.getId()) && !nodeId.equals(row.getOriginNode())) {
+                    deliver(row);
+                }
+            }
+        } while (rows.size() == READ_BATCH);
+        advance();
+    }
+
+    @Scheduled(fixedDelayString = "${gigfinder.bus.purge-interval-ms:60000}")
+    public void purge() {
+        int deleted = busEventRepository.deletePublishedBefore(System.currentTimeMillis() - retentionMs);
+        if (deleted > 0) {
+            log.debug("Purged {} bus frames", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        seqDataSource.close();
+    }
+
+    @Override
+    public synchronized Map<String, Object> stats() {
+        LatencyHistogram lag = new LatencyHistogram();
+        lag.merge(lagPrevious);
+        lag.merge(lagCurrent);
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("type", "jdbc");
+        stats.put("nodeId", nodeId);
+        stats.put("published", published.get());
+        stats.put("written", written.get());
+        stats.put("writeFailures", writeFailures.get());
+        stats.put("outboxQueued", outbox.size());
+        stats.put("deliveredRemote", deliveredRemote.get());
+        stats.put("highWater", highWater);
+        stats.put("pendingAboveGap", handledAbove.size());
+        stats.put("gapsSkipped", gapsSkipped.get());
+        stats.put("lagSamples", lag.totalCount());
+        stats.put("lagP50Ms", lag.valueAtPercentile(50));
+        stats.put("lagP99Ms", lag.valueAtPercentile(99));
+        stats.put("lagMaxMs", lag.max());
+        return stats;
+    }
+
+    private void deliver(BusEvent row) {
+        Handler handler = handlers.get(row.getDestination());
+        if (handler == null) {
+            return;
+        }
+        try {
+            handler.deliver(row.getUserId(), objectMapper.readValue(row.getPayload(), FRAME_TYPE), false);
+            deliveredRemote.incrementAndGet();
+            recordLag(System.currentTimeMillis() - row.getPublishedAt());
+        } catch (Exception e) {
+            log.warn("Could not deliver bus frame {} from node {}", row.getId(), row.getOriginNode(), e);
+        }
+    }
+
+    // Moves the high-water mark over contiguous handled ids; a hole is skipped once it outlives the gap timeout
+    private void advance() {
+        long from = highWater;
+        while (!handledAbove.isEmpty() && handledAbove.first() == highWater + 1) {
+            highWater = handledAbove.pollFirst();
+        }
+        if (handledAbove.isEmpty()) {
+            gapSince = 0;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        // A hole further up is a new gap, with its own timeout
+        if (gapSince == 0 || highWater != from) {
+            gapSince = now;
+        } else if (now - gapSince >= gapTimeoutMs) {
+            gapsSkipped.incrementAndGet();
+            highWater = handledAbove.first() - 1;
+            gapSince = 0;
+            advance();
+        }
+    }
+
+    private synchronized void recordLag(long lagMs) {
+        long now = System.currentTimeMillis();
+        if (now - lagWindowStart >= LAG_WINDOW_MS) {
+            lagPrevious = lagCurrent;
+            lagCurrent = new LatencyHistogram();
+            lagWindowStart = now;
+        }
+        lagCurrent.record(lagMs);
+    }
+}
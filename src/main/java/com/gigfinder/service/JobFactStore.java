@@ -0,0 +1,357 @@
+package com.gigfinder.service;
+
+import com.gigfinder.event.JobStatusChangedEvent;
+import com.gigfinder.model.Job;
+import com.gigfinder.model.enums.JobStatus;
+import com.gigfinder.repository.JobRepository;
+import com.gigfinder.util.GeoGrid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process column store of job facts for admin reports. Each column is a primitive array
+ * indexed by row, one row per job in id order; reports run as batch-at-a-time loops over
+ * the columns (select by date, refine by filters, then aggregate) and never query the
+ * database. Rows are appended on job creation and patched as jobs move through their lifecycle;
+ * a status change for a row the startup load has not reached yet is held until the load ends.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobFactStore {
+
+    public enum GroupBy { DAY, CATEGORY, REGION, STATUS }
+
+    private static final int LOAD_CHUNK = 5000;
+    private static final int BATCH = 4096;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final JobStatus[] STATUS_VALUES = JobStatus.values();
+
+    private final JobRepository jobRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Columns; row i of every array describes the same job
+    private long[] jobIds = new long[INITIAL_CAPACITY];
+    private int[] days = new int[INITIAL_CAPACITY];
+    private int[] categories = new int[INITIAL_CAPACITY];
+    private long[] cells = new long[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private long[] budgetsPaise = new long[INITIAL_CAPACITY];
+    // -1 until the job is accepted
+    private int[] acceptSeconds = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // Latest status change per job that arrived before its row was loaded; null once loaded
+    private Map<Long, JobStatusChangedEvent> early = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long afterId = 0L;
+        while (true) {
+            List<Object[]> chunk = jobRepository.findFactRowsAfter(afterId, PageRequest.of(0, LOAD_CHUNK));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            lock.writeLock().lock();
+            try {
+                for (Object[] row : chunk) {
+                    LocalDateTime createdAt = (LocalDateTime) row[1];
+                    LocalDateTime acceptedAt = (LocalDateTime) row[7];
+                    append(((Number) row[0]).longValue(), createdAt,
+                            row[2] != null ? ((Number) row[2]).intValue() : 0,
+                            cellOf(row[3], row[4]), (JobStatus) row[5], (BigDecimal) row[6],
+                            secondsBetween(createdAt, acceptedAt));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            afterId = ((Number) chunk.get(chunk.size() - 1)[0]).longValue();
+        }
+        int replayed = 0;
+        lock.writeLock().lock();
+        try {
+            for (JobStatusChangedEvent event : early.values()) {
+                int row = rowOf(event.job().getId());
+                if (row >= 0) {
+                    patch(row, event);
+                    replayed++;
+                }
+            }
+            early = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Job fact store loaded {} rows, {} early status changes replayed", size, replayed);
+    }
+
+    @EventListener
+    public void onJobStatusChanged(JobStatusChangedEvent event) {
+        Job job = event.job();
+        lock.writeLock().lock();
+        try {
+            if (event.previousStatus() == null) {
+                BigDecimal lat = job.getLocationLat();
+                BigDecimal lng = job.getLocationLng();
+                if ((lat == null || lng == null) && job.getClient() != null) {
+                    lat = job.getClient().getLocationLat();
+                    lng = job.getClient().getLocationLng();
+                }
+                append(job.getId(), job.getCreatedAt() != null ? job.getCreatedAt() : LocalDateTime.now(),
+                        job.getCategory() != null ? job.getCategory().getId() : 0, cellOf(lat, lng),
+                        event.newStatus(), job.getBudget(), -1);
+                return;
+            }
+            int row = rowOf(job.getId());
+            if (early != null) {
+                // The load may still read this job's row from before the change; replay it after
+                if (row < 0) {
+                    early.put(job.getId(), event);
+                    return;
+                }
+                early.remove(job.getId());
+            }
+            if (row >= 0) {
+                patch(row, event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Jobs created in [from, to] matching the filters, grouped by one dimension. Each group
+     * reports job count, total budget and the mean time-to-accept of its accepted jobs.
+     */
+    public Map<String, Object> report(LocalDate from, LocalDate to, GroupBy groupBy,
+                                      Integer categoryId, Set<JobStatus> statusFilter, Long cellId) {
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        boolean[] statusAllowed = new boolean[STATUS_VALUES.length];
+        for (JobStatus s : STATUS_VALUES) {
+            statusAllowed[s.ordinal()] = statusFilter == null || statusFilter.isEmpty() || statusFilter.contains(s);
+        }
+
+        // Accumulators per group: jobs, budget paise, accepted jobs, accept seconds
+        Map<Long, long[]> groups = new HashMap<>();
+        int[] selection = new int[BATCH];
+        int scanned;
+        int matched = 0;
+
+        lock.readLock().lock();
+        try {
+            scanned = size;
+            for (int start = 0; start < size; start += BATCH) {
+                int end = Math.min(start + BATCH, size);
+
+                // Select on the date column, then refine the selection one column at a time
+                int n = 0;
+                for (int i = start; i < end; i++) {
+                    int d = days[i];
+                    if (d >= fromDay && d <= toDay) {
+                        selection[n++] = i;
+                    }
+                }
+                if (categoryId != null) {
+                    int category = categoryId;
+                    int m = 0;
+                    for (int k = 0; k < n; k++) {
+                        if (categories[selection[k]] == category) {
+                            selection[m++] = selection[k];
+                        }
+                    }
+                    n = m;
+                }
+                if (cellId != null) {
+                    long cell = cellId;
+                    int m = 0;
+                    for (int k = 0; k < n; k++) {
+                        if (cells[selection[k]] == cell) {
+                            selection[m++] = selection[k];
+                        }
+                    }
+                    n = m;
+                }
+                if (statusFilter != null && !statusFilter.isEmpty()) {
+                    int m = 0;
+                    for (int k = 0; k < n; k++) {
+                        if (statusAllowed[statuses[selection[k]]]) {
+                            selection[m++] = selection[k];
+                        }
+                    }
+                    n = m;
+                }
+
+                matched += n;
+                for (int k = 0; k < n; k++) {
+                    int i = selection[k];
+                    long key = switch (groupBy) {
+                        case DAY -> days[i];
+                        case CATEGORY -> categories[i];
+                        case REGION -> cells[i];
+                        case STATUS -> statuses[i];
+                    };
+                    long[] acc = groups.computeIfAbsent(key, x -> new long[4]);
+                    acc[0]++;
+                    acc[1] += budgetsPaise[i];
+                    if (acceptSeconds[i] >= 0) {
+                        acc[2]++;
+                        acc[3] += acceptSeconds[i];
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Long> keys = new ArrayList<>(groups.keySet());
+        keys.sort(null);
+        List<Map<String, Object>> rows = new ArrayList<>(keys.size());
+        for (Long key : keys) {
+            long[] acc = groups.get(key);
+            Map<String, Object> row = new HashMap<>();
+            putKey(row, groupBy, key);
+            row.put("jobs", acc[0]);
+            row.put("totalBudget", BigDecimal.valueOf(acc[1], 2));
+            row.put("acceptedJobs", acc[2]);
+            row.put("avgAcceptSeconds", acc[2] > 0 ? acc[3] / acc[2] : null);
+            rows.add(row);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("groupBy", groupBy.name().toLowerCase(Locale.ROOT));
+        result.put("from", from);
+        result.put("to", to);
+        result.put("scannedRows", scanned);
+        result.put("matchedRows", matched);
+        result.put("rows", rows);
+        return result;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void putKey(Map<String, Object> row, GroupBy groupBy, long key) {
+        switch (groupBy) {
+            case DAY -> row.put("date", LocalDate.ofEpochDay(key));
+            case CATEGORY -> row.put("categoryId", key == 0 ? null : key);
+            case REGION -> {
+                if (key >= 0) {
+                    double[] center = GeoGrid.center(key);
+                    row.put("cellId", key);
+                    row.put("lat", Math.round(center[0] * 10000) / 10000.0);
+                    row.put("lng", Math.round(center[1] * 10000) / 10000.0);
+                } else {
+                    row.put("cellId", null);
+                }
+            }
+            case STATUS -> row.put("status", STATUS_VALUES[(int) key].name());
+        }
+    }
+
+    // Caller holds the write lock
+    private void append(long jobId, LocalDateTime createdAt, int categoryId, long cellId,
+                        JobStatus status, BigDecimal budget, int acceptSecs) {
+        if (size == jobIds.length) {
+            grow();
+        }
+        // Rows stay sorted by job id; concurrent creates can arrive slightly out of order
+        int at = size;
+        while (at > 0 && jobIds[at - 1] > jobId) {
+            at--;
+        }
+        if (at > 0 && jobIds[at - 1] == jobId) {
+            return;
+        }
+        if (at < size) {
+            shiftRight(at);
+        }
+        jobIds[at] = jobId;
+        days[at] = (int) createdAt.toLocalDate().toEpochDay();
+        categories[at] = categoryId;
+        cells[at] = cellId;
+        statuses[at] = (byte) status.ordinal();
+        budgetsPaise[at] = budget != null ? budget.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() : 0L;
+        acceptSeconds[at] = acceptSecs;
+        size++;
+    }
+
+    // Caller holds the write lock
+    private void patch(int row, JobStatusChangedEvent event) {
+        Job job = event.job();
+        statuses[row] = (byte) event.newStatus().ordinal();
+        // A replayed later status still carries the acceptance the loaded row may have missed
+        if (acceptSeconds[row] < 0 && (event.newStatus() == JobStatus.ASSIGNED || job.getAcceptedAt() != null)) {
+            acceptSeconds[row] = secondsBetween(job.getCreatedAt(),
+                    job.getAcceptedAt() != null ? job.getAcceptedAt() : LocalDateTime.now());
+        }
+    }
+
+    private void shiftRight(int at) {
+        int count = size - at;
+        System.arraycopy(jobIds, at, jobIds, at + 1, count);
+        System.arraycopy(days, at, days, at + 1, count);
+        System.arraycopy(categories, at, categories, at + 1, count);
+        System.arraycopy(cells, at, cells, at + 1, count);
+        System.arraycopy(statuses, at, statuses, at + 1, count);
+        System.arraycopy(budgetsPaise, at, budgetsPaise, at + 1, count);
+        System.arraycopy(acceptSeconds, at, acceptSeconds, at + 1, count);
+    }
+
+    private void grow() {
+        int capacity = jobIds.length * 2;
+        jobIds = Arrays.copyOf(jobIds, capacity);
+        days = Arrays.copyOf(days, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        cells = Arrays.copyOf(cells, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        budgetsPaise = Arrays.copyOf(budgetsPaise, capacity);
+        acceptSeconds = Arrays.copyOf(acceptSeconds, capacity);
+    }
+
+    private int rowOf(Long jobId) {
+        if (jobId == null) {
+            return -1;
+        }
+        int found = Arrays.binarySearch(jobIds, 0, size, jobId);
+        return found >= 0 ? found : -1;
+    }
+
+    private static long cellOf(Object lat, Object lng) {
+        if (lat == null || lng == null) {
+            return -1L;
+        }
+        return GeoGrid.cellId(((Number) lat).doubleValue(), ((Number) lng).doubleValue(), GeoGrid.REGION_ZOOM);
+    }
+
+    private static int secondsBetween(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null) {
+            return -1;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, Duration.between(start, end).getSeconds()));
+    }
+}
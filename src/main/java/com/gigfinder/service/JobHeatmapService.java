@@ -0,0 +1,240 @@
+package com.gigfinder.service;
+
+import com.gigfinder.event.JobStatusChangedEvent;
+import com.gigfinder.model.Job;
+import com.gigfinder.model.enums.JobStatus;
+import com.gigfinder.repository.JobRepository;
+import com.gigfinder.util.GeoGrid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Job counts per grid cell at a fixed set of zoom levels, split by category and status.
+ * Counts are built once at startup and then moved between statuses as jobs change state,
+ * so a viewport query only touches the non-empty cells it covers. Status changes that land
+ * while a rebuild is scanning are replayed onto the new counts before they replace the old.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobHeatmapService {
+
+    // Country-wide down to neighbourhood; GeoGrid zoom 13 cells are ~2.4 km tall
+    static final int[] ZOOM_LEVELS = {3, 5, 7, 9, 11, 13};
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final JobStatus[] STATUS_VALUES = JobStatus.values();
+    private static final int STATUSES = STATUS_VALUES.length;
+    private static final long NO_CATEGORY = 0L;
+
+    private final JobRepository jobRepository;
+
+    // A status change seen while a rebuild is scanning
+    private record Move(double lat, double lng, long categoryId, JobStatus from, JobStatus to) {}
+
+    private final Object rebuildLock = new Object();
+    // Non-null while a rebuild runs: the moves per job id, in the order they were published
+    private Map<Long, List<Move>> pending;
+
+    // zoom level index -> cell id -> category id -> count per status ordinal
+    private volatile List<Map<Long, Map<Long, AtomicIntegerArray>>> levels = emptyLevels();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized int rebuild() {
+        synchronized (rebuildLock) {
+            pending = new HashMap<>();
+        }
+        List<Map<Long, Map<Long, AtomicIntegerArray>>> fresh = emptyLevels();
+        // Status each located job was counted under, by ascending id, to line up the replayed moves
+        long[] scannedIds = new long[CHUNK_SIZE];
+        byte[] scannedStatuses = new byte[CHUNK_SIZE];
+        int jobs = 0;
+        long afterId = 0L;
+        while (true) {
+            List<Object[]> chunk = jobRepository.findHeatmapRowsAfter(afterId, PageRequest.of(0, CHUNK_SIZE));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            for (Object[] row : chunk) {
+                if (row[1] != null && row[2] != null) {
+                    JobStatus status = (JobStatus) row[4];
+                    add(fresh, ((BigDecimal) row[1]).doubleValue(), ((BigDecimal) row[2]).doubleValue(),
+                            row[3] != null ? ((Number) row[3]).longValue() : NO_CATEGORY, status, 1);
+                    if (jobs == scannedIds.length) {
+                        scannedIds = Arrays.copyOf(scannedIds, jobs * 2);
+                        scannedStatuses = Arrays.copyOf(scannedStatuses, jobs * 2);
+                    }
+                    scannedIds[jobs] = ((Number) row[0]).longValue();
+                    scannedStatuses[jobs] = (byte) status.ordinal();
+                    jobs++;
+                }
+            }
+            afterId = ((Number) chunk.get(chunk.size() - 1)[0]).longValue();
+        }
+        int replayed = 0;
+        synchronized (rebuildLock) {
+            for (Map.Entry<Long, List<Move>> entry : pending.entrySet()) {
+                int at = Arrays.binarySearch(scannedIds, 0, jobs, entry.getKey());
+                JobStatus status = at >= 0 ? STATUS_VALUES[scannedStatuses[at]] : null;
+                for (Move move : entry.getValue()) {
+                    // A move out of a status other than the scanned one was already committed when
+                    // the row was read; only moves that continue from the counted status apply
+                    if (status != null && move.from() != status) {
+                        continue;
+                    }
+                    apply(fresh, move);
+                    status = move.to();
+                    replayed++;
+                }
+            }
+            pending = null;
+            levels = fresh;
+        }
+        log.info("Job heatmap built from {} located jobs, {} status changes replayed", jobs, replayed);
+        return jobs;
+    }
+
+    @EventListener
+    public void onJobStatusChanged(JobStatusChangedEvent event) {
+        Job job = event.job();
+        BigDecimal lat = job.getLocationLat();
+        BigDecimal lng = job.getLocationLng();
+        if ((lat == null || lng == null) && job.getClient() != null) {
+            lat = job.getClient().getLocationLat();
+            lng = job.getClient().getLocationLng();
+        }
+        if (lat == null || lng == null) {
+            return;
+        }
+        long categoryId = job.getCategory() != null ? job.getCategory().getId().longValue() : NO_CATEGORY;
+        Move move = new Move(lat.doubleValue(), lng.doubleValue(), categoryId, event.previousStatus(), event.newStatus());
+        synchronized (rebuildLock) {
+            if (pending != null) {
+                pending.computeIfAbsent(job.getId(), id -> new ArrayList<>()).add(move);
+            }
+            apply(levels, move);
+        }
+    }
+
+    /**
+     * Non-empty cells inside the viewport as {@code [lat, lng, count]} triples, using the
+     * finest stored zoom level that does not exceed the requested one.
+     */
+    public Map<String, Object> cells(double minLat, double minLng, double maxLat, double maxLng, int zoom,
+                                     Set<JobStatus> statuses, Long categoryId) {
+        int index = levelIndex(zoom);
+        int level = ZOOM_LEVELS[index];
+        Map<Long, Map<Long, AtomicIntegerArray>> cells = levels.get(index);
+
+        int minRow = GeoGrid.row(Math.min(minLat, maxLat), level);
+        int maxRow = GeoGrid.row(Math.max(minLat, maxLat), level);
+        int minCol = GeoGrid.column(Math.min(minLng, maxLng), level);
+        int maxCol = GeoGrid.column(Math.max(minLng, maxLng), level);
+
+        List<Object[]> result = new ArrayList<>();
+        long viewportCells = (long) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (viewportCells <= cells.size()) {
+            // Small viewport: probe each covered cell
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    long cellId = GeoGrid.pack(level, row, col);
+                    collect(result, cellId, cells.get(cellId), statuses, categoryId);
+                }
+            }
+        } else {
+            // Large viewport: walk the occupied cells instead of the empty grid
+            for (Map.Entry<Long, Map<Long, AtomicIntegerArray>> entry : cells.entrySet()) {
+                long cellId = entry.getKey();
+                int row = GeoGrid.rowOf(cellId);
+                int col = GeoGrid.columnOf(cellId);
+                if (row >= minRow && row <= maxRow && col >= minCol && col <= maxCol) {
+                    collect(result, cellId, entry.getValue(), statuses, categoryId);
+                }
+            }
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("zoom", level);
+        response.put("cellLat", 180.0 / (1 << level));
+        response.put("cellLng", 360.0 / (1 << level));
+        response.put("fields", List.of("lat", "lng", "count"));
+        response.put("cells", result);
+        return response;
+    }
+
+    private static void collect(List<Object[]> result, long cellId, Map<Long, AtomicIntegerArray> byCategory,
+                                Set<JobStatus> statuses, Long categoryId) {
+        if (byCategory == null) {
+            return;
+        }
+        long count = 0;
+        for (Map.Entry<Long, AtomicIntegerArray> entry : byCategory.entrySet()) {
+            if (categoryId != null && categoryId.longValue() != entry.getKey()) {
+                continue;
+            }
+            AtomicIntegerArray counts = entry.getValue();
+            for (int s = 0; s < STATUSES; s++) {
+                if (statuses == null || statuses.isEmpty() || statuses.contains(STATUS_VALUES[s])) {
+                    count += counts.get(s);
+                }
+            }
+        }
+        if (count > 0) {
+            double[] center = GeoGrid.center(cellId);
+            result.add(new Object[]{round4(center[0]), round4(center[1]), count});
+        }
+    }
+
+    private static void apply(List<Map<Long, Map<Long, AtomicIntegerArray>>> target, Move move) {
+        if (move.from() != null) {
+            add(target, move.lat(), move.lng(), move.categoryId(), move.from(), -1);
+        }
+        add(target, move.lat(), move.lng(), move.categoryId(), move.to(), 1);
+    }
+
+    private static void add(List<Map<Long, Map<Long, AtomicIntegerArray>>> target, double lat, double lng,
+                            long categoryId, JobStatus status, int delta) {
+        for (int i = 0; i < ZOOM_LEVELS.length; i++) {
+            target.get(i)
+                    .computeIfAbsent(GeoGrid.cellId(lat, lng, ZOOM_LEVELS[i]), c -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(categoryId, c -> new AtomicIntegerArray(STATUSES))
+                    .addAndGet(status.ordinal(), delta);
+        }
+    }
+
+    private static int levelIndex(int zoom) {
+        int index = 0;
+        for (int i = 0; i < ZOOM_LEVELS.length; i++) {
+            if (ZOOM_LEVELS[i] <= zoom) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    private static List<Map<Long, Map<Long, AtomicIntegerArray>>> emptyLevels() {
+        List<Map<Long, Map<Long, AtomicIntegerArray>>> fresh = new ArrayList<>(ZOOM_LEVELS.length);
+        for (int i = 0; i < ZOOM_LEVELS.length; i++) {
+            fresh.add(new ConcurrentHashMap<>());
+        }
+        return fresh;
+    }
+
+    private static double round4(double value) {
+        return Math.round(value * 10000) / 10000.0;
+    }
+}
@@ -0,0 +1,153 @@
+package com.gigfinder.service;
+
+import com.gigfinder.event.JobStatusChangedEvent;
+import com.gigfinder.model.Job;
+import com.gigfinder.model.enums.JobStatus;
+import com.gigfinder.repository.JobAssignmentRepository;
+import com.gigfinder.repository.JobRepository;
+import com.gigfinder.util.GeoGrid;
+import com.gigfinder.util.LatencyHistogram;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Job lifecycle latency distributions kept in hourly histogram slots per category and
+ * region cell. Lifecycle events record into the current slot; window queries merge the
+ * matching slots instead of scanning the jobs table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobLatencyService {
+
+    public enum Metric {
+        // Posted until a worker accepted
+        ACCEPT,
+        // Posted until the work was marked complete
+        COMPLETE
+    }
+
+    private record SlotKey(Metric metric, long categoryId, long cellId) {}
+
+    static final int RETENTION_HOURS = 7 * 24;
+    private static final long NO_CATEGORY = 0L;
+    private static final long NO_CELL = -1L;
+
+    private final JobRepository jobRepository;
+    private final JobAssignmentRepository jobAssignmentRepository;
+
+    // epoch hour -> slot key -> histogram of durations in seconds
+    private final Map<Long, Map<SlotKey, LatencyHistogram>> hours = new ConcurrentHashMap<>();
+
+    // Only the retention window is loaded, through the accepted_at / completed_at indexes
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDateTime since = LocalDateTime.now().minusHours(RETENTION_HOURS);
+        int recorded = 0;
+        for (Object[] row : jobRepository.findAcceptLatencyRowsSince(since)) {
+            recorded += record(Metric.ACCEPT, (LocalDateTime) row[0], (LocalDateTime) row[1], row[2], row[3], row[4]) ? 1 : 0;
+        }
+        for (Object[] row : jobAssignmentRepository.findCompleteLatencyRowsSince(since)) {
+            recorded += record(Metric.COMPLETE, (LocalDateTime) row[0], (LocalDateTime) row[1], row[2], row[3], row[4]) ? 1 : 0;
+        }
+        log.info("Job latency histograms warmed with {} samples", recorded);
+    }
+
+    @EventListener
+    public void onJobStatusChanged(JobStatusChangedEvent event) {
+        Job job = event.job();
+        Metric metric;
+        LocalDateTime end;
+        if (event.newStatus() == JobStatus.ASSIGNED && event.previousStatus() == JobStatus.OPEN) {
+            metric = Metric.ACCEPT;
+            end = job.getAcceptedAt() != null ? job.getAcceptedAt() : LocalDateTime.now();
+        } else if (event.newStatus() == JobStatus.COMPLETED) {
+            metric = Metric.COMPLETE;
+            end = LocalDateTime.now();
+        } else {
+            return;
+        }
+        BigDecimal lat = job.getLocationLat();
+        BigDecimal lng = job.getLocationLng();
+        if ((lat == null || lng == null) && job.getClient() != null) {
+            lat = job.getClient().getLocationLat();
+            lng = job.getClient().getLocationLng();
+        }
+        record(metric, job.getCreatedAt(), end, job.getCategory() != null ? job.getCategory().getId() : null, lat, lng);
+    }
+
+    /**
+     * Percentiles in seconds over the last {@code windowHours}, optionally narrowed to one
+     * category and/or the region cell containing lat/lng.
+     */
+    public Map<String, Object> percentiles(Metric metric, int windowHours, Long categoryId, Double lat, Double lng) {
+        int window = Math.max(1, Math.min(windowHours, RETENTION_HOURS));
+        Long cellId = lat != null && lng != null ? GeoGrid.cellId(lat, lng, GeoGrid.REGION_ZOOM) : null;
+        long currentHour = epochHour(LocalDateTime.now());
+
+        LatencyHistogram merged = new LatencyHistogram();
+        for (long hour = currentHour - window + 1; hour <= currentHour; hour++) {
+            Map<SlotKey, LatencyHistogram> slots = hours.get(hour);
+            if (slots == null) {
+                continue;
+            }
+            for (Map.Entry<SlotKey, LatencyHistogram> entry : slots.entrySet()) {
+                SlotKey key = entry.getKey();
+                if (key.metric() == metric
+                        && (categoryId == null || key.categoryId() == categoryId)
+                        && (cellId == null || key.cellId() == cellId)) {
+                    merged.merge(entry.getValue());
+                }
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("metric", metric.name().toLowerCase(Locale.ROOT));
+        result.put("windowHours", window);
+        result.put("count", merged.totalCount());
+        result.put("p50", merged.valueAtPercentile(50));
+        result.put("p90", merged.valueAtPercentile(90));
+        result.put("p99", merged.valueAtPercentile(99));
+        result.put("max", merged.max());
+        result.put("mean", Math.round(merged.mean()));
+        return result;
+    }
+
+    @Scheduled(cron = "0 1 * * * *")
+    public void evictExpired() {
+        long oldest = epochHour(LocalDateTime.now()) - RETENTION_HOURS;
+        hours.keySet().removeIf(hour -> hour <= oldest);
+    }
+
+    private boolean record(Metric metric, LocalDateTime start, LocalDateTime end, Object categoryId, Object lat, Object lng) {
+        if (start == null || end == null) {
+            return false;
+        }
+        long category = categoryId != null ? ((Number) categoryId).longValue() : NO_CATEGORY;
+        long cell = lat != null && lng != null
+                ? GeoGrid.cellId(((Number) lat).doubleValue(), ((Number) lng).doubleValue(), GeoGrid.REGION_ZOOM)
+                : NO_CELL;
+        // Slotted by when the transition happened, so windows mean "jobs accepted/completed in the last N hours"
+        hours.computeIfAbsent(epochHour(end), h -> new ConcurrentHashMap<>())
+                .computeIfAbsent(new SlotKey(metric, category, cell), k -> new LatencyHistogram())
+                .record(Duration.between(start, end).getSeconds());
+        return true;
+    }
+
+    private static long epochHour(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond() / 3600;
+    }
+}
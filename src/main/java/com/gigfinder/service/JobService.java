@@ -5,6 +5,7 @@ import com.gigfinder.dto.JobResponseDTO;
 import com.gigfinder.dto.RatingDTO;
 import com.gigfinder.dto.RatingResponseDTO;
 import com.gigfinder.dto.ReportDTO;
+import com.gigfinder.event.JobStatusChangedEvent;
 import com.gigfinder.model.*;
 import com.gigfinder.model.enums.JobStatus;
 import com.gigfinder.model.enums.AssignmentStatus;
@@ -12,6 +13,7 @@ import com.gigfinder.repository.*;
 import com.gigfinder.util.SecurityUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -20,7 +22,9 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.domain.Page;
@@ -33,6 +37,9 @@ import jakarta.persistence.criteria.Join;
 @RequiredArgsConstructor
 public class JobService {
 
+    // New jobs are announced to workers within this distance of the client
+    private static final double NEARBY_RADIUS_KM = 10.0;
+
     private final JobRepository jobRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
@@ -43,8 +50,15 @@ public class JobService {
     private final WorkerProfileRepository workerProfileRepository;
     private final RatingRepository ratingRepository;
     private final ReportRepository reportRepository;
-    private final NotificationRepository notificationRepository;
     private final OtpService otpService;
+    private final SuggestService suggestService;
+    private final UserAddressRepository userAddressRepository;
+    private final GeocodingService geocodingService;
+    private final RatingAggregateService ratingAggregateService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PresenceService presenceService;
+    private final LocationService locationService;
+    private final EtaService etaService;
 
     public JobResponseDTO createJob(JobRequestDTO request) {
 
@@ -102,11 +116,27 @@ public class JobService {
         }
 
         Job savedJob = jobRepository.save(job);
+        suggestService.onJobCreated(category, subCategory);
+        eventPublisher.publishEvent(new JobStatusChangedEvent(savedJob, null, JobStatus.OPEN));
         
-        // Notify nearby workers about new job
-        List<WorkerProfile> nearbyWorkers = getNearbyWorkers(clientProfile.getLocationLat(), clientProfile.getLocationLng());
-        for (WorkerProfile worker : nearbyWorkers) {
-            notificationService.sendNewJobAvailable(worker.getUser().getId(), savedJob.getId(), savedJob.getTitle());
+        // Notify nearby workers about new job: workers online around it first, then the rest in range
+        BigDecimal[] origin = resolveJobOrigin(clientProfile, savedJob, user);
+        Set<Long> workerIds = new LinkedHashSet<>();
+        if (origin[0] != null && origin[1] != null) {
+            double[] bounds = nearbyBounds(origin[0].doubleValue(), origin[1].doubleValue());
+            // Presence cells overhang the radius; keep the workers inside the same box the database search uses
+            for (Long workerId : presenceService.onlineWorkersNear(origin[0].doubleValue(), origin[1].doubleValue(), NEARBY_RADIUS_KM)) {
+                double[] at = presenceService.location(workerId);
+                if (at != null && at[0] >= bounds[0] && at[0] <= bounds[1] && at[1] >= bounds[2] && at[1] <= bounds[3]) {
+                    workerIds.add(workerId);
+                }
+            }
+        }
+        for (WorkerProfile worker : getNearbyWorkers(origin[0], origin[1])) {
+            workerIds.add(worker.getUser().getId());
+        }
+        for (Long workerId : workerIds) {
+            notificationService.sendNewJobAvailable(workerId, savedJob.getId(), savedJob.getTitle());
         }
         
         return convertToResponseDTO(savedJob);
@@ -189,33 +219,18 @@ public class JobService {
         jobAssignmentRepository.save(assignment);
 
         // 5️⃣ Create notification for worker
-        Notification workerNotification = Notification.builder()
-                .user(workerProfile.getUser())
-                .title("Job Assigned")
-                .message("You have been assigned to: " + job.getTitle())
-                .readStatus(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        // Save notification for worker
-        notificationRepository.save(workerNotification);
+        notificationService.create(workerProfile.getUser(), "Job Assigned",
+                "You have been assigned to: " + job.getTitle());
 
         // 6️⃣ Create notification for client
-        Notification clientNotification = Notification.builder()
-                .user(job.getClient().getUser())
-                .title("Job Accepted")
-                .message("Your job '" + job.getTitle() + "' has been accepted by " + workerProfile.getUser().getName())
-                .readStatus(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        // Save notification for client
-        notificationRepository.save(clientNotification);
+        notificationService.create(job.getClient().getUser(), "Job Accepted",
+                "Your job '" + job.getTitle() + "' has been accepted by " + workerProfile.getUser().getName());
 
         job.setStatus(JobStatus.ASSIGNED);
         job.setWorker(workerProfile.getUser());
         job.setAcceptedAt(LocalDateTime.now());
         jobRepository.save(job);
+        eventPublisher.publishEvent(new JobStatusChangedEvent(job, JobStatus.OPEN, JobStatus.ASSIGNED));
         
         // Send real-time notification to client
         notificationService.sendJobAccepted(job.getClient().getUser().getId(), jobId, workerProfile.getUser().getName());
@@ -259,20 +274,14 @@ public class JobService {
         jobAssignmentRepository.save(assignment);
 
         // 6️⃣ Create notification for client
-        Notification clientNotification = Notification.builder()
-                .user(job.getClient().getUser())
-                .title("Job Completed")
-                .message("Your job '" + job.getTitle() + "' has been completed by " + workerProfile.getUser().getName())
-                .readStatus(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        // Save notification for client
-        notificationRepository.save(clientNotification);
+        notificationService.create(job.getClient().getUser(), "Job Completed",
+                "Your job '" + job.getTitle() + "' has been completed by " + workerProfile.getUser().getName());
 
         // 7️⃣ Update job status
+        JobStatus previousStatus = job.getStatus();
         job.setStatus(JobStatus.COMPLETED);
         jobRepository.save(job);
+        eventPublisher.publishEvent(new JobStatusChangedEvent(job, previousStatus, JobStatus.COMPLETED));
 
         // Send real-time notification to client
         notificationService.sendJobCompleted(job.getClient().getUser().getId(), jobId);
@@ -324,20 +333,13 @@ public class JobService {
         jobAssignmentRepository.save(assignment);
 
         // 6️⃣ Create notification for client
-        Notification clientNotification = Notification.builder()
-                .user(job.getClient().getUser())
-                .title("Job Started")
-                .message("Your job '" + job.getTitle() + "' has been started by " + workerProfile.getUser().getName())
-                .readStatus(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        // Save notification for client
-        notificationRepository.save(clientNotification);
+        notificationService.create(job.getClient().getUser(), "Job Started",
+                "Your job '" + job.getTitle() + "' has been started by " + workerProfile.getUser().getName());
 
         // 7️⃣ Update job status
         job.setStatus(JobStatus.IN_PROGRESS);
         jobRepository.save(job);
+        eventPublisher.publishEvent(new JobStatusChangedEvent(job, JobStatus.ASSIGNED, JobStatus.IN_PROGRESS));
 
         // Send real-time notification
         notificationService.sendJobStarted(job.getClient().getUser().getId(), jobId);
@@ -370,11 +372,41 @@ public class JobService {
             throw new RuntimeException("Not authorized to update this job");
         }
 
-        // We keep Job.status as ASSIGNED until start; use notification to reflect "on the way"
-        notificationService.sendJobStarted(job.getClient().getUser().getId(), jobId);
+        // We keep Job.status as ASSIGNED until start; the client follows the worker's location stream from here
+        Long clientUserId = job.getClient().getUser().getId();
+        locationService.track(user.getId(), jobId, clientUserId);
+        notificationService.sendWorkerOnTheWay(clientUserId, jobId, user.getName(), etaService.estimate(user.getId(), job));
         return convertToResponseDTO(job);
     }
 
+    // Visible to the job's client and its assigned worker while the worker is on the way
+    public Map<String, Object> getEta(Long jobId) {
+        String username = SecurityUtil.getCurrentUsername();
+        if (username == null) {
+            throw new RuntimeException("Unauthorized");
+        }
+
+        User user = userRepository.findByEmail(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        Job job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Job not found"));
+
+        if (job.getWorker() == null || !(job.getWorker().getId().equals(user.getId())
+                || job.getClient().getUser().getId().equals(user.getId()))) {
+            throw new RuntimeException("Not authorized to view this job");
+        }
+        if (job.getStatus() != JobStatus.ASSIGNED) {
+            throw new RuntimeException("ETA is only available before the job starts");
+        }
+
+        Map<String, Object> eta = etaService.estimate(job.getWorker().getId(), job);
+        if (eta == null) {
+            throw new RuntimeException("Worker or job location unknown");
+        }
+        return eta;
+    }
+
     public List<JobResponseDTO> getNearbyJobs(Double latitude, Double longitude, Double radiusKm) {
         // Calculate bounding box for radius search
         double latDelta = radiusKm / 111.0; // 1 degree latitude ≈ 111 km
@@ -435,13 +467,8 @@ public class JobService {
                 .createdAt(LocalDateTime.now())
                 .build();
 
-        // Save rating
-        ratingRepository.save(rating);
-
-        // 6️⃣ Update worker's average rating
-        BigDecimal newAverage = calculateNewAverage(worker, ratingDTO.getRating());
-        worker.setRatingAvg(newAverage);
-        workerProfileRepository.save(worker);
+        // Save rating and update the worker's aggregates in one transaction
+        ratingAggregateService.recordRating(rating);
 
         return "Rating submitted successfully";
     }
@@ -616,48 +643,41 @@ public class JobService {
         return categories;
     }
     
+    // Client profile location, then the job's own pin, then the client's default address
+    private BigDecimal[] resolveJobOrigin(ClientProfile clientProfile, Job job, User user) {
+        if (clientProfile.getLocationLat() != null && clientProfile.getLocationLng() != null) {
+            return new BigDecimal[]{clientProfile.getLocationLat(), clientProfile.getLocationLng()};
+        }
+        if (job.getLocationLat() != null && job.getLocationLng() != null) {
+            return new BigDecimal[]{job.getLocationLat(), job.getLocationLng()};
+        }
+        return userAddressRepository.findByUserAndIsDefaultTrue(user)
+                .flatMap(address -> address.getLocationLat() != null && address.getLocationLng() != null
+                        ? Optional.of(new GeocodingService.Coordinates(address.getLocationLat(), address.getLocationLng()))
+                        : geocodingService.resolve(address.getPostalCode(), address.getCity()))
+                .map(c -> new BigDecimal[]{BigDecimal.valueOf(c.lat()), BigDecimal.valueOf(c.lng())})
+                .orElse(new BigDecimal[]{null, null});
+    }
+
     private List<WorkerProfile> getNearbyWorkers(BigDecimal clientLat, BigDecimal clientLng) {
         if (clientLat == null || clientLng == null) {
             return List.of(); // Return empty list if client location not set
         }
         
-        double latitude = clientLat.doubleValue();
-        double longitude = clientLng.doubleValue();
-        double searchRadius = 10.0; // 10 km radius
-        
-        // Calculate bounding box for radius search
-        double latDelta = searchRadius / 111.0; // 1 degree latitude ≈ 111 km
-        double lonDelta = searchRadius / (111.0 * Math.cos(Math.toRadians(latitude)));
-        
-        double minLat = latitude - latDelta;
-        double maxLat = latitude + latDelta;
-        double minLon = longitude - lonDelta;
-        double maxLon = longitude + lonDelta;
-        
+        double[] bounds = nearbyBounds(clientLat.doubleValue(), clientLng.doubleValue());
         return workerProfileRepository.findByLocationWithinBounds(
-            BigDecimal.valueOf(minLat), 
-            BigDecimal.valueOf(maxLat), 
-            BigDecimal.valueOf(minLon), 
-            BigDecimal.valueOf(maxLon)
+            BigDecimal.valueOf(bounds[0]), 
+            BigDecimal.valueOf(bounds[1]), 
+            BigDecimal.valueOf(bounds[2]), 
+            BigDecimal.valueOf(bounds[3])
         );
     }
     
-    private BigDecimal calculateNewAverage(WorkerProfile worker, Integer newRating) {
-        // Get current average and count
-        BigDecimal currentAvg = ratingRepository.getAverageRatingByReviewee(worker.getUser());
-        Long currentCount = ratingRepository.getRatingCountByReviewee(worker.getUser());
-        
-        if (currentAvg == null) {
-            // First rating
-            return BigDecimal.valueOf(newRating);
-        }
-        
-        // Calculate new average: (current_avg * current_count + new_rating) / (current_count + 1)
-        BigDecimal totalSum = currentAvg.multiply(BigDecimal.valueOf(currentCount))
-                .add(BigDecimal.valueOf(newRating));
-        BigDecimal newCount = BigDecimal.valueOf(currentCount + 1);
-        
-        return totalSum.divide(newCount, 2, BigDecimal.ROUND_HALF_UP);
+    // Bounding box of the nearby radius around a point: {minLat, maxLat, minLon, maxLon}
+    private static double[] nearbyBounds(double latitude, double longitude) {
+        double latDelta = NEARBY_RADIUS_KM / 111.0; // 1 degree latitude ≈ 111 km
+        double lonDelta = NEARBY_RADIUS_KM / (111.0 * Math.cos(Math.toRadians(latitude)));
+        return new double[]{latitude - latDelta, latitude + latDelta, longitude - lonDelta, longitude + lonDelta};
     }
     
     private RatingResponseDTO convertToRatingResponseDTO(Rating rating) {
@@ -0,0 +1,230 @@
+package com.gigfinder.service;
+
+import com.gigfinder.event.JobStatusChangedEvent;
+import com.gigfinder.event.RatingSubmittedEvent;
+import com.gigfinder.event.WorkerProfileChangedEvent;
+import com.gigfinder.model.WorkerProfile;
+import com.gigfinder.model.enums.AssignmentStatus;
+import com.gigfinder.model.enums.JobStatus;
+import com.gigfinder.repository.JobAssignmentRepository;
+import com.gigfinder.repository.WorkerProfileRepository;
+import com.gigfinder.util.GeoGrid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Worker leaderboards kept sorted in memory: one global board, one per region cell, one per
+ * skill and one per region cell and skill. Updates re-rank a single worker in O(log n); reads
+ * walk the first K entries of a single board. Ratings, completions, profile edits and persisted
+ * location changes all re-key the worker, so a move lands them on the new cell's boards.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderboardService {
+
+    public record Standing(Long workerId, Long userId, String name, double ratingAvg, int ratingCount,
+                           long completedJobs, Long cellId, Set<String> skills) {}
+
+    private static final Comparator<Standing> RANKING = Comparator
+            .comparingDouble(Standing::ratingAvg).reversed()
+            .thenComparing(Comparator.comparingLong(Standing::completedJobs).reversed())
+            .thenComparing(Comparator.comparingInt(Standing::ratingCount).reversed())
+            .thenComparing(Standing::workerId);
+
+    private static final String GLOBAL = "global";
+
+    private final WorkerProfileRepository workerProfileRepository;
+    private final JobAssignmentRepository jobAssignmentRepository;
+
+    private final Map<String, ConcurrentSkipListSet<Standing>> boards = new ConcurrentHashMap<>();
+    private final Map<Long, Standing> standings = new ConcurrentHashMap<>();
+    private final Map<Long, Long> workerIdsByUser = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Map<Long, Long> completed = new HashMap<>();
+        for (Object[] row : jobAssignmentRepository.countCompletedByWorker()) {
+            completed.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        boards.clear();
+        standings.clear();
+        workerIdsByUser.clear();
+        for (WorkerProfile worker : workerProfileRepository.findAllWithUser()) {
+            put(toStanding(worker, completed.getOrDefault(worker.getId(), 0L)));
+        }
+        log.info("Leaderboards built for {} workers across {} boards", standings.size(), boards.size());
+    }
+
+    // Runs after the rating commits so the reloaded profile carries the new aggregates
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingSubmitted(RatingSubmittedEvent event) {
+        workerProfileRepository.findByUser(event.rating().getReviewee()).ifPresent(worker -> update(worker, 0));
+    }
+
+    @EventListener
+    public void onJobStatusChanged(JobStatusChangedEvent event) {
+        if (event.newStatus() != JobStatus.COMPLETED || event.job().getWorker() == null) {
+            return;
+        }
+        workerProfileRepository.findByUser(event.job().getWorker()).ifPresent(worker -> update(worker, 1));
+    }
+
+    // Covers workers registered after startup as well as skill and location edits
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWorkerProfileChanged(WorkerProfileChangedEvent event) {
+        workerProfileRepository.findByIdWithUser(event.workerId()).ifPresent(worker -> update(worker, 0));
+    }
+
+    /**
+     * Moves a worker to the boards of the region cell containing the given point. Called once
+     * the location has been persisted, so a later rebuild agrees with the in-memory boards.
+     */
+    public synchronized void relocate(Long workerUserId, double lat, double lng) {
+        Long workerId = workerIdsByUser.get(workerUserId);
+        Standing previous = workerId != null ? standings.get(workerId) : null;
+        if (previous == null) {
+            return;
+        }
+        long cellId = GeoGrid.cellId(lat, lng, GeoGrid.REGION_ZOOM);
+        if (previous.cellId() != null && previous.cellId() == cellId) {
+            return;
+        }
+        remove(previous);
+        put(new Standing(previous.workerId(), previous.userId(), previous.name(), previous.ratingAvg(),
+                previous.ratingCount(), previous.completedJobs(), cellId, previous.skills()));
+    }
+
+    public List<Map<String, Object>> top(Double lat, Double lng, String skill, int limit) {
+        Long cellId = lat != null && lng != null ? GeoGrid.cellId(lat, lng, GeoGrid.REGION_ZOOM) : null;
+        String skillKey = skill != null && !skill.isBlank() ? normalizeSkill(skill) : null;
+        String key;
+        if (cellId != null) {
+            key = skillKey != null ? cellSkillKey(cellId, skillKey) : cellKey(cellId);
+        } else {
+            key = skillKey != null ? skillBoardKey(skillKey) : GLOBAL;
+        }
+        ConcurrentSkipListSet<Standing> board = boards.get(key);
+        if (board == null) {
+            return List.of();
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>(limit);
+        Iterator<Standing> it = board.iterator();
+        while (it.hasNext() && result.size() < limit) {
+            Standing s = it.next();
+            Map<String, Object> m = new HashMap<>();
+            m.put("rank", result.size() + 1);
+            m.put("workerId", s.workerId());
+            m.put("userId", s.userId());
+            m.put("name", s.name());
+            m.put("ratingAvg", Math.round(s.ratingAvg() * 100) / 100.0);
+            m.put("ratingCount", s.ratingCount());
+            m.put("completedJobs", s.completedJobs());
+            result.add(m);
+        }
+        return result;
+    }
+
+    // The completed count is read and bumped under the same lock as the re-rank, so concurrent
+    // updates for one worker cannot lose an increment
+    private synchronized void update(WorkerProfile worker, long completedDelta) {
+        Standing previous = standings.get(worker.getId());
+        long completedJobs = previous != null
+                ? previous.completedJobs() + completedDelta
+                : jobAssignmentRepository.countByWorkerAndStatus(worker, AssignmentStatus.COMPLETED);
+        Standing standing = toStanding(worker, completedJobs);
+        if (previous != null) {
+            remove(previous);
+        }
+        put(standing);
+    }
+
+    private void remove(Standing standing) {
+        for (String key : keysFor(standing)) {
+            ConcurrentSkipListSet<Standing> board = boards.get(key);
+            if (board != null) {
+                board.remove(standing);
+            }
+        }
+    }
+
+    private void put(Standing standing) {
+        standings.put(standing.workerId(), standing);
+        workerIdsByUser.put(standing.userId(), standing.workerId());
+        for (String key : keysFor(standing)) {
+            boards.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(RANKING)).add(standing);
+        }
+    }
+
+    private static List<String> keysFor(Standing standing) {
+        List<String> keys = new ArrayList<>();
+        keys.add(GLOBAL);
+        if (standing.cellId() != null) {
+            keys.add(cellKey(standing.cellId()));
+        }
+        for (String skill : standing.skills()) {
+            keys.add(skillBoardKey(skill));
+            if (standing.cellId() != null) {
+                keys.add(cellSkillKey(standing.cellId(), skill));
+            }
+        }
+        return keys;
+    }
+
+    private static Standing toStanding(WorkerProfile worker, long completedJobs) {
+        int count = worker.getRatingCount() != null ? worker.getRatingCount() : 0;
+        long sum = worker.getRatingSum() != null ? worker.getRatingSum() : 0L;
+        Long cellId = worker.getLocationLat() != null && worker.getLocationLng() != null
+                ? GeoGrid.cellId(worker.getLocationLat().doubleValue(), worker.getLocationLng().doubleValue(), GeoGrid.REGION_ZOOM)
+                : null;
+        return new Standing(worker.getId(), worker.getUser().getId(), worker.getUser().getName(),
+                count > 0 ? sum / (double) count : 0.0, count, completedJobs, cellId, parseSkills(worker.getSkills()));
+    }
+
+    private static Set<String> parseSkills(String skills) {
+        Set<String> parsed = new LinkedHashSet<>();
+        if (skills == null) {
+            return parsed;
+        }
+        for (String skill : skills.split("[,;|/]")) {
+            String key = normalizeSkill(skill);
+            if (!key.isEmpty()) {
+                parsed.add(key);
+            }
+        }
+        return parsed;
+    }
+
+    private static String normalizeSkill(String skill) {
+        return skill.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String cellKey(long cellId) {
+        return "cell:" + cellId;
+    }
+
+    private static String skillBoardKey(String skill) {
+        return "skill:" + skill;
+    }
+
+    private static String cellSkillKey(long cellId, String skill) {
+        return "cell:" + cellId + ":skill:" + skill;
+    }
+}
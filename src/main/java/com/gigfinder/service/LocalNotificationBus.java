@@ -0,0 +1,55 @@
+package com.gigfinder.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-node bus: frames go straight to this node's handler. The default, and all that is
+ * needed while only one node serves WebSocket traffic.
+ */
+@Component
+@ConditionalOnProperty(name = "gigfinder.bus.type", havingValue = "local", matchIfMissing = true)
+public class LocalNotificationBus implements NotificationBus {
+
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+    private final AtomicLong published = new AtomicLong();
+
+    @Override
+    public void subscribe(String destination, Handler handler) {
+        handlers.put(destination, handler);
+    }
+
+    @Override
+    public void publish(Long userId, String destination, Map<String, Object> frame) {
+        published.incrementAndGet();
+        Handler handler = handlers.get(destination);
+        if (handler != null) {
+            handler.deliver(userId, frame, true);
+        }
+    }
+
+    // Callers hold the stream lock and this node is the only one issuing
+    @Override
+    public long nextSeq(Long userId, long lastSeen) {
+        return lastSeen + 1;
+    }
+
+    // Likewise under the conversation lock
+    @Override
+    public long nextConversationSeq(Long conversationId, long lastSeen) {
+        return lastSeen + 1;
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("type", "local");
+        stats.put("published", published.get());
+        return stats;
+    }
+}
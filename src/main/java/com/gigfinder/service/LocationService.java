@@ -0,0 +1,227 @@
+package com.gigfinder.service;
+
+import com.gigfinder.dto.LocationDTO;
+import com.gigfinder.event.JobStatusChangedEvent;
+import com.gigfinder.repository.JobAssignmentRepository;
+import com.gigfinder.repository.WorkerProfileRepository;
+import com.gigfinder.util.PositionTable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live worker positions. Workers stream GPS points over STOMP; the latest point per worker is
+ * kept off-heap in a {@link PositionTable}, relayed to the client of the worker's active job
+ * on {@code /user/queue/location} at most once per relay interval, and written to the workers
+ * table in batches at most once per persist interval per worker. A point that arrives inside
+ * the relay interval is held back and relayed when the interval closes, so the client always
+ * ends up with the worker's latest position.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LocationService {
+
+    public static final String CLIENT_QUEUE = "/queue/location";
+
+    private static final int PERSIST_BATCH = 500;
+    private static final int RELAY_BATCH = 500;
+    private static final long TARGET_TTL_MS = 60_000;
+
+    private final JobAssignmentRepository jobAssignmentRepository;
+    private final WorkerProfileRepository workerProfileRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final UserSessionRegistry sessionRegistry;
+    private final PresenceService presenceService;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationBus notificationBus;
+    private final LeaderboardService leaderboardService;
+
+    @Value("${gigfinder.location.relay-interval-ms:2000}")
+    private long relayIntervalMs;
+
+    @Value("${gigfinder.location.persist-interval-ms:30000}")
+    private long persistIntervalMs;
+
+    // Who a worker's points go to; clientUserId is null while the worker has no active job
+    private record RelayTarget(Long jobId, Long clientUserId, long resolvedAt) {}
+
+    private final PositionTable positions = new PositionTable(1024);
+    private final Map<Long, RelayTarget> targets = new ConcurrentHashMap<>();
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong relayed = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        notificationBus.subscribe(CLIENT_QUEUE, (clientUserId, frame, local) -> {
+            if (sessionRegistry.isOnline(clientUserId)) {
+                messagingTemplate.convertAndSendToUser(String.valueOf(clientUserId), CLIENT_QUEUE, frame);
+                relayed.incrementAndGet();
+            }
+        });
+    }
+
+    public void report(Long workerUserId, LocationDTO point) {
+        if (point.getLat() == null || point.getLng() == null
+                || Math.abs(point.getLat()) > 90 || Math.abs(point.getLng()) > 180) {
+            throw new RuntimeException("Invalid coordinates");
+        }
+        received.incrementAndGet();
+        long now = System.currentTimeMillis();
+        long recordedAt = point.getRecordedAt() != null ? Math.min(point.getRecordedAt(), now) : now;
+        float speed = point.getSpeed() != null ? point.getSpeed() : Float.NaN;
+        float heading = point.getHeading() != null ? point.getHeading() : Float.NaN;
+
+        // Points can arrive out of order across inbound threads; older ones are dropped
+        if (!positions.put(workerUserId, point.getLat(), point.getLng(), speed, heading, recordedAt)) {
+            stale.incrementAndGet();
+            return;
+        }
+        presenceService.updateLocation(workerUserId, point.getLat(), point.getLng());
+        if (positions.tryRelay(workerUserId, now, relayIntervalMs)) {
+            relay(workerUserId, now);
+        }
+    }
+
+    /** Starts relaying to {@code clientUserId} straight away, e.g. when the worker sets off. */
+    public void track(Long workerUserId, Long jobId, Long clientUserId) {
+        targets.put(workerUserId, new RelayTarget(jobId, clientUserId, System.currentTimeMillis()));
+    }
+
+    /** Latest known position as {lat, lng, recordedAt, speed, heading}, or null. */
+    public double[] latest(Long workerUserId) {
+        double[] out = new double[5];
+        return positions.get(workerUserId, out) ? out : null;
+    }
+
+    @EventListener
+    public void onJobStatusChanged(JobStatusChangedEvent event) {
+        Long jobId = event.job().getId();
+        // Finished jobs stop relaying; a new assignment may give an idle worker a target
+        targets.values().removeIf(t -> t.clientUserId() == null || jobId.equals(t.jobId()));
+    }
+
+    // Trailing edge of the relay throttle: points held back by the interval go out once it has passed
+    @Scheduled(fixedDelayString = "${gigfinder.location.relay-flush-interval-ms:250}")
+    public void relayPending() {
+        long[] ids = new long[RELAY_BATCH];
+        long now = System.currentTimeMillis();
+        int count;
+        do {
+            count = positions.drainRelayDue(now, relayIntervalMs, ids);
+            for (int i = 0; i < count; i++) {
+                try {
+                    relay(ids[i], now);
+                } catch (Exception e) {
+                    log.warn("Could not relay location of worker {}", ids[i], e);
+                }
+            }
+        } while (count == RELAY_BATCH);
+    }
+
+    @Scheduled(fixedDelayString = "${gigfinder.location.flush-interval-ms:5000}")
+    public void persistDue() {
+        persist(persistIntervalMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persist(0);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("trackedWorkers", positions.size());
+        stats.put("offHeapBytes", positions.offHeapBytes());
+        stats.put("pointsReceived", received.get());
+        stats.put("pointsStale", stale.get());
+        stats.put("relayed", relayed.get());
+        stats.put("persisted", persisted.get());
+        return stats;
+    }
+
+    private void relay(Long workerUserId, long now) {
+        RelayTarget target = targets.get(workerUserId);
+        if (target == null || now - target.resolvedAt() > TARGET_TTL_MS) {
+            target = resolveTarget(workerUserId, now);
+            targets.put(workerUserId, target);
+        }
+        // The client may be connected to another node, so its sessions are checked where it is
+        if (target.clientUserId() == null) {
+            return;
+        }
+        double[] position = latest(workerUserId);
+        if (position == null) {
+            return;
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("jobId", target.jobId());
+        data.put("workerId", workerUserId);
+        data.put("lat", position[0]);
+        data.put("lng", position[1]);
+        data.put("recordedAt", (long) position[2]);
+        data.put("speed", Double.isNaN(position[3]) ? null : position[3]);
+        data.put("heading", Double.isNaN(position[4]) ? null : position[4]);
+        notificationBus.publish(target.clientUserId(), CLIENT_QUEUE, data);
+    }
+
+    private RelayTarget resolveTarget(Long workerUserId, long now) {
+        List<Object[]> rows = jobAssignmentRepository.findActiveJobClientsByWorkerUser(workerUserId);
+        if (rows.isEmpty()) {
+            return new RelayTarget(null, null, now);
+        }
+        return new RelayTarget((Long) rows.get(0)[0], (Long) rows.get(0)[1], now);
+    }
+
+    // One transaction per batch; a failed batch is logged and picked up again by the worker's next point
+    private synchronized void persist(long minIntervalMs) {
+        long[] ids = new long[PERSIST_BATCH];
+        double[] lats = new double[PERSIST_BATCH];
+        double[] lngs = new double[PERSIST_BATCH];
+        long now = System.currentTimeMillis();
+        int count;
+        do {
+            count = positions.drainDue(now, minIntervalMs, ids, lats, lngs);
+            if (count == 0) {
+                return;
+            }
+            int batchSize = count;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (int i = 0; i < batchSize; i++) {
+                        workerProfileRepository.updateLocationByUserId(ids[i], scaled(lats[i]), scaled(lngs[i]));
+                    }
+                });
+                persisted.addAndGet(batchSize);
+                for (int i = 0; i < batchSize; i++) {
+                    leaderboardService.relocate(ids[i], lats[i], lngs[i]);
+                }
+            } catch (Exception e) {
+                log.warn("Could not persist {} worker locations", batchSize, e);
+            }
+        } while (count == PERSIST_BATCH);
+    }
+
+    // Matches the precision of workers.location_lat/lng
+    private static BigDecimal scaled(double degrees) {
+        return BigDecimal.valueOf(degrees).setScale(6, RoundingMode.HALF_UP);
+    }
+}
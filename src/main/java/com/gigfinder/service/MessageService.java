@@ -1,16 +1,18 @@
 package com.gigfinder.service;
 
 import com.gigfinder.dto.MessageDTO;
-import com.gigfinder.model.Job;
+import com.gigfinder.model.Conversation;
 import com.gigfinder.model.Message;
 import com.gigfinder.model.User;
-import com.gigfinder.repository.JobRepository;
+import com.gigfinder.repository.ConversationRepository;
 import com.gigfinder.repository.MessageRepository;
 import com.gigfinder.repository.UserRepository;
 import com.gigfinder.util.SecurityUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,45 +20,69 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class MessageService {
     
+    // Keyset start for the first page; LocalDateTime.MAX is out of range for SQL timestamps
+    private static final LocalDateTime NO_CURSOR = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
-    private final JobRepository jobRepository;
+    private final ConversationRepository conversationRepository;
+    private final UnreadCounterService unreadCounterService;
+    private final ChatService chatService;
     
+    // REST fallback for clients without a STOMP session; same numbering and push as chat.send
     public Message sendMessage(MessageDTO messageDTO) {
         String username = SecurityUtil.getCurrentUsername();
         User sender = userRepository.findByEmail(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        User receiver = userRepository.findById(messageDTO.getReceiverId())
-                .orElseThrow(() -> new RuntimeException("Receiver not found"));
-        
-        Job job = null;
-        if (messageDTO.getJobId() != null) {
-            job = jobRepository.findById(messageDTO.getJobId())
-                    .orElseThrow(() -> new RuntimeException("Job not found"));
-        }
+        return chatService.send(sender.getId(), messageDTO, true);
+    }
+    
+    // Every thread with the other user (general and per-job), newest first, keyset-paged by (createdAt, id)
+    public List<Message> getConversation(Long userId, LocalDateTime before, Long beforeId, int limit) {
+        String username = SecurityUtil.getCurrentUsername();
+        User currentUser = userRepository.findByEmail(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
         
-        Message message = Message.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .job(job)
-                .content(messageDTO.getContent())
-                .messageType(messageDTO.getMessageType() != null ? messageDTO.getMessageType() : "TEXT")
-                .isRead(false)
-                .build();
+        User otherUser = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
         
-        return messageRepository.save(message);
+        List<Long> conversationIds = conversationRepository.findIdsByPair(
+                Math.min(currentUser.getId(), otherUser.getId()), Math.max(currentUser.getId(), otherUser.getId()));
+        if (conversationIds.isEmpty()) {
+            return List.of();
+        }
+        // Pick up messages still queued for the batch writer
+        chatService.flush();
+        return messageRepository.findHistoryAcross(conversationIds, before != null ? before : NO_CURSOR,
+                beforeId != null ? beforeId : Long.MAX_VALUE, PageRequest.of(0, limit));
     }
     
-    public List<Message> getConversation(Long userId) {
+    public List<Conversation> getInbox(LocalDateTime before, Long beforeId, int limit) {
         String username = SecurityUtil.getCurrentUsername();
         User currentUser = userRepository.findByEmail(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        User otherUser = userRepository.findById(userId)
+        chatService.flush();
+        return conversationRepository.findInbox(currentUser.getId(), before != null ? before : NO_CURSOR,
+                beforeId != null ? beforeId : Long.MAX_VALUE, PageRequest.of(0, limit));
+    }
+    
+    public List<Message> getConversationHistory(Long conversationId, LocalDateTime before, Long beforeId, int limit) {
+        String username = SecurityUtil.getCurrentUsername();
+        User currentUser = userRepository.findByEmail(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        return messageRepository.findConversationBetweenUsers(currentUser, otherUser);
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new RuntimeException("Conversation not found"));
+        if (!conversation.getUserLow().getId().equals(currentUser.getId())
+                && !conversation.getUserHigh().getId().equals(currentUser.getId())) {
+            throw new RuntimeException("Not authorized to view this conversation");
+        }
+        
+        chatService.flush();
+        return messageRepository.findHistory(conversationId, before != null ? before : NO_CURSOR,
+                beforeId != null ? beforeId : Long.MAX_VALUE, PageRequest.of(0, limit));
     }
     
     public List<Message> getReceivedMessages() {
@@ -75,6 +101,7 @@ public class MessageService {
         return messageRepository.findBySenderOrderByCreatedAtDesc(currentUser);
     }
     
+    // Reading a message reads everything before it in its conversation
     public Message markAsRead(Long messageId) {
         String username = SecurityUtil.getCurrentUsername();
         User currentUser = userRepository.findByEmail(username)
@@ -88,8 +115,15 @@ public class MessageService {
             throw new RuntimeException("Not authorized to mark this message as read");
         }
         
-        message.setIsRead(true);
-        return messageRepository.save(message);
+        if (message.getConversation() != null) {
+            chatService.markReadUpTo(message.getConversation().getId(), currentUser.getId(), message.getConversationSeq());
+        } else if (!Boolean.TRUE.equals(message.getIsRead())) {
+            // Not filed into a conversation yet, so there is no watermark to move
+            message.setIsRead(true);
+            message = messageRepository.save(message);
+            unreadCounterService.messagesChanged(currentUser.getId(), -1);
+        }
+        return message;
     }
     
     public Long getUnreadCount() {
@@ -97,6 +131,6 @@ public class MessageService {
         User currentUser = userRepository.findByEmail(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        return messageRepository.countUnreadMessagesByReceiver(currentUser);
+        return (long) unreadCounterService.counts(currentUser.getId()).messages();
     }
 }
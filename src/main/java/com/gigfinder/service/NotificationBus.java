@@ -0,0 +1,34 @@
+package com.gigfinder.service;
+
+import java.util.Map;
+
+/**
+ * Fans per-user frames out to every node. Publishers hand a frame to the bus instead of the
+ * broker; each node runs the handler registered for the frame's destination, which delivers to
+ * the sessions connected to that node. Select the implementation with {@code gigfinder.bus.type}.
+ */
+public interface NotificationBus {
+
+    @FunctionalInterface
+    interface Handler {
+        /** {@code local} is true on the node that published the frame. */
+        void deliver(Long userId, Map<String, Object> frame, boolean local);
+    }
+
+    /** Routes frames for {@code destination} to {@code handler} on this node. */
+    void subscribe(String destination, Handler handler);
+
+    /** Delivers on this node before returning, then reaches the other nodes asynchronously. */
+    void publish(Long userId, String destination, Map<String, Object> frame);
+
+    /**
+     * Issues the next seq of the user's push stream; {@code lastSeen} is the highest seq this node
+     * has seen on it. Seqs are unique across every node the bus connects.
+     */
+    long nextSeq(Long userId, long lastSeen);
+
+    /** Issues the next message seq of a chat conversation, with the same guarantee as {@link #nextSeq}. */
+    long nextConversationSeq(Long conversationId, long lastSeen);
+
+    Map<String, Object> stats();
+}
@@ -0,0 +1,224 @@
+package com.gigfinder.service;
+
+import com.gigfinder.model.enums.ArchiveReason;
+import com.gigfinder.repository.NotificationArchiveRepository;
+import com.gigfinder.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the notifications table small. Each run moves rows to notifications_archive in three
+ * phases: read notifications older than the retention age, the oldest rows of users over the
+ * per-user cap, and older unread repeats of a title, which are folded into the newest one's
+ * collapsed count. Work is done one chunk per tick, each in its own short transaction, so a run
+ * never holds locks for long or occupies the shared scheduler thread.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationRetentionService {
+
+    // Users or repeat groups picked up per run; the rest wait for the next one
+    private static final int GROUPS_PER_RUN = 1000;
+
+    private enum Phase { IDLE, AGED, CAPPED, COLLAPSED }
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationArchiveRepository archiveRepository;
+    private final UnreadCounterService unreadCounterService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${gigfinder.notifications.retention.archive-after-days:30}")
+    private int archiveAfterDays;
+
+    @Value("${gigfinder.notifications.retention.max-per-user:200}")
+    private int maxPerUser;
+
+    @Value("${gigfinder.notifications.retention.batch-size:500}")
+    private int batchSize;
+
+    @Value("${gigfinder.notifications.retention.run-interval-ms:3600000}")
+    private long runIntervalMs;
+
+    @Value("${gigfinder.notifications.retention.archive-keep-days:365}")
+    private int archiveKeepDays;
+
+    // Run state, only touched by tick()
+    private Phase phase = Phase.IDLE;
+    private long nextRunAt;
+    private LocalDateTime runStartedAt;
+    private Deque<Long> usersOverCap;
+    private Deque<Object[]> repeatGroups;
+
+    private volatile boolean runRequested;
+    private volatile String currentPhase = Phase.IDLE.name();
+    private volatile LocalDateTime lastRunFinishedAt;
+    private final AtomicLong aged = new AtomicLong();
+    private final AtomicLong capped = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+
+    @Scheduled(fixedDelayString = "${gigfinder.notifications.retention.chunk-interval-ms:500}")
+    public void tick() {
+        if (phase == Phase.IDLE) {
+            if (!runRequested && System.currentTimeMillis() < nextRunAt) {
+                return;
+            }
+            runRequested = false;
+            runStartedAt = LocalDateTime.now();
+            enter(Phase.AGED);
+        }
+        try {
+            boolean more = switch (phase) {
+                case AGED -> archiveAgedChunk();
+                case CAPPED -> capChunk();
+                case COLLAPSED -> collapseChunk();
+                case IDLE -> false;
+            };
+            if (more) {
+                chunks.incrementAndGet();
+            } else {
+                enter(phase == Phase.AGED ? Phase.CAPPED : phase == Phase.CAPPED ? Phase.COLLAPSED : Phase.IDLE);
+            }
+        } catch (Exception e) {
+            // Abandon the run; everything done so far is committed and the next run picks up the rest
+            log.warn("Notification retention failed in phase {}", phase, e);
+            enter(Phase.IDLE);
+        }
+    }
+
+    /** Starts a run on the next tick instead of waiting for the run interval. */
+    public void requestRun() {
+        runRequested = true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("phase", currentPhase);
+        stats.put("archivedAged", aged.get());
+        stats.put("archivedCapped", capped.get());
+        stats.put("collapsed", collapsed.get());
+        stats.put("chunks", chunks.get());
+        stats.put("lastRunFinishedAt", lastRunFinishedAt);
+        stats.put("live", notificationRepository.count());
+        stats.put("archived", archiveRepository.count());
+        return stats;
+    }
+
+    @Scheduled(cron = "0 45 3 * * *")
+    public void purgeArchive() {
+        int deleted = archiveRepository.deleteArchivedBefore(LocalDateTime.now().minusDays(archiveKeepDays));
+        if (deleted > 0) {
+            log.info("Purged {} archived notifications older than {} days", deleted, archiveKeepDays);
+        }
+    }
+
+    private void enter(Phase next) {
+        if (next == Phase.IDLE && phase != Phase.IDLE) {
+            nextRunAt = System.currentTimeMillis() + runIntervalMs;
+            lastRunFinishedAt = LocalDateTime.now();
+            usersOverCap = null;
+            repeatGroups = null;
+        }
+        phase = next;
+        currentPhase = next.name();
+    }
+
+    // Read rows of every user; ids are re-queried each chunk because archived rows leave the table
+    private boolean archiveAgedChunk() {
+        List<Long> ids = notificationRepository.findReadIdsCreatedBefore(
+                runStartedAt.minusDays(archiveAfterDays), PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            notificationRepository.archive(ids, Long.MAX_VALUE, ArchiveReason.AGED, now);
+            notificationRepository.deleteByIds(ids);
+        });
+        aged.addAndGet(ids.size());
+        return ids.size() == batchSize;
+    }
+
+    // Oldest rows of one user beyond the cap, read or not; unread ones come off the badge count
+    private boolean capChunk() {
+        if (usersOverCap == null) {
+            usersOverCap = new ArrayDeque<>(notificationRepository.findUserIdsOverCap(maxPerUser, PageRequest.of(0, GROUPS_PER_RUN)));
+        }
+        Long userId = usersOverCap.peek();
+        if (userId == null) {
+            return false;
+        }
+        // The newest row past the cap; it and everything older goes
+        List<Long> boundary = notificationRepository.findIdsByUserNewestFirst(userId, PageRequest.of(maxPerUser, 1));
+        List<Long> ids = boundary.isEmpty() ? List.of()
+                : notificationRepository.findIdsByUserUpTo(userId, boundary.get(0), PageRequest.of(0, batchSize));
+        if (ids.size() < batchSize) {
+            usersOverCap.poll();
+        }
+        if (ids.isEmpty()) {
+            return true;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        long watermark = unreadCounterService.notificationWatermark(userId);
+        transactionTemplate.executeWithoutResult(status -> {
+            int unread = (int) notificationRepository.countUnreadIn(ids, watermark);
+            notificationRepository.archive(ids, watermark, ArchiveReason.CAPPED, now);
+            notificationRepository.deleteByIds(ids);
+            if (unread > 0) {
+                unreadCounterService.notificationsChanged(userId, -unread);
+            }
+        });
+        capped.addAndGet(ids.size());
+        return true;
+    }
+
+    // Unread repeats of one (user, title) below the newest, which absorbs their count
+    private boolean collapseChunk() {
+        if (repeatGroups == null) {
+            repeatGroups = new ArrayDeque<>(notificationRepository.findUnreadRepeats(PageRequest.of(0, GROUPS_PER_RUN)));
+        }
+        Object[] group = repeatGroups.peek();
+        if (group == null) {
+            return false;
+        }
+        Long userId = (Long) group[0];
+        String title = (String) group[1];
+        Long keepId = (Long) group[2];
+        long watermark = unreadCounterService.notificationWatermark(userId);
+        List<Long> ids = notificationRepository.findUnreadRepeatIds(userId, title, watermark, keepId, PageRequest.of(0, batchSize));
+        if (ids.size() < batchSize) {
+            repeatGroups.poll();
+        }
+        if (ids.isEmpty()) {
+            return true;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            // Rows read since the ids were listed are still folded in, but only unread ones leave the badge
+            int unread = (int) notificationRepository.countUnreadIn(ids, watermark);
+            long folded = notificationRepository.sumCollapsedIn(ids);
+            notificationRepository.archive(ids, watermark, ArchiveReason.COLLAPSED, now);
+            notificationRepository.deleteByIds(ids);
+            notificationRepository.addCollapsed(keepId, (int) (ids.size() + folded));
+            if (unread > 0) {
+                unreadCounterService.notificationsChanged(userId, -unread);
+            }
+        });
+        collapsed.addAndGet(ids.size());
+        return true;
+    }
+}
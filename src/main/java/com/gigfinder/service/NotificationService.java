@@ -1,23 +1,109 @@
 package com.gigfinder.service;
 
+import com.gigfinder.event.NotificationSentEvent;
+import com.gigfinder.model.Notification;
+import com.gigfinder.model.NotificationArchive;
+import com.gigfinder.model.User;
+import com.gigfinder.repository.NotificationArchiveRepository;
+import com.gigfinder.repository.NotificationRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
     
-    private final SimpMessagingTemplate messagingTemplate;
+    private final UserPushService userPushService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NotificationRepository notificationRepository;
+    private final UnreadCounterService unreadCounterService;
+    private final NotificationArchiveRepository notificationArchiveRepository;
+
+    private static final int MAX_PAGE = 100;
+
+    // All stored notifications go through here so the unread counter moves with them
+    @Transactional
+    public Notification create(User user, String title, String message) {
+        Notification saved = notificationRepository.save(Notification.builder()
+                .user(user)
+                .title(title)
+                .message(message)
+                .readStatus(false)
+                .createdAt(LocalDateTime.now())
+                .build());
+        unreadCounterService.notificationsChanged(user.getId(), 1);
+        return saved;
+    }
+
+    // Newest first, a page at a time: pass the last id of the previous page as beforeId
+    public List<Notification> getNotifications(User user, Long beforeId, int limit) {
+        return notificationRepository.findForUser(user, unreadCounterService.notificationWatermark(user.getId()),
+                beforeId != null ? beforeId : Long.MAX_VALUE, PageRequest.of(0, clampLimit(limit)));
+    }
+
+    // Notifications the retention job moved out of the live table
+    public List<NotificationArchive> getArchived(User user, Long beforeId, int limit) {
+        return notificationArchiveRepository.findForUser(user.getId(), beforeId != null ? beforeId : Long.MAX_VALUE,
+                PageRequest.of(0, clampLimit(limit)));
+    }
+
+    public List<Notification> getUnread(User user) {
+        return notificationRepository.findUnreadForUser(user, unreadCounterService.notificationWatermark(user.getId()));
+    }
+
+    @Transactional
+    public int markRead(User user, Long notificationId) {
+        long watermark = unreadCounterService.notificationWatermark(user.getId());
+        int updated = notificationRepository.markAsRead(user, notificationId, watermark);
+        if (updated > 0) {
+            unreadCounterService.notificationsChanged(user.getId(), -updated);
+        }
+        return updated;
+    }
+
+    // Everything up to upToId becomes read by moving the watermark; the notification rows are not touched
+    @Transactional
+    public int markReadUpTo(User user, Long upToId) {
+        // Never past the user's newest notification, or later ones would arrive already read
+        Long latest = notificationRepository.findMaxIdByUser(user);
+        if (upToId == null || latest == null) {
+            return 0;
+        }
+        upToId = Math.min(upToId, latest);
+        long watermark = unreadCounterService.notificationWatermark(user.getId());
+        if (upToId <= watermark) {
+            return 0;
+        }
+        int unreadBefore = unreadCounterService.counts(user.getId()).notifications();
+        int remaining = (int) notificationRepository.countUnreadAfter(user, upToId);
+        if (!unreadCounterService.notificationsReadUpTo(user.getId(), upToId, remaining)) {
+            return 0;
+        }
+        return Math.max(unreadBefore - remaining, 0);
+    }
+
+    @Transactional
+    public int markAllRead(User user) {
+        return markReadUpTo(user, Long.MAX_VALUE);
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE));
+    }
     
     public void sendJobNotification(Long userId, String type, Map<String, Object> data) {
-        messagingTemplate.convertAndSend("/topic/user/" + userId, Map.of(
-            "type", type,
-            "data", data,
-            "timestamp", System.currentTimeMillis()
-        ));
+        userPushService.send(userId, type, data);
+        eventPublisher.publishEvent(new NotificationSentEvent(userId, type, data));
     }
     
     public void sendJobAccepted(Long clientId, Long jobId, String workerName) {
@@ -35,6 +121,19 @@ public class NotificationService {
         ));
     }
     
+    public void sendWorkerOnTheWay(Long clientId, Long jobId, String workerName, Map<String, Object> eta) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("jobId", jobId);
+        data.put("workerName", workerName);
+        String message = workerName + " is on the way";
+        if (eta != null) {
+            data.put("eta", eta);
+            message += " (about " + Math.max(1, Math.round(((Number) eta.get("etaSeconds")).longValue() / 60.0)) + " min)";
+        }
+        data.put("message", message);
+        sendJobNotification(clientId, "WORKER_ON_THE_WAY", data);
+    }
+    
     public void sendJobCompleted(Long clientId, Long jobId) {
         sendJobNotification(clientId, "JOB_COMPLETED", Map.of(
             "jobId", jobId,
@@ -49,4 +148,22 @@ public class NotificationService {
             "message", "New job available: " + jobTitle
         ));
     }
+    
+    public void sendPaymentCompleted(Long clientId, Long paymentId, Long jobId, BigDecimal amount) {
+        sendJobNotification(clientId, "PAYMENT_COMPLETED", Map.of(
+            "paymentId", paymentId,
+            "jobId", jobId,
+            "amount", amount,
+            "message", "Your payment of " + amount + " was successful"
+        ));
+    }
+    
+    public void sendPaymentFailed(Long clientId, Long paymentId, Long jobId, String reason) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("paymentId", paymentId);
+        data.put("jobId", jobId);
+        data.put("reason", reason);
+        data.put("message", "Your payment failed" + (reason != null ? ": " + reason : ""));
+        sendJobNotification(clientId, "PAYMENT_FAILED", data);
+    }
 }
@@ -0,0 +1,30 @@
+package com.gigfinder.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Charges payments with an external provider. Calls may block for seconds, so they are made by
+ * {@link PaymentPipeline} off the request threads. Select the implementation with
+ * {@code gigfinder.payments.gateway.type}.
+ */
+public interface PaymentGateway {
+
+    enum Outcome {
+        APPROVED,
+        // Final: the provider refused the charge
+        DECLINED,
+        // Transient: nothing was decided and the charge may be retried
+        UNAVAILABLE
+    }
+
+    record Result(Outcome outcome, String reference, String message) {}
+
+    /**
+     * Charges at most once per {@code idempotencyKey}: repeating a key after an approval or a
+     * decline returns that decision rather than charging again.
+     */
+    Result charge(String idempotencyKey, BigDecimal amount, String paymentMethod);
+
+    Map<String, Object> stats();
+}
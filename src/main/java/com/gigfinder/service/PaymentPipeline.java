@@ -0,0 +1,197 @@
+package com.gigfinder.service;
+
+import com.gigfinder.event.PaymentStatusChangedEvent;
+import com.gigfinder.model.Payment;
+import com.gigfinder.model.enums.PaymentStatus;
+import com.gigfinder.repository.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs payments through the gateway off the request threads. Submitting moves a payment from
+ * PENDING to PROCESSING and queues its first attempt on a bounded worker pool; the payments
+ * table is the durable queue behind it. A PROCESSING payment carries the time it is next due:
+ * its retry time after a transient gateway failure, or the end of the lease held by the attempt
+ * in flight. The dispatcher claims due payments, so retries, attempts lost to a restart and
+ * attempts that outlive their lease are all picked up the same way. Every transition is a
+ * conditional update and the gateway call is keyed on the payment's transaction id, so a
+ * payment is charged and finished at most once. The client hears the outcome over WebSocket.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentPipeline {
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentGateway paymentGateway;
+    private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${gigfinder.payments.workers:8}")
+    private int workers;
+
+    @Value("${gigfinder.payments.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${gigfinder.payments.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${gigfinder.payments.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+
+    @Value("${gigfinder.payments.max-retry-backoff-ms:60000}")
+    private long maxRetryBackoffMs;
+
+    // Must outlast a gateway call, or a slow attempt is retried while still in flight
+    @Value("${gigfinder.payments.lease-ms:30000}")
+    private long leaseMs;
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "payment-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /** Starts processing a PENDING payment; false if it was in any other state. */
+    public boolean submit(Long paymentId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (paymentRepository.startProcessing(paymentId, PaymentStatus.PROCESSING, now, now.plus(leaseMs, ChronoUnit.MILLIS)) == 0) {
+            return false;
+        }
+        submitted.incrementAndGet();
+        dispatch(paymentId);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${gigfinder.payments.poll-interval-ms:500}")
+    public void dispatchDue() {
+        int free = queueCapacity - executor.getQueue().size();
+        if (free <= 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> due = paymentRepository.findDueIds(now, PageRequest.of(0, Math.min(free, 100)));
+        for (Long paymentId : due) {
+            if (paymentRepository.claimAttempt(paymentId, now, now.plus(leaseMs, ChronoUnit.MILLIS)) == 1) {
+                dispatch(paymentId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Attempts cut short here are claimed again once their lease runs out
+        executor.shutdownNow();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queued", executor.getQueue().size());
+        stats.put("inFlight", executor.getActiveCount());
+        stats.put("submitted", submitted.get());
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        stats.put("retried", retried.get());
+        stats.put("rejected", rejected.get());
+        stats.put("gateway", paymentGateway.stats());
+        return stats;
+    }
+
+    private void dispatch(Long paymentId) {
+        try {
+            executor.execute(() -> attempt(paymentId));
+        } catch (RejectedExecutionException e) {
+            // Queue full: make it due straight away so the dispatcher takes it once there is room
+            rejected.incrementAndGet();
+            paymentRepository.scheduleRetry(paymentId, LocalDateTime.now(), null, LocalDateTime.now());
+        }
+    }
+
+    private void attempt(Long paymentId) {
+        try {
+            Payment payment = paymentRepository.findById(paymentId).orElse(null);
+            if (payment == null || payment.getStatus() != PaymentStatus.PROCESSING) {
+                return;
+            }
+            PaymentGateway.Result result;
+            try {
+                result = paymentGateway.charge(payment.getTransactionId(), payment.getAmount(), payment.getPaymentMethod());
+            } catch (Exception e) {
+                result = new PaymentGateway.Result(PaymentGateway.Outcome.UNAVAILABLE, null, e.getMessage());
+            }
+            int attempts = payment.getAttempts() != null ? payment.getAttempts() : 1;
+            switch (result.outcome()) {
+                case APPROVED -> finish(paymentId, PaymentStatus.COMPLETED, result.reference(), null);
+                case DECLINED -> finish(paymentId, PaymentStatus.FAILED, null, result.message());
+                case UNAVAILABLE -> {
+                    if (attempts >= maxAttempts) {
+                        finish(paymentId, PaymentStatus.FAILED, null,
+                                "Payment gateway unavailable after " + attempts + " attempts: " + result.message());
+                    } else {
+                        LocalDateTime now = LocalDateTime.now();
+                        paymentRepository.scheduleRetry(paymentId, now.plus(backoffMs(attempts), ChronoUnit.MILLIS), result.message(), now);
+                        retried.incrementAndGet();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Left PROCESSING; the dispatcher retries it when the lease runs out
+            log.warn("Payment {} attempt failed", paymentId, e);
+        }
+    }
+
+    private void finish(Long paymentId, PaymentStatus outcome, String reference, String reason) {
+        LocalDateTime now = LocalDateTime.now();
+        if (paymentRepository.finishProcessing(paymentId, outcome, outcome == PaymentStatus.COMPLETED ? now : null,
+                reference, reason, now) == 0) {
+            return;
+        }
+        (outcome == PaymentStatus.COMPLETED ? completed : failed).incrementAndGet();
+        Payment payment = paymentRepository.findById(paymentId).orElseThrow();
+        eventPublisher.publishEvent(new PaymentStatusChangedEvent(payment, PaymentStatus.PROCESSING, outcome));
+        if (outcome == PaymentStatus.COMPLETED) {
+            notificationService.sendPaymentCompleted(payment.getClient().getId(), paymentId, payment.getJob().getId(), payment.getAmount());
+        } else {
+            notificationService.sendPaymentFailed(payment.getClient().getId(), paymentId, payment.getJob().getId(), reason);
+        }
+    }
+
+    // Exponential, capped, with the upper half jittered so retries of an outage spread out
+    private long backoffMs(int attempts) {
+        long delay = Math.min(maxRetryBackoffMs, retryBackoffMs << Math.min(attempts - 1, 20));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+}
@@ -4,17 +4,19 @@ import com.gigfinder.dto.PaymentRequestDTO;
 import com.gigfinder.dto.PaymentResponseDTO;
 import com.gigfinder.model.Job;
 import com.gigfinder.model.Payment;
+import com.gigfinder.model.Payout;
 import com.gigfinder.model.User;
 import com.gigfinder.model.enums.PaymentStatus;
 import com.gigfinder.repository.JobRepository;
 import com.gigfinder.repository.PaymentRepository;
+import com.gigfinder.repository.PayoutRepository;
 import com.gigfinder.repository.JobAssignmentRepository;
 import com.gigfinder.repository.UserRepository;
 import com.gigfinder.util.SecurityUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -25,9 +27,11 @@ import java.util.stream.Collectors;
 public class PaymentService {
     
     private final PaymentRepository paymentRepository;
+    private final PayoutRepository payoutRepository;
     private final JobRepository jobRepository;
     private final JobAssignmentRepository jobAssignmentRepository;
     private final UserRepository userRepository;
+    private final PaymentPipeline paymentPipeline;
     
     public PaymentResponseDTO createPayment(PaymentRequestDTO paymentRequest) {
         String username = SecurityUtil.getCurrentUsername();
@@ -66,28 +70,16 @@ public class PaymentService {
         return convertToPaymentResponseDTO(savedPayment);
     }
     
+    // Hands the payment to the pipeline and returns straight away; the outcome is pushed to the
+    // client. Repeating the request for a payment already under way just reports its state.
     public PaymentResponseDTO processPayment(Long paymentId) {
+        if (!paymentRepository.existsById(paymentId)) {
+            throw new RuntimeException("Payment not found");
+        }
+        paymentPipeline.submit(paymentId);
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
-        
-        // Simulate payment processing
-        try {
-            // In a real application, this would integrate with a payment gateway
-            payment.setStatus(PaymentStatus.PROCESSING);
-            paymentRepository.save(payment);
-            
-            // Simulate successful payment
-            payment.setStatus(PaymentStatus.COMPLETED);
-            payment.setPaymentDate(LocalDateTime.now());
-            Payment savedPayment = paymentRepository.save(payment);
-            
-            return convertToPaymentResponseDTO(savedPayment);
-        } catch (Exception e) {
-            payment.setStatus(PaymentStatus.FAILED);
-            payment.setFailureReason(e.getMessage());
-            paymentRepository.save(payment);
-            throw new RuntimeException("Payment processing failed: " + e.getMessage());
-        }
+        return convertToPaymentResponseDTO(payment);
     }
     
     public List<PaymentResponseDTO> getClientPayments() {
@@ -110,6 +102,15 @@ public class PaymentService {
                 .collect(Collectors.toList());
     }
     
+    // Settlement payouts of the current worker, newest first
+    public List<Payout> getWorkerPayouts(Long beforeId, int limit) {
+        String username = SecurityUtil.getCurrentUsername();
+        User currentUser = userRepository.findByEmail(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return payoutRepository.findForWorker(currentUser.getId(), beforeId != null ? beforeId : Long.MAX_VALUE,
+                PageRequest.of(0, Math.max(1, Math.min(limit, 100))));
+    }
+    
     public PaymentResponseDTO getPaymentById(Long paymentId) {
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
@@ -141,6 +142,8 @@ public class PaymentService {
         dto.setTransactionId(payment.getTransactionId());
         dto.setPaymentDate(payment.getPaymentDate());
         dto.setFailureReason(payment.getFailureReason());
+        dto.setAttempts(payment.getAttempts());
+        dto.setPayoutId(payment.getPayoutId());
         dto.setCreatedAt(payment.getCreatedAt());
         return dto;
     }
@@ -0,0 +1,280 @@
+package com.gigfinder.service;
+
+import com.gigfinder.repository.WorkerProfileRepository;
+import com.gigfinder.util.GeoGrid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Which workers have the app open, and where. A worker is online from STOMP CONNECT until its
+ * last session disconnects or sends nothing (heartbeats included) for longer than the timeout;
+ * liveness comes from {@link UserSessionRegistry#lastInbound}.
+ * Online workers are indexed by grid cell so dispatch can find the ones around a point without
+ * touching the database. Counts are published to admins on {@link #ADMIN_TOPIC}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PresenceService {
+
+    public static final String ADMIN_TOPIC = "/topic/admin/presence";
+
+    // ~10 km tall cells, so a 10 km dispatch radius covers a handful of them
+    public static final int CELL_ZOOM = 11;
+
+    private static final int SNAPSHOT_CELLS = 50;
+
+    private final WorkerProfileRepository workerProfileRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final UserSessionRegistry sessionRegistry;
+
+    @Value("${gigfinder.presence.timeout-ms:60000}")
+    private long timeoutMs;
+
+    // One online worker; sessions and cell only change inside byUser.compute for its id
+    private static final class Presence {
+        final Set<String> sessions = new HashSet<>();
+        Long cellId;
+        volatile double[] location;   // {lat, lng}, null if unknown
+        volatile long lastSeen;
+    }
+
+    private final Map<Long, Presence> byUser = new ConcurrentHashMap<>();
+    private final Map<String, Long> bySession = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> byCell = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private long publishedVersion = -1;
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        if (!(user instanceof Authentication auth) || auth.getAuthorities().stream()
+                .noneMatch(a -> "ROLE_WORKER".equals(a.getAuthority()))) {
+            return;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (sessionId == null) {
+            return;
+        }
+        Long userId = Long.valueOf(user.getName());
+        // Location comes from the profile until the worker streams a fresher one
+        double[] location = byUser.containsKey(userId) ? null : profileLocation(userId);
+        Long cellId = location != null ? GeoGrid.cellId(location[0], location[1], CELL_ZOOM) : null;
+        long now = System.currentTimeMillis();
+        bySession.put(sessionId, userId);
+        byUser.compute(userId, (id, presence) -> {
+            if (presence == null) {
+                presence = new Presence();
+                presence.cellId = cellId;
+                presence.location = location;
+                addToCell(cellId, id);
+            }
+            presence.sessions.add(sessionId);
+            presence.lastSeen = now;
+            return presence;
+        });
+        version.incrementAndGet();
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        leave(event.getSessionId());
+    }
+
+    /** Moves an online worker to the cell of a new location; ignored for workers that are offline. */
+    public void updateLocation(Long userId, double lat, double lng) {
+        long cellId = GeoGrid.cellId(lat, lng, CELL_ZOOM);
+        byUser.computeIfPresent(userId, (id, presence) -> {
+            presence.location = new double[]{lat, lng};
+            if (presence.cellId == null || presence.cellId != cellId) {
+                removeFromCell(presence.cellId, id);
+                presence.cellId = cellId;
+                addToCell(cellId, id);
+                version.incrementAndGet();
+            }
+            return presence;
+        });
+    }
+
+    public boolean isOnline(Long userId) {
+        return byUser.containsKey(userId);
+    }
+
+    /** When the worker last sent anything on any session, or null if offline. */
+    public Long lastSeen(Long userId) {
+        Presence presence = byUser.get(userId);
+        return presence != null ? presence.lastSeen : null;
+    }
+
+    /** Last known location of an online worker as {lat, lng}, or null if offline or unknown. */
+    public double[] location(Long userId) {
+        Presence presence = byUser.get(userId);
+        return presence != null ? presence.location : null;
+    }
+
+    public int onlineWorkers() {
+        return byUser.size();
+    }
+
+    /**
+     * User ids of online workers in the cells overlapping a box of {@code radiusKm} around the
+     * point. Cell-granular: callers that need an exact radius still filter by distance.
+     */
+    public Set<Long> onlineWorkersNear(double lat, double lng, double radiusKm) {
+        double latDelta = radiusKm / 111.0;
+        double lngDelta = radiusKm / (111.0 * Math.max(0.01, Math.cos(Math.toRadians(lat))));
+        int minRow = GeoGrid.row(lat - latDelta, CELL_ZOOM);
+        int maxRow = GeoGrid.row(lat + latDelta, CELL_ZOOM);
+        int minCol = GeoGrid.column(lng - lngDelta, CELL_ZOOM);
+        int maxCol = GeoGrid.column(lng + lngDelta, CELL_ZOOM);
+
+        Set<Long> online = new HashSet<>();
+        long blockSize = (long) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (blockSize <= byCell.size()) {
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    Set<Long> users = byCell.get(GeoGrid.pack(CELL_ZOOM, row, col));
+                    if (users != null) {
+                        online.addAll(users);
+                    }
+                }
+            }
+        } else {
+            // Fewer occupied cells than cells in the box: scanning the occupied ones is cheaper
+            for (Map.Entry<Long, Set<Long>> entry : byCell.entrySet()) {
+                int row = GeoGrid.rowOf(entry.getKey());
+                int col = GeoGrid.columnOf(entry.getKey());
+                if (row >= minRow && row <= maxRow && col >= minCol && col <= maxCol) {
+                    online.addAll(entry.getValue());
+                }
+            }
+        }
+        return online;
+    }
+
+    public Map<String, Object> snapshot() {
+        List<Map<String, Object>> cells = new ArrayList<>();
+        for (Map.Entry<Long, Set<Long>> entry : byCell.entrySet()) {
+            int count = entry.getValue().size();
+            if (count > 0) {
+                double[] center = GeoGrid.center(entry.getKey());
+                Map<String, Object> cell = new HashMap<>();
+                cell.put("cellId", entry.getKey());
+                cell.put("lat", center[0]);
+                cell.put("lng", center[1]);
+                cell.put("online", count);
+                cells.add(cell);
+            }
+        }
+        cells.sort(Comparator.comparingInt((Map<String, Object> c) -> (Integer) c.get("online")).reversed());
+
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("onlineWorkers", byUser.size());
+        snapshot.put("workerSessions", bySession.size());
+        snapshot.put("occupiedCells", cells.size());
+        snapshot.put("cells", cells.size() > SNAPSHOT_CELLS ? cells.subList(0, SNAPSHOT_CELLS) : cells);
+        snapshot.put("timestamp", System.currentTimeMillis());
+        return snapshot;
+    }
+
+    // Refreshes last-seen times and drops sessions that went silent or whose disconnect was missed
+    @Scheduled(fixedDelayString = "${gigfinder.presence.sweep-interval-ms:15000}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - timeoutMs;
+        int expired = 0;
+        for (Map.Entry<String, Long> entry : bySession.entrySet()) {
+            Long seen = sessionRegistry.lastInbound(entry.getKey());
+            if (seen == null || seen < cutoff) {
+                leave(entry.getKey());
+                expired++;
+                continue;
+            }
+            Presence presence = byUser.get(entry.getValue());
+            if (presence != null && presence.lastSeen < seen) {
+                presence.lastSeen = seen;
+            }
+        }
+        if (expired > 0) {
+            log.info("Expired {} silent worker sessions", expired);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${gigfinder.presence.publish-interval-ms:5000}")
+    public void publishCounts() {
+        long current = version.get();
+        if (current == publishedVersion) {
+            return;
+        }
+        publishedVersion = current;
+        messagingTemplate.convertAndSend(ADMIN_TOPIC, snapshot());
+    }
+
+    private void leave(String sessionId) {
+        Long userId = bySession.remove(sessionId);
+        if (userId == null) {
+            return;
+        }
+        byUser.computeIfPresent(userId, (id, presence) -> {
+            presence.sessions.remove(sessionId);
+            if (!presence.sessions.isEmpty()) {
+                return presence;
+            }
+            removeFromCell(presence.cellId, id);
+            return null;
+        });
+        version.incrementAndGet();
+    }
+
+    // Both directions go through compute so an emptied cell is never dropped while being joined
+    private void addToCell(Long cellId, Long userId) {
+        if (cellId != null) {
+            byCell.compute(cellId, (c, users) -> {
+                Set<Long> members = users != null ? users : ConcurrentHashMap.newKeySet();
+                members.add(userId);
+                return members;
+            });
+        }
+    }
+
+    private void removeFromCell(Long cellId, Long userId) {
+        if (cellId != null) {
+            byCell.computeIfPresent(cellId, (c, users) -> {
+                users.remove(userId);
+                return users.isEmpty() ? null : users;
+            });
+        }
+    }
+
+    private double[] profileLocation(Long userId) {
+        try {
+            List<Object[]> rows = workerProfileRepository.findLocationByUserId(userId);
+            if (rows.isEmpty() || rows.get(0)[0] == null || rows.get(0)[1] == null) {
+                return null;
+            }
+            return new double[]{((Number) rows.get(0)[0]).doubleValue(), ((Number) rows.get(0)[1]).doubleValue()};
+        } catch (Exception e) {
+            log.warn("Could not load location for worker {}", userId, e);
+            return null;
+        }
+    }
+}
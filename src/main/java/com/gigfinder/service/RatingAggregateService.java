@@ -0,0 +1,204 @@
+package com.gigfinder.service;
+
+import com.gigfinder.event.RatingSubmittedEvent;
+import com.gigfinder.model.Rating;
+import com.gigfinder.model.WorkerProfile;
+import com.gigfinder.model.enums.Role;
+import com.gigfinder.repository.RatingRepository;
+import com.gigfinder.repository.WorkerProfileRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RatingAggregateService {
+
+    private static final long CHUNK_SIZE = 500;
+    private static final int BACKFILL_THREADS = 4;
+    // Weight of the platform-wide mean in the Bayesian average, in ratings
+    private static final int PRIOR_WEIGHT = 10;
+    private static final double DEFAULT_PRIOR_MEAN = 4.0;
+
+    // Taken before a chunk is recomputed: waits out ratings that already bumped one of its
+    // workers and holds back new increments until the recomputed values have committed
+    private static final String LOCK_CHUNK_SQL =
+            "SELECT \"id\" FROM \"workers\" WHERE \"id\" BETWEEN ? AND ? FOR UPDATE";
+
+    private final RatingRepository ratingRepository;
+    private final WorkerProfileRepository workerProfileRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "rating-backfill");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong workersUpdated = new AtomicLong();
+    private final AtomicLong globalSum = new AtomicLong();
+    private final AtomicLong globalCount = new AtomicLong();
+
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+
+    // Also re-read on a timer so ratings recorded on other nodes reach this node's prior
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${gigfinder.ratings.prior-refresh-interval-ms:300000}",
+            initialDelayString = "${gigfinder.ratings.prior-refresh-interval-ms:300000}")
+    public synchronized void loadGlobalTotals() {
+        List<Object[]> totals = workerProfileRepository.sumRatingTotals();
+        if (!totals.isEmpty()) {
+            globalSum.set(((Number) totals.get(0)[0]).longValue());
+            globalCount.set(((Number) totals.get(0)[1]).longValue());
+        }
+    }
+
+    // The rating row and the worker's aggregates commit together or not at all
+    @Transactional
+    public Rating recordRating(Rating rating) {
+        Rating saved = ratingRepository.save(rating);
+        workerProfileRepository.applyRating(rating.getReviewee().getId(), rating.getScore());
+        eventPublisher.publishEvent(new RatingSubmittedEvent(saved));
+        return saved;
+    }
+
+    // Platform totals move only once the rating has committed; ratings of clients are not counted
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRatingSubmitted(RatingSubmittedEvent event) {
+        Rating rating = event.rating();
+        if (rating.getReviewee().getRole() == Role.WORKER) {
+            globalSum.addAndGet(rating.getScore());
+            globalCount.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> summary(WorkerProfile worker) {
+        int count = worker.getRatingCount() != null ? worker.getRatingCount() : 0;
+        Map<Integer, Integer> histogram = new HashMap<>();
+        histogram.put(1, orZero(worker.getRating1Count()));
+        histogram.put(2, orZero(worker.getRating2Count()));
+        histogram.put(3, orZero(worker.getRating3Count()));
+        histogram.put(4, orZero(worker.getRating4Count()));
+        histogram.put(5, orZero(worker.getRating5Count()));
+
+        Map<String, Object> summary = new HashMap<>();
+        long sum = worker.getRatingSum() != null ? worker.getRatingSum() : 0L;
+        summary.put("averageRating", count > 0 ? round2(sum / (double) count) : 0.0);
+        summary.put("bayesianAverage", round2(bayesianAverage(sum, count)));
+        summary.put("totalRatings", (long) count);
+        summary.put("histogram", histogram);
+        return summary;
+    }
+
+    // Pulls workers with few ratings towards the platform mean so one 5-star review
+    // doesn't outrank a long track record
+    public double bayesianAverage(long sum, int count) {
+        long totalCount = globalCount.get();
+        double priorMean = totalCount > 0 ? globalSum.get() / (double) totalCount : DEFAULT_PRIOR_MEAN;
+        return (PRIOR_WEIGHT * priorMean + sum) / (PRIOR_WEIGHT + count);
+    }
+
+    public boolean startBackfill() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        workersUpdated.set(0);
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        executor.submit(() -> {
+            try {
+                backfill();
+            } catch (Exception e) {
+                log.error("Rating aggregate backfill failed", e);
+            } finally {
+                // Chunks that did commit moved the totals even if a later one failed
+                loadGlobalTotals();
+                finishedAt = LocalDateTime.now();
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public Map<String, Object> backfillStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", running.get());
+        status.put("workersUpdated", workersUpdated.get());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        return status;
+    }
+
+    // Splits the worker id range into fixed chunks and recomputes each chunk with one
+    // set-based UPDATE, several chunks at a time. Each chunk locks its worker rows first, so a
+    // concurrent rating is either visible to the recompute or applied on top of it, never lost
+    private void backfill() throws Exception {
+        List<Object[]> range = workerProfileRepository.findIdRange();
+        if (range.isEmpty() || range.get(0)[0] == null) {
+            return;
+        }
+        long minId = ((Number) range.get(0)[0]).longValue();
+        long maxId = ((Number) range.get(0)[1]).longValue();
+
+        ExecutorService pool = Executors.newFixedThreadPool(BACKFILL_THREADS);
+        try {
+            List<Future<?>> chunks = new ArrayList<>();
+            for (long from = minId; from <= maxId; from += CHUNK_SIZE) {
+                long lo = from;
+                long hi = Math.min(from + CHUNK_SIZE - 1, maxId);
+                chunks.add(pool.submit(() -> workersUpdated.addAndGet(recomputeChunk(lo, hi))));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        log.info("Rating aggregate backfill finished: {} workers updated", workersUpdated.get());
+    }
+
+    private int recomputeChunk(long fromId, long toId) {
+        Integer updated = transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForList(LOCK_CHUNK_SQL, Long.class, fromId, toId);
+            return workerProfileRepository.recomputeRatingAggregates(fromId, toId);
+        });
+        return updated != null ? updated : 0;
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
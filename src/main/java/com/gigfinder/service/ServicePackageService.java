@@ -16,6 +16,7 @@ public class ServicePackageService {
     
     private final ServicePackageRepository packageRepository;
     private final CategoryRepository categoryRepository;
+    private final SuggestService suggestService;
     
     public ServicePackage createPackage(ServicePackageDTO packageDTO) {
         Category category = null;
@@ -35,7 +36,9 @@ public class ServicePackageService {
                 .features(packageDTO.getFeatures())
                 .build();
         
-        return packageRepository.save(servicePackage);
+        ServicePackage saved = packageRepository.save(servicePackage);
+        suggestService.onPackageSaved(saved);
+        return saved;
     }
     
     public List<ServicePackage> getAllActivePackages() {
@@ -71,26 +74,33 @@ public class ServicePackageService {
         servicePackage.setPackageType(packageDTO.getPackageType());
         servicePackage.setFeatures(packageDTO.getFeatures());
         
-        return packageRepository.save(servicePackage);
+        ServicePackage saved = packageRepository.save(servicePackage);
+        suggestService.onPackageSaved(saved);
+        return saved;
     }
     
     public void deletePackage(Long packageId) {
         ServicePackage servicePackage = packageRepository.findById(packageId)
                 .orElseThrow(() -> new RuntimeException("Service package not found"));
         packageRepository.delete(servicePackage);
+        suggestService.onPackageDeleted(packageId);
     }
     
     public ServicePackage activatePackage(Long packageId) {
         ServicePackage servicePackage = packageRepository.findById(packageId)
                 .orElseThrow(() -> new RuntimeException("Service package not found"));
         servicePackage.setIsActive(true);
-        return packageRepository.save(servicePackage);
+        ServicePackage saved = packageRepository.save(servicePackage);
+        suggestService.onPackageSaved(saved);
+        return saved;
     }
     
     public ServicePackage deactivatePackage(Long packageId) {
         ServicePackage servicePackage = packageRepository.findById(packageId)
                 .orElseThrow(() -> new RuntimeException("Service package not found"));
         servicePackage.setIsActive(false);
-        return packageRepository.save(servicePackage);
+        ServicePackage saved = packageRepository.save(servicePackage);
+        suggestService.onPackageSaved(saved);
+        return saved;
     }
 }
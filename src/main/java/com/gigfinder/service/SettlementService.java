@@ -0,0 +1,236 @@
+package com.gigfinder.service;
+
+import com.gigfinder.model.SettlementRun;
+import com.gigfinder.model.enums.SettlementStatus;
+import com.gigfinder.model.enums.WalletTransactionType;
+import com.gigfinder.repository.PaymentRepository;
+import com.gigfinder.repository.SettlementRunRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pays completed payments out to workers' wallets. A run fixes a cutoff, streams the completed,
+ * unsettled payments before it in id order and sums them per worker in memory, then pays workers
+ * in ascending id order, a batch per transaction: one SETTLEMENT ledger credit and one payout per
+ * worker, each written as a JDBC batch, the batch's payments marked settled with a single update,
+ * and the run's checkpoint (last worker paid) advanced. Settled payments are never picked up again, so rerunning is safe;
+ * a run interrupted by a failure or restart rescans and carries on after its checkpoint.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SettlementService {
+
+    // Wait before resuming a run whose batch failed
+    private static final long RETRY_DELAY_MS = 60_000;
+
+    // Quoted to match the names Hibernate generates with globally quoted identifiers
+    private static final String INSERT_PAYOUT_SQL = "INSERT INTO \"payouts\" " +
+            "(\"run_id\", \"worker_id\", \"amount\", \"payment_count\", \"wallet_transaction_id\", \"created_at\") " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private enum Phase { IDLE, SCANNING, PAYING }
+
+    private final PaymentRepository paymentRepository;
+    private final SettlementRunRepository settlementRunRepository;
+    private final WalletService walletService;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${gigfinder.settlement.scan-batch-size:5000}")
+    private int scanBatchSize;
+
+    @Value("${gigfinder.settlement.workers-per-batch:200}")
+    private int workersPerBatch;
+
+    // Run state, only touched by tick(); owed holds {cents, payments} per worker user id
+    private Phase phase = Phase.IDLE;
+    private SettlementRun run;
+    private TreeMap<Long, long[]> owed;
+    private long scannedUpTo;
+
+    private volatile boolean runRequested;
+    private volatile long retryAt;
+    private volatile String currentPhase = Phase.IDLE.name();
+    private volatile Long currentRunId;
+    private volatile int workersPending;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    // A run left RUNNING by the previous process is resumed from its checkpoint
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        settlementRunRepository.findFirstByStatusOrderByIdDesc(SettlementStatus.RUNNING).ifPresent(r -> {
+            log.info("Resuming settlement run {} after worker {}", r.getId(), r.getLastWorkerId());
+            runRequested = true;
+        });
+    }
+
+    @Scheduled(cron = "${gigfinder.settlement.cron:0 30 2 * * *}")
+    public void nightly() {
+        requestRun();
+    }
+
+    /** Starts (or resumes) a run on the next tick. */
+    public void requestRun() {
+        retryAt = 0;
+        runRequested = true;
+    }
+
+    @Scheduled(fixedDelayString = "${gigfinder.settlement.chunk-interval-ms:200}")
+    public void tick() {
+        if (phase == Phase.IDLE) {
+            if (!runRequested || System.currentTimeMillis() < retryAt) {
+                return;
+            }
+            runRequested = false;
+        }
+        try {
+            if (phase == Phase.IDLE) {
+                begin();
+            }
+            boolean more = phase == Phase.SCANNING ? scanChunk() : payBatch();
+            if (!more) {
+                if (phase == Phase.SCANNING) {
+                    enter(Phase.PAYING);
+                } else {
+                    finish();
+                }
+            }
+        } catch (Exception e) {
+            // The run stays RUNNING; everything committed so far is behind its checkpoint
+            failures.incrementAndGet();
+            log.warn("Settlement run {} failed in phase {}; retrying in {} ms", currentRunId, phase, RETRY_DELAY_MS, e);
+            runRequested = true;
+            retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+            enter(Phase.IDLE);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("phase", currentPhase);
+        stats.put("runId", currentRunId);
+        stats.put("workersPending", workersPending);
+        stats.put("batches", batches.get());
+        stats.put("failures", failures.get());
+        stats.put("runs", settlementRunRepository.findTop20ByOrderByIdDesc());
+        return stats;
+    }
+
+    private void begin() {
+        run = settlementRunRepository.findFirstByStatusOrderByIdDesc(SettlementStatus.RUNNING)
+                .orElseGet(() -> settlementRunRepository.save(SettlementRun.builder()
+                        .cutoff(LocalDateTime.now())
+                        .status(SettlementStatus.RUNNING)
+                        .startedAt(LocalDateTime.now())
+                        .build()));
+        owed = new TreeMap<>();
+        scannedUpTo = 0;
+        currentRunId = run.getId();
+        enter(Phase.SCANNING);
+    }
+
+    private boolean scanChunk() {
+        List<Object[]> rows = paymentRepository.findUnsettledAfter(run.getCutoff(), scannedUpTo, PageRequest.of(0, scanBatchSize));
+        for (Object[] row : rows) {
+            scannedUpTo = (Long) row[0];
+            Long workerId = (Long) row[1];
+            // Workers behind the checkpoint were paid earlier in this run; late rows wait for the next one
+            if (workerId <= run.getLastWorkerId()) {
+                continue;
+            }
+            long[] total = owed.computeIfAbsent(workerId, id -> new long[2]);
+            total[0] += ((BigDecimal) row[2]).movePointRight(2).longValueExact();
+            total[1]++;
+        }
+        workersPending = owed.size();
+        return rows.size() == scanBatchSize;
+    }
+
+    private boolean payBatch() {
+        if (owed.isEmpty()) {
+            return false;
+        }
+        List<Long> workerIds = new ArrayList<>(workersPerBatch);
+        for (Long workerId : owed.keySet()) {
+            if (workerIds.size() == workersPerBatch) {
+                break;
+            }
+            workerIds.add(workerId);
+        }
+        Long runId = run.getId();
+        LocalDateTime now = LocalDateTime.now();
+        SettlementRun checkpoint = transactionTemplate.execute(status -> {
+            Map<Long, BigDecimal> amounts = new LinkedHashMap<>();
+            long cents = 0;
+            int payments = 0;
+            for (Long workerId : workerIds) {
+                long[] total = owed.get(workerId);
+                amounts.put(workerId, BigDecimal.valueOf(total[0], 2));
+                cents += total[0];
+                payments += (int) total[1];
+            }
+            Map<Long, Long> credits = walletService.creditAll(amounts, WalletTransactionType.SETTLEMENT, "settlement:" + runId);
+            List<Object[]> payouts = new ArrayList<>(workerIds.size());
+            for (Long workerId : workerIds) {
+                payouts.add(new Object[]{runId, workerId, amounts.get(workerId), (int) owed.get(workerId)[1], credits.get(workerId), now});
+            }
+            jdbcTemplate.batchUpdate(INSERT_PAYOUT_SQL, payouts);
+            // Anything refunded or completed late since the scan changes the count; roll back and rescan
+            int marked = paymentRepository.markSettled(runId, workerIds, run.getCutoff(), scannedUpTo, now);
+            if (marked != payments) {
+                throw new RuntimeException("Payments changed since the scan: expected " + payments + ", marked " + marked);
+            }
+            SettlementRun current = settlementRunRepository.findById(runId).orElseThrow();
+            current.setLastWorkerId(workerIds.get(workerIds.size() - 1));
+            current.setWorkersPaid(current.getWorkersPaid() + workerIds.size());
+            current.setPaymentsSettled(current.getPaymentsSettled() + payments);
+            current.setTotalAmount(current.getTotalAmount().add(BigDecimal.valueOf(cents, 2)));
+            return settlementRunRepository.save(current);
+        });
+        run = checkpoint;
+        workerIds.forEach(owed::remove);
+        workersPending = owed.size();
+        batches.incrementAndGet();
+        return true;
+    }
+
+    private void finish() {
+        run.setStatus(SettlementStatus.COMPLETED);
+        run.setFinishedAt(LocalDateTime.now());
+        run = settlementRunRepository.save(run);
+        log.info("Settlement run {} paid {} workers for {} payments, total {}",
+                run.getId(), run.getWorkersPaid(), run.getPaymentsSettled(), run.getTotalAmount());
+        enter(Phase.IDLE);
+    }
+
+    private void enter(Phase next) {
+        if (next == Phase.IDLE) {
+            run = null;
+            owed = null;
+            currentRunId = null;
+            workersPending = 0;
+        }
+        phase = next;
+        currentPhase = next.name();
+    }
+}
@@ -0,0 +1,92 @@
+package com.gigfinder.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for a payment provider. Each call sleeps for the configured latency (plus up
+ * to the same again as jitter), then is unavailable or declined at the configured rates and
+ * approved otherwise. Decisions are remembered per idempotency key like a real provider would.
+ * All rates default to zero; the dev profile sets demo ones. It never charges anyone, so under
+ * the cloud profile it refuses to start unless stub-allowed is set.
+ */
+@Component
+@ConditionalOnProperty(name = "gigfinder.payments.gateway.type", havingValue = "stub", matchIfMissing = true)
+@RequiredArgsConstructor
+public class StubPaymentGateway implements PaymentGateway {
+
+    private final Environment environment;
+
+    @Value("${gigfinder.payments.gateway.latency-ms:0}")
+    private long latencyMs;
+
+    @Value("${gigfinder.payments.gateway.failure-rate:0}")
+    private double failureRate;
+
+    @Value("${gigfinder.payments.gateway.decline-rate:0}")
+    private double declineRate;
+
+    @Value("${gigfinder.payments.gateway.stub-allowed:false}")
+    private boolean stubAllowed;
+
+    private final Map<String, Result> decisions = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong unavailable = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (environment.acceptsProfiles(Profiles.of("cloud")) && !stubAllowed) {
+            throw new IllegalStateException("The stub payment gateway is not for the cloud profile; configure a real gateway "
+                    + "or set gigfinder.payments.gateway.stub-allowed=true");
+        }
+    }
+
+    @Override
+    public Result charge(String idempotencyKey, BigDecimal amount, String paymentMethod) {
+        calls.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            Thread.sleep(latencyMs + (latencyMs > 0 ? random.nextLong(latencyMs + 1) : 0));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(Outcome.UNAVAILABLE, null, "Interrupted");
+        }
+        Result known = decisions.get(idempotencyKey);
+        if (known != null) {
+            return known;
+        }
+        double roll = random.nextDouble();
+        if (roll < failureRate) {
+            unavailable.incrementAndGet();
+            return new Result(Outcome.UNAVAILABLE, null, "Gateway timeout");
+        }
+        Result decided = roll < failureRate + declineRate
+                ? new Result(Outcome.DECLINED, null, "Card declined")
+                : new Result(Outcome.APPROVED, "STUB_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase(), null);
+        // Two concurrent calls with one key get the same decision
+        return decisions.computeIfAbsent(idempotencyKey, key -> decided);
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("type", "stub");
+        stats.put("calls", calls.get());
+        stats.put("unavailable", unavailable.get());
+        stats.put("decisions", decisions.size());
+        return stats;
+    }
+}
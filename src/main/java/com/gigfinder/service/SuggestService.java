@@ -0,0 +1,252 @@
+package com.gigfinder.service;
+
+import com.gigfinder.model.Category;
+import com.gigfinder.model.ServicePackage;
+import com.gigfinder.model.SubCategory;
+import com.gigfinder.repository.CategoryRepository;
+import com.gigfinder.repository.JobRepository;
+import com.gigfinder.repository.ServicePackageRepository;
+import com.gigfinder.repository.SubCategoryRepository;
+import com.gigfinder.repository.UserAddressRepository;
+import com.gigfinder.util.SuggestTrie;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestService {
+
+    public static final String CATEGORY = "CATEGORY";
+    public static final String SUBCATEGORY = "SUBCATEGORY";
+    public static final String PACKAGE = "PACKAGE";
+    public static final String LOCALITY = "LOCALITY";
+
+    private static final int TOP_K = 20;
+
+    private final CategoryRepository categoryRepository;
+    private final SubCategoryRepository subCategoryRepository;
+    private final ServicePackageRepository packageRepository;
+    private final UserAddressRepository addressRepository;
+    private final JobRepository jobRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private SuggestTrie trie = new SuggestTrie(TOP_K);
+    // identity -> entry currently indexed, so edits can unindex the old keys
+    private Map<String, SuggestTrie.Entry> indexed = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, Long> jobsByCategory = toCountMap(jobRepository.countJobsByCategory());
+        Map<Long, Long> jobsBySubCategory = toCountMap(jobRepository.countJobsBySubCategory());
+
+        SuggestTrie fresh = new SuggestTrie(TOP_K);
+        Map<String, SuggestTrie.Entry> freshIndexed = new HashMap<>();
+
+        for (Category c : categoryRepository.findAll()) {
+            long id = c.getId().longValue();
+            add(fresh, freshIndexed, new SuggestTrie.Entry(CATEGORY, id, c.getName(), jobsByCategory.getOrDefault(id, 0L)));
+        }
+        for (SubCategory s : subCategoryRepository.findAll()) {
+            add(fresh, freshIndexed, new SuggestTrie.Entry(SUBCATEGORY, s.getId(), s.getName(), jobsBySubCategory.getOrDefault(s.getId(), 0L)));
+        }
+        for (Object[] row : packageRepository.findActivePackageNames()) {
+            Long categoryId = row[2] != null ? ((Number) row[2]).longValue() : null;
+            long weight = categoryId != null ? jobsByCategory.getOrDefault(categoryId, 0L) : 0L;
+            add(fresh, freshIndexed, new SuggestTrie.Entry(PACKAGE, (Long) row[0], (String) row[1], weight));
+        }
+        for (Object[] row : addressRepository.countByLocality()) {
+            long count = ((Number) row[2]).longValue();
+            for (SuggestTrie.Entry e : localityEntries((String) row[0], (String) row[1], count)) {
+                SuggestTrie.Entry existing = freshIndexed.get(e.identity());
+                long weight = existing != null ? existing.weight() + count : count;
+                if (existing != null) {
+                    remove(fresh, freshIndexed, existing);
+                }
+                add(fresh, freshIndexed, new SuggestTrie.Entry(LOCALITY, null, e.label(), weight));
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            trie = fresh;
+            indexed = freshIndexed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Suggest index built with {} keys", fresh.size());
+    }
+
+    public List<Map<String, Object>> suggest(String query, String type, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        // Over-fetch when filtering by type so the filter still yields up to limit results
+        int fetch = type != null ? TOP_K : Math.min(limit, TOP_K);
+
+        List<SuggestTrie.Entry> entries;
+        lock.readLock().lock();
+        try {
+            entries = trie.topK(prefix, fetch);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SuggestTrie.Entry e : entries) {
+            if (type != null && !type.equalsIgnoreCase(e.type())) {
+                continue;
+            }
+            Map<String, Object> m = new HashMap<>();
+            m.put("type", e.type());
+            m.put("id", e.id());
+            m.put("label", e.label());
+            m.put("weight", e.weight());
+            result.add(m);
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    public void onCategorySaved(Category category) {
+        upsert(CATEGORY, category.getId().longValue(), category.getName(), null);
+    }
+
+    public void onCategoryDeleted(Long categoryId) {
+        removeIdentity(CATEGORY + ":" + categoryId);
+    }
+
+    public void onPackageSaved(ServicePackage servicePackage) {
+        String identity = PACKAGE + ":" + servicePackage.getId();
+        if (!Boolean.TRUE.equals(servicePackage.getIsActive())) {
+            removeIdentity(identity);
+            return;
+        }
+        upsert(PACKAGE, servicePackage.getId(), servicePackage.getName(), null);
+    }
+
+    public void onPackageDeleted(Long packageId) {
+        removeIdentity(PACKAGE + ":" + packageId);
+    }
+
+    public void onJobCreated(Category category, SubCategory subCategory) {
+        if (category != null) {
+            upsert(CATEGORY, category.getId().longValue(), category.getName(), 1L);
+        }
+        if (subCategory != null) {
+            upsert(SUBCATEGORY, subCategory.getId(), subCategory.getName(), 1L);
+        }
+    }
+
+    public void onAddressAdded(String city, String postalCode) {
+        for (SuggestTrie.Entry e : localityEntries(city, postalCode, 1L)) {
+            upsert(LOCALITY, null, e.label(), 1L);
+        }
+    }
+
+    // Re-indexes an entry under its (possibly new) label; weightDelta == null keeps the current weight
+    private void upsert(String type, Long id, String label, Long weightDelta) {
+        String identity = new SuggestTrie.Entry(type, id, label, 0).identity();
+        lock.writeLock().lock();
+        try {
+            SuggestTrie.Entry existing = indexed.get(identity);
+            long weight = existing != null ? existing.weight() : 0L;
+            if (weightDelta != null) {
+                weight += weightDelta;
+            }
+            if (existing != null) {
+                remove(trie, indexed, existing);
+            }
+            add(trie, indexed, new SuggestTrie.Entry(type, id, label, weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeIdentity(String identity) {
+        lock.writeLock().lock();
+        try {
+            SuggestTrie.Entry existing = indexed.get(identity);
+            if (existing != null) {
+                remove(trie, indexed, existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void add(SuggestTrie target, Map<String, SuggestTrie.Entry> index, SuggestTrie.Entry entry) {
+        if (entry.label() == null || normalize(entry.label()).isEmpty()) {
+            return;
+        }
+        for (String key : keysFor(entry.label())) {
+            target.insert(key, entry);
+        }
+        index.put(entry.identity(), entry);
+    }
+
+    private static void remove(SuggestTrie target, Map<String, SuggestTrie.Entry> index, SuggestTrie.Entry entry) {
+        for (String key : keysFor(entry.label())) {
+            target.remove(key, entry.identity());
+        }
+        index.remove(entry.identity());
+    }
+
+    private static List<SuggestTrie.Entry> localityEntries(String city, String postalCode, long weight) {
+        List<SuggestTrie.Entry> entries = new ArrayList<>(2);
+        if (city != null && !city.isBlank()) {
+            entries.add(new SuggestTrie.Entry(LOCALITY, null, city.trim(), weight));
+        }
+        if (postalCode != null && !postalCode.isBlank()) {
+            String label = city != null && !city.isBlank()
+                    ? postalCode.trim() + " - " + city.trim()
+                    : postalCode.trim();
+            entries.add(new SuggestTrie.Entry(LOCALITY, null, label, weight));
+        }
+        return entries;
+    }
+
+    // Index the full name plus every later word, so "repair" also finds "AC Repair"
+    private static Set<String> keysFor(String label) {
+        String normalized = normalize(label);
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            keys.add(normalized.substring(i + 1));
+        }
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim();
+    }
+
+    private static Map<Long, Long> toCountMap(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,132 @@
+package com.gigfinder.service;
+
+import com.gigfinder.event.UnreadCountsChangedEvent;
+import com.gigfinder.repository.UserCounterRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Unread notification and message counts kept in user_counters, along with the user's
+ * notification read watermark. Callers adjust the counters inside the transaction that inserts
+ * or marks the rows, so badge reads are a primary-key lookup; the new totals are pushed to the
+ * user's session once that transaction commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UnreadCounterService {
+
+    public record Counts(int notifications, int messages) {}
+
+    private final UserCounterRepository counterRepository;
+    private final UserPushService userPushService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private TransactionTemplate seedTemplate;
+
+    @PostConstruct
+    public void init() {
+        // Seeding runs on its own so a lost insert race doesn't doom the caller's transaction
+        seedTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        seedTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeMissing() {
+        int created = counterRepository.initializeMissing();
+        if (created > 0) {
+            log.info("Initialized unread counters for {} users", created);
+        }
+    }
+
+    @Transactional
+    public void notificationsChanged(Long userId, int delta) {
+        if (counterRepository.adjustNotifications(userId, delta) == 0) {
+            // First change for a user registered after startup; the seed can't see this transaction's rows, so apply the delta on top
+            initialize(userId);
+            counterRepository.adjustNotifications(userId, delta);
+        }
+        eventPublisher.publishEvent(new UnreadCountsChangedEvent(userId));
+    }
+
+    @Transactional
+    public long notificationWatermark(Long userId) {
+        Optional<Long> watermark = counterRepository.findNotificationWatermark(userId);
+        if (watermark.isEmpty()) {
+            initialize(userId);
+            watermark = counterRepository.findNotificationWatermark(userId);
+        }
+        return watermark.orElse(0L);
+    }
+
+    /**
+     * Moves the user's notification watermark up to {@code upToId}, leaving {@code remaining} unread
+     * past it. Returns false if the watermark was already there.
+     */
+    @Transactional
+    public boolean notificationsReadUpTo(Long userId, Long upToId, int remaining) {
+        if (counterRepository.advanceNotificationWatermark(userId, upToId, remaining) == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(new UnreadCountsChangedEvent(userId));
+        return true;
+    }
+
+    @Transactional
+    public void messagesChanged(Long userId, int delta) {
+        if (counterRepository.adjustMessages(userId, delta) == 0) {
+            initialize(userId);
+            counterRepository.adjustMessages(userId, delta);
+        }
+        eventPublisher.publishEvent(new UnreadCountsChangedEvent(userId));
+    }
+
+    @Transactional
+    public Counts counts(Long userId) {
+        List<Object[]> rows = counterRepository.findCounts(userId);
+        if (rows.isEmpty()) {
+            initialize(userId);
+            rows = counterRepository.findCounts(userId);
+        }
+        return toCounts(rows);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUnreadCountsChanged(UnreadCountsChangedEvent event) {
+        // Read-only here: the originating transaction has already committed
+        Counts counts = toCounts(counterRepository.findCounts(event.userId()));
+        userPushService.send(event.userId(), "UNREAD_COUNTS",
+                Map.of("notifications", counts.notifications(), "messages", counts.messages()));
+    }
+
+    // Two first uses racing on the user_id primary key: the loser's insert fails and it reads the winner's row
+    private void initialize(Long userId) {
+        try {
+            seedTemplate.executeWithoutResult(status -> counterRepository.initialize(userId));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Counters for user {} were seeded concurrently", userId);
+        }
+    }
+
+    private static Counts toCounts(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return new Counts(0, 0);
+        }
+        return new Counts(((Number) rows.get(0)[0]).intValue(), ((Number) rows.get(0)[1]).intValue());
+    }
+}
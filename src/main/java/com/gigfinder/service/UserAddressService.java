@@ -18,6 +18,8 @@ public class UserAddressService {
     
     private final UserAddressRepository addressRepository;
     private final UserRepository userRepository;
+    private final SuggestService suggestService;
+    private final GeocodingService geocodingService;
     
     public UserAddress addAddress(UserAddressDTO addressDTO) {
         String username = SecurityUtil.getCurrentUsername();
@@ -52,8 +54,11 @@ public class UserAddressService {
                 .isDefault(addressDTO.getIsDefault())
                 .addressType(addressDTO.getAddressType())
                 .build();
+        applyGeocode(address);
         
-        return addressRepository.save(address);
+        UserAddress saved = addressRepository.save(address);
+        suggestService.onAddressAdded(saved.getCity(), saved.getPostalCode());
+        return saved;
     }
     
     public List<UserAddress> getUserAddresses() {
@@ -107,6 +112,7 @@ public class UserAddressService {
         address.setLocationLng(addressDTO.getLocationLng());
         address.setIsDefault(addressDTO.getIsDefault());
         address.setAddressType(addressDTO.getAddressType());
+        applyGeocode(address);
         
         return addressRepository.save(address);
     }
@@ -157,4 +163,15 @@ public class UserAddressService {
         address.setIsDefault(true);
         return addressRepository.save(address);
     }
+    
+    // Fill in coordinates from the gazetteer when the client didn't send any
+    private void applyGeocode(UserAddress address) {
+        if (address.getLocationLat() != null && address.getLocationLng() != null) {
+            return;
+        }
+        geocodingService.resolve(address.getPostalCode(), address.getCity()).ifPresent(coords -> {
+            address.setLocationLat(coords.lat());
+            address.setLocationLng(coords.lng());
+        });
+    }
 }
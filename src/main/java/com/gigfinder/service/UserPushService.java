@@ -0,0 +1,379 @@
+package com.gigfinder.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gigfinder.model.PushEvent;
+import com.gigfinder.repository.PushEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers server push messages to a single user's sessions through {@code /user/queue/notifications}.
+ * Each user's messages form a stream numbered by {@code seq}. Recent messages stay in a per-user
+ * ring buffer and every message is written behind to push_events, so a client that resubscribes
+ * with its last seen seq in the {@code last-seq} header receives only the gap. Nothing is sent to
+ * users without a live session.
+ * Live frames go through the {@link NotificationBus}, so a user connected to another node gets
+ * them too; frames from other nodes also fill this node's ring if the user's stream is resident.
+ * Seqs are issued by the bus, which keeps them unique across nodes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserPushService {
+
+    public static final String QUEUE = "/queue/notifications";
+    public static final String LAST_SEQ_HEADER = "last-seq";
+
+    private static final int RING_SIZE = 128;
+    private static final int MAX_REPLAY = 500;
+    private static final int SPILL_BATCH = 1000;
+    private static final int SPILL_ATTEMPTS = 3;
+    private static final long IDLE_EVICT_MS = 30 * 60 * 1000L;
+    private static final long RATE_INTERVAL_MS = 10_000;
+    private static final TypeReference<Map<String, Object>> FRAME_TYPE = new TypeReference<>() {};
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final UserSessionRegistry sessionRegistry;
+    private final PushEventRepository pushEventRepository;
+    private final ObjectMapper objectMapper;
+    private final NotificationBus notificationBus;
+
+    @Value("${gigfinder.push.retention-days:7}")
+    private int retentionDays;
+
+    // One user's stream; guarded by synchronizing on it, which is also the per-user delivery lock
+    private static final class Stream {
+        final long[] seqs = new long[RING_SIZE];
+        @SuppressWarnings("unchecked")
+        final Map<String, Object>[] frames = new Map[RING_SIZE];
+        long head = -1;       // last seq issued, -1 until loaded from push_events
+        long ringFrom;        // oldest seq still in the ring
+        long spilledSeq;      // last seq this node queued for push_events
+        long lastActive;
+        boolean evicted;
+        volatile long persistedSeq;
+
+        void put(long seq, Map<String, Object> frame) {
+            int slot = (int) (seq % RING_SIZE);
+            seqs[slot] = seq;
+            frames[slot] = frame;
+            ringFrom = Math.max(ringFrom, seq - RING_SIZE + 1);
+        }
+
+        Map<String, Object> get(long seq) {
+            int slot = (int) (seq % RING_SIZE);
+            return seqs[slot] == seq ? frames[slot] : null;
+        }
+    }
+
+    // A push event waiting for push_events, with the number of flushes that failed to save it
+    private record Spilled(PushEvent event, int failures) {}
+
+    private final Map<Long, Stream> streams = new ConcurrentHashMap<>();
+    private final BlockingQueue<Spilled> spill = new LinkedBlockingQueue<>();
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong incompleteReplays = new AtomicLong();
+    private long lastSampleCount;
+    private volatile double sendsPerSecond;
+
+    @PostConstruct
+    public void init() {
+        sessionRegistry.onSubscribed("/user" + QUEUE, this::attach);
+        notificationBus.subscribe(QUEUE, this::receive);
+    }
+
+    public void send(Long userId, String type, Object data) {
+        Map<String, Object> frame = new HashMap<>();
+        frame.put("type", type);
+        frame.put("data", data);
+        frame.put("timestamp", System.currentTimeMillis());
+
+        while (true) {
+            Stream stream = streams.computeIfAbsent(userId, id -> new Stream());
+            synchronized (stream) {
+                if (stream.evicted) {
+                    continue;
+                }
+                load(userId, stream);
+                long seq = notificationBus.nextSeq(userId, stream.head);
+                stream.head = seq;
+                frame.put("seq", seq);
+                stream.put(seq, frame);
+                stream.lastActive = System.currentTimeMillis();
+                stream.spilledSeq = seq;
+                spill(userId, seq, frame);
+                // Delivered here before publish returns, so still under the stream lock
+                notificationBus.publish(userId, QUEUE, frame);
+                return;
+            }
+        }
+    }
+
+    // Bus handler: frames this node sent, and frames other nodes sent that this node may have sessions for
+    private void receive(Long userId, Map<String, Object> frame, boolean local) {
+        if (local) {
+            if (sessionRegistry.isOnline(userId)) {
+                messagingTemplate.convertAndSendToUser(String.valueOf(userId), QUEUE, frame);
+                sent.incrementAndGet();
+            } else {
+                deferred.incrementAndGet();
+            }
+            return;
+        }
+        // Online users always have a resident stream; without one there is nobody here to deliver to
+        Stream stream = streams.get(userId);
+        if (stream == null) {
+            return;
+        }
+        synchronized (stream) {
+            if (stream.evicted || stream.head < 0) {
+                return;
+            }
+            // Frames can arrive after later seqs this node issued itself; still fill their ring slots
+            if (frame.get("seq") instanceof Number n) {
+                long seq = n.longValue();
+                stream.head = Math.max(stream.head, seq);
+                if (seq >= stream.ringFrom) {
+                    stream.put(seq, frame);
+                }
+            }
+            if (sessionRegistry.isOnline(userId)) {
+                messagingTemplate.convertAndSendToUser(String.valueOf(userId), QUEUE, frame);
+                sent.incrementAndGet();
+            }
+        }
+    }
+
+    // Marks the session online and replays what it missed, under the same lock that send() takes
+    private void attach(Long userId, String sessionId, SimpMessageHeaderAccessor subscription) {
+        Long lastSeen = parseSeq(subscription.getFirstNativeHeader(LAST_SEQ_HEADER));
+        Stream stream = streams.computeIfAbsent(userId, id -> new Stream());
+        synchronized (stream) {
+            if (stream.evicted) {
+                attach(userId, sessionId, subscription);
+                return;
+            }
+            load(userId, stream);
+            sessionRegistry.register(userId, sessionId);
+            stream.lastActive = System.currentTimeMillis();
+
+            boolean complete = true;
+            int count = 0;
+            if (lastSeen != null) {
+                long gap = stream.head - lastSeen;
+                if (gap < 0 || gap > MAX_REPLAY) {
+                    // Client is ahead of us (lost spill) or too far behind; it has to refetch
+                    complete = false;
+                } else if (gap > 0) {
+                    List<Map<String, Object>> missed = new ArrayList<>((int) gap);
+                    if (lastSeen + 1 < stream.ringFrom) {
+                        for (String payload : pushEventRepository.findPayloadsBetween(userId, lastSeen, stream.ringFrom,
+                                PageRequest.of(0, MAX_REPLAY))) {
+                            missed.add(parse(payload));
+                        }
+                    }
+                    for (long seq = Math.max(lastSeen + 1, stream.ringFrom); seq <= stream.head; seq++) {
+                        Map<String, Object> frame = stream.get(seq);
+                        if (frame != null) {
+                            missed.add(frame);
+                        }
+                    }
+                    complete = missed.size() == gap;
+                    for (Map<String, Object> frame : missed) {
+                        sendToSession(userId, sessionId, frame);
+                    }
+                    count = missed.size();
+                }
+            }
+            replayed.addAndGet(count);
+            if (!complete) {
+                incompleteReplays.incrementAndGet();
+            }
+            // Tells the client where the stream stands and whether its replay covered the gap
+            Map<String, Object> sync = new HashMap<>();
+            sync.put("type", "STREAM_SYNC");
+            sync.put("data", Map.of("seq", Math.max(stream.head, 0), "replayed", count, "complete", complete));
+            sync.put("timestamp", System.currentTimeMillis());
+            sendToSession(userId, sessionId, sync);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${gigfinder.push.spill-interval-ms:1000}")
+    public void flushSpill() {
+        List<Spilled> batch = new ArrayList<>(SPILL_BATCH);
+        List<Spilled> retry = new ArrayList<>();
+        while (spill.drainTo(batch, SPILL_BATCH) > 0) {
+            if (!persist(batch, retry)) {
+                // Nothing saved at all: the store is unavailable, so keep the rest queued for the next flush
+                break;
+            }
+            batch.clear();
+        }
+        spill.addAll(retry);
+        evictIdleStreams();
+    }
+
+    // Saves a batch, falling back to row by row so one bad row doesn't sink the others; false if nothing was saved
+    private boolean persist(List<Spilled> batch, List<Spilled> retry) {
+        try {
+            pushEventRepository.saveAll(batch.stream().map(Spilled::event).toList());
+            batch.forEach(s -> persisted(s.event()));
+            return true;
+        } catch (Exception e) {
+            log.warn("Could not persist {} push events as a batch; saving them one by one", batch.size(), e);
+        }
+        List<Spilled> failed = new ArrayList<>();
+        for (Spilled s : batch) {
+            // The failed batch may have handed out ids that were rolled back
+            s.event().setId(null);
+            try {
+                pushEventRepository.save(s.event());
+                persisted(s.event());
+            } catch (Exception e) {
+                failed.add(s);
+            }
+        }
+        if (failed.size() == batch.size()) {
+            retry.addAll(batch);
+            return false;
+        }
+        for (Spilled s : failed) {
+            if (s.failures() + 1 < SPILL_ATTEMPTS) {
+                retry.add(new Spilled(s.event(), s.failures() + 1));
+            } else {
+                log.warn("Dropping push event {} for user {} after {} attempts; it remains replayable only from memory",
+                        s.event().getSeq(), s.event().getUserId(), SPILL_ATTEMPTS);
+            }
+        }
+        return true;
+    }
+
+    private void persisted(PushEvent event) {
+        Stream stream = streams.get(event.getUserId());
+        if (stream != null && stream.persistedSeq < event.getSeq()) {
+            stream.persistedSeq = event.getSeq();
+        }
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeExpired() {
+        int deleted = pushEventRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("Purged {} push events older than {} days", deleted, retentionDays);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushSpill();
+    }
+
+    @Scheduled(fixedRate = RATE_INTERVAL_MS)
+    public void sampleRate() {
+        long total = sent.get();
+        sendsPerSecond = (total - lastSampleCount) * 1000.0 / RATE_INTERVAL_MS;
+        lastSampleCount = total;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = sessionRegistry.stats();
+        stats.put("sent", sent.get());
+        stats.put("sendsPerSecond", sendsPerSecond);
+        stats.put("deferredOffline", deferred.get());
+        stats.put("replayed", replayed.get());
+        stats.put("incompleteReplays", incompleteReplays.get());
+        stats.put("residentStreams", streams.size());
+        stats.put("spillQueued", spill.size());
+        stats.put("bus", notificationBus.stats());
+        return stats;
+    }
+
+    // Caller holds the stream lock
+    private void load(Long userId, Stream stream) {
+        if (stream.head < 0) {
+            Long max = pushEventRepository.findMaxSeq(userId);
+            stream.head = max != null ? max : 0L;
+            stream.ringFrom = stream.head + 1;
+            stream.persistedSeq = stream.head;
+            stream.spilledSeq = stream.head;
+        }
+    }
+
+    private void spill(Long userId, long seq, Map<String, Object> frame) {
+        try {
+            spill.add(new Spilled(PushEvent.builder()
+                    .userId(userId)
+                    .seq(seq)
+                    .payload(objectMapper.writeValueAsString(frame))
+                    .createdAt(LocalDateTime.now())
+                    .build(), 0));
+        } catch (Exception e) {
+            log.warn("Could not serialize push event {} for user {}", seq, userId, e);
+        }
+    }
+
+    // Streams are only dropped once everything this node issued is in push_events
+    private void evictIdleStreams() {
+        long cutoff = System.currentTimeMillis() - IDLE_EVICT_MS;
+        for (Long userId : streams.keySet()) {
+            streams.computeIfPresent(userId, (id, stream) -> {
+                synchronized (stream) {
+                    boolean idle = stream.lastActive < cutoff && stream.persistedSeq >= stream.spilledSeq
+                            && !sessionRegistry.isOnline(id);
+                    stream.evicted = idle;
+                    return idle ? null : stream;
+                }
+            });
+        }
+    }
+
+    private void sendToSession(Long userId, String sessionId, Map<String, Object> frame) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(String.valueOf(userId), QUEUE, frame, headers.getMessageHeaders());
+        sent.incrementAndGet();
+    }
+
+    private Map<String, Object> parse(String payload) {
+        try {
+            return objectMapper.readValue(payload, FRAME_TYPE);
+        } catch (Exception e) {
+            throw new RuntimeException("Corrupt push event payload", e);
+        }
+    }
+
+    private static Long parseSeq(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
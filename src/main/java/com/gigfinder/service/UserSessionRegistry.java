@@ -0,0 +1,168 @@
+package com.gigfinder.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live STOMP sessions per authenticated user. A session counts as online once the broker has
+ * registered its subscription to the user's notification queue, so delivery never races a
+ * client that has connected but cannot receive yet. Also tracks when each connected session
+ * last sent a frame and how many frames are queued on the outbound channel per session.
+ */
+@Component
+public class UserSessionRegistry {
+
+    private final Map<Long, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+    private final Map<String, Long> userBySession = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> outboundQueued = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastInbound = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface SubscriptionListener {
+        void subscribed(Long userId, String sessionId, SimpMessageHeaderAccessor subscription);
+    }
+
+    private volatile String watchedDestination;
+    private volatile SubscriptionListener subscribeListener;
+
+    /**
+     * Sessions subscribing to {@code destination} are handed to {@code listener}, which is
+     * expected to {@link #register} them.
+     */
+    public void onSubscribed(String destination, SubscriptionListener listener) {
+        this.watchedDestination = destination;
+        this.subscribeListener = listener;
+    }
+
+    public void register(Long userId, String sessionId) {
+        userBySession.put(sessionId, userId);
+        sessionsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+    }
+
+    /** Removes the session; returns its user, or null if it was never registered. */
+    public Long unregister(String sessionId) {
+        outboundQueued.remove(sessionId);
+        lastInbound.remove(sessionId);
+        Long userId = userBySession.remove(sessionId);
+        if (userId != null) {
+            sessionsByUser.computeIfPresent(userId, (id, sessions) -> {
+                sessions.remove(sessionId);
+                return sessions.isEmpty() ? null : sessions;
+            });
+        }
+        return userId;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        unregister(event.getSessionId());
+    }
+
+    /** When the session last sent a frame, heartbeats included; null once it has disconnected. */
+    public Long lastInbound(String sessionId) {
+        return lastInbound.get(sessionId);
+    }
+
+    public boolean isOnline(Long userId) {
+        return sessionsByUser.containsKey(userId);
+    }
+
+    public int activeSessions() {
+        return userBySession.size();
+    }
+
+    public int onlineUsers() {
+        return sessionsByUser.size();
+    }
+
+    public Map<String, Object> stats() {
+        List<Map<String, Object>> buffers = new ArrayList<>();
+        int maxQueued = 0;
+        for (Map.Entry<String, Long> entry : userBySession.entrySet()) {
+            AtomicInteger queued = outboundQueued.get(entry.getKey());
+            int n = queued != null ? queued.get() : 0;
+            maxQueued = Math.max(maxQueued, n);
+            if (n > 0) {
+                buffers.add(Map.of("sessionId", entry.getKey(), "userId", entry.getValue(), "queued", n));
+            }
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("activeSessions", activeSessions());
+        stats.put("onlineUsers", onlineUsers());
+        stats.put("maxOutboundQueued", maxQueued);
+        stats.put("backloggedSessions", buffers);
+        return stats;
+    }
+
+    // Inbound hooks: every frame marks its session active; subscriptions are reported once the
+    // user destination handler has passed them to the broker
+    public ExecutorChannelInterceptor inboundInterceptor() {
+        return new ExecutorChannelInterceptor() {
+            @Override
+            public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+                String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+                if (sessionId != null && type != SimpMessageType.DISCONNECT) {
+                    lastInbound.put(sessionId, System.currentTimeMillis());
+                }
+                return message;
+            }
+
+            @Override
+            public void afterMessageHandled(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                            @NonNull MessageHandler handler, Exception ex) {
+                if (ex != null || !(handler instanceof UserDestinationMessageHandler)
+                        || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.SUBSCRIBE) {
+                    return;
+                }
+                SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+                SubscriptionListener listener = subscribeListener;
+                if (listener != null && accessor.getUser() != null
+                        && accessor.getDestination() != null && accessor.getDestination().equals(watchedDestination)) {
+                    listener.subscribed(Long.valueOf(accessor.getUser().getName()), accessor.getSessionId(), accessor);
+                }
+            }
+        };
+    }
+
+    // Outbound hooks: counted when a frame is queued, released once it has been written
+    public ExecutorChannelInterceptor outboundInterceptor() {
+        return new ExecutorChannelInterceptor() {
+            @Override
+            public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+                String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                if (sessionId != null) {
+                    outboundQueued.computeIfAbsent(sessionId, id -> new AtomicInteger()).incrementAndGet();
+                }
+                return message;
+            }
+
+            @Override
+            public void afterMessageHandled(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                            @NonNull MessageHandler handler, Exception ex) {
+                String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+                AtomicInteger queued = sessionId != null ? outboundQueued.get(sessionId) : null;
+                if (queued != null && queued.decrementAndGet() <= 0 && !userBySession.containsKey(sessionId)) {
+                    outboundQueued.remove(sessionId, queued);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package com.gigfinder.service;
+
+import com.gigfinder.model.User;
+import com.gigfinder.model.Wallet;
+import com.gigfinder.model.WalletTransaction;
+import com.gigfinder.model.enums.WalletTransactionType;
+import com.gigfinder.repository.UserRepository;
+import com.gigfinder.repository.WalletRepository;
+import com.gigfinder.repository.WalletTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wallet balances and their ledger. Every change is a single conditional UPDATE of the balance
+ * plus one appended wallet_transactions row in the same transaction, so concurrent operations on
+ * a wallet serialize on its row lock instead of overwriting each other, and the ledger always
+ * sums to the balance. Bulk credits do the same for many wallets with one JDBC batch of updates
+ * and one of ledger rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class WalletService {
+
+    private static final int MAX_PAGE = 100;
+
+    // Quoted to match the names Hibernate generates with globally quoted identifiers
+    private static final String CREDIT_SQL =
+            "UPDATE \"wallets\" SET \"balance\" = \"balance\" + ?, \"updated_at\" = ? WHERE \"id\" = ?";
+    private static final String INSERT_LEDGER_SQL = "INSERT INTO \"wallet_transactions\" " +
+            "(\"wallet_id\", \"type\", \"amount\", \"balance_after\", \"reference\", \"created_at\") VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final WalletRepository walletRepository;
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    public BigDecimal getBalance(Long userId) {
+        return walletRepository.findBalance(walletId(userId));
+    }
+
+    public WalletTransaction credit(Long userId, BigDecimal amount, WalletTransactionType type, String reference) {
+        return apply(userId, validated(amount), type, reference);
+    }
+
+    /** Throws "Insufficient balance" rather than letting the balance go negative. */
+    public WalletTransaction debit(Long userId, BigDecimal amount, WalletTransactionType type, String reference) {
+        return apply(userId, validated(amount).negate(), type, reference);
+    }
+
+    /**
+     * Credits each user their amount under one reference, joining the caller's transaction. Wallets
+     * are updated in the map's order, so callers passing ascending user ids cannot deadlock each
+     * other. Returns the ledger entry id per user.
+     */
+    public Map<Long, Long> creditAll(Map<Long, BigDecimal> amounts, WalletTransactionType type, String reference) {
+        Map<Long, Long> walletIds = new HashMap<>();
+        for (Object[] row : walletRepository.findIdsByUserIds(amounts.keySet())) {
+            walletIds.put((Long) row[0], (Long) row[1]);
+        }
+        for (Long userId : amounts.keySet()) {
+            walletIds.computeIfAbsent(userId, this::walletId);
+        }
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Object[]> credits = new ArrayList<>(amounts.size());
+            amounts.forEach((userId, amount) -> credits.add(new Object[]{validated(amount), now, walletIds.get(userId)}));
+            jdbcTemplate.batchUpdate(CREDIT_SQL, credits);
+
+            // The rows stay locked until commit, so these are the balances our updates produced
+            Map<Long, BigDecimal> balances = new HashMap<>();
+            for (Object[] row : walletRepository.findBalances(walletIds.values())) {
+                balances.put((Long) row[0], (BigDecimal) row[1]);
+            }
+            List<Object[]> entries = new ArrayList<>(amounts.size());
+            amounts.forEach((userId, amount) -> {
+                Long walletId = walletIds.get(userId);
+                entries.add(new Object[]{walletId, type.name(), validated(amount), balances.get(walletId), reference, now});
+            });
+            jdbcTemplate.batchUpdate(INSERT_LEDGER_SQL, entries);
+
+            Map<Long, Long> entryIds = new HashMap<>();
+            for (Object[] row : walletTransactionRepository.findIdsByReference(walletIds.values(), reference)) {
+                entryIds.put((Long) row[0], (Long) row[1]);
+            }
+            Map<Long, Long> byUser = new HashMap<>();
+            walletIds.forEach((userId, walletId) -> byUser.put(userId, entryIds.get(walletId)));
+            return byUser;
+        });
+    }
+
+    /** Newest first, strictly older than {@code beforeId} when given. */
+    public List<WalletTransaction> getTransactions(Long userId, Long beforeId, int limit) {
+        return walletTransactionRepository.findPage(walletId(userId),
+                beforeId != null ? beforeId : Long.MAX_VALUE, PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE))));
+    }
+
+    private WalletTransaction apply(Long userId, BigDecimal delta, WalletTransactionType type, String reference) {
+        Long walletId = walletId(userId);
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (walletRepository.adjustBalance(walletId, delta, now) == 0) {
+                throw new RuntimeException("Insufficient balance");
+            }
+            // The row stays locked until commit, so this is the balance our update produced
+            BigDecimal balanceAfter = walletRepository.findBalance(walletId);
+            return walletTransactionRepository.save(WalletTransaction.builder()
+                    .walletId(walletId)
+                    .type(type)
+                    .amount(delta)
+                    .balanceAfter(balanceAfter)
+                    .reference(reference)
+                    .createdAt(now)
+                    .build());
+        });
+    }
+
+    // Wallets are created on first use; two first uses racing on the unique user_id both end up with the winner's
+    private Long walletId(Long userId) {
+        return walletRepository.findIdByUserId(userId).orElseGet(() -> {
+            User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+            try {
+                return walletRepository.save(Wallet.builder()
+                        .user(user)
+                        .balance(BigDecimal.ZERO)
+                        .createdAt(LocalDateTime.now())
+                        .build()).getId();
+            } catch (DataIntegrityViolationException e) {
+                return walletRepository.findIdByUserId(userId).orElseThrow(() -> e);
+            }
+        });
+    }
+
+    private static BigDecimal validated(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0 || amount.stripTrailingZeros().scale() > 2) {
+            throw new RuntimeException("Invalid amount");
+        }
+        return amount.setScale(2);
+    }
+}
@@ -0,0 +1,57 @@
+package com.gigfinder.util;
+
+/**
+ * Fixed lat/lng grid with 2^zoom cells per axis. Cell ids pack zoom, row and column
+ * into one long so cells from different zoom levels never collide.
+ */
+public final class GeoGrid {
+
+    // ~0.7 x 0.35 degree cells, roughly district sized across India
+    public static final int REGION_ZOOM = 9;
+
+    public static final int MAX_ZOOM = 24;
+
+    private GeoGrid() {
+    }
+
+    public static long cellId(double lat, double lng, int zoom) {
+        return pack(zoom, row(lat, zoom), column(lng, zoom));
+    }
+
+    public static int row(double lat, int zoom) {
+        int cells = 1 << zoom;
+        int row = (int) Math.floor((lat + 90.0) / 180.0 * cells);
+        return Math.max(0, Math.min(cells - 1, row));
+    }
+
+    public static int column(double lng, int zoom) {
+        int cells = 1 << zoom;
+        int col = (int) Math.floor((lng + 180.0) / 360.0 * cells);
+        return Math.max(0, Math.min(cells - 1, col));
+    }
+
+    public static long pack(int zoom, int row, int column) {
+        return ((long) zoom << 56) | ((long) row << 28) | column;
+    }
+
+    public static int zoomOf(long cellId) {
+        return (int) (cellId >>> 56);
+    }
+
+    public static int rowOf(long cellId) {
+        return (int) ((cellId >>> 28) & 0xFFFFFFF);
+    }
+
+    public static int columnOf(long cellId) {
+        return (int) (cellId & 0xFFFFFFF);
+    }
+
+    // Center of the cell as {lat, lng}
+    public static double[] center(long cellId) {
+        int zoom = zoomOf(cellId);
+        int cells = 1 << zoom;
+        double lat = (rowOf(cellId) + 0.5) / cells * 180.0 - 90.0;
+        double lng = (columnOf(cellId) + 0.5) / cells * 360.0 - 180.0;
+        return new double[]{lat, lng};
+    }
+}
@@ -0,0 +1,87 @@
+package com.gigfinder.util;
+
+/**
+ * Log-linear histogram of non-negative durations, in the style of HdrHistogram: values
+ * below 32 get exact buckets, larger values get 16 buckets per power of two, so any
+ * recorded value is reported within ~6%. Histograms with the same layout merge by adding
+ * bucket counts, which is what lets hourly slots be combined into arbitrary windows.
+ */
+public final class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 32;
+    private static final int SUB_BUCKETS = 16;
+    // Durations are clamped to 2^31 - 1 seconds (~68 years)
+    private static final int MAX_MSB = 30;
+    private static final int BUCKETS = LINEAR_BUCKETS + (MAX_MSB - 4) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long totalCount;
+    private long sum;
+    private long max;
+
+    public synchronized void record(long value) {
+        long v = Math.max(0, Math.min(value, Integer.MAX_VALUE));
+        counts[bucketOf(v)]++;
+        totalCount++;
+        sum += v;
+        max = Math.max(max, v);
+    }
+
+    public synchronized void merge(LatencyHistogram other) {
+        synchronized (other) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += other.counts[i];
+            }
+            totalCount += other.totalCount;
+            sum += other.sum;
+            max = Math.max(max, other.max);
+        }
+    }
+
+    public synchronized long totalCount() {
+        return totalCount;
+    }
+
+    public synchronized long max() {
+        return max;
+    }
+
+    public synchronized double mean() {
+        return totalCount > 0 ? sum / (double) totalCount : 0.0;
+    }
+
+    // Upper bound of the bucket holding the value at the given percentile (0-100)
+    public synchronized long valueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - 4;
+        int mantissa = (int) (value >>> shift); // 16..31
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long mantissa = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
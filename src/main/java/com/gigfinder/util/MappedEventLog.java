@@ -0,0 +1,216 @@
+package com.gigfinder.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only record log split into fixed-size memory-mapped segment files. A record is
+ * {@code [int length][int crc32][payload]} and is addressed by its global byte offset; a
+ * segment file is named after the offset of its first byte. Appends land in the mapping and
+ * only become visible to readers once {@link #force()} has synced them to disk.
+ */
+public final class MappedEventLog implements Closeable {
+
+    public record Entry(long offset, long nextOffset, byte[] payload) {}
+
+    private static final int HEADER_BYTES = 8;
+    private static final String SUFFIX = ".log";
+
+    private static final class Segment {
+        final long baseOffset;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        Segment(long baseOffset, Path path, int capacity) throws IOException {
+            this.baseOffset = baseOffset;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacity, channel.size()));
+        }
+
+        int capacity() {
+            return buffer.capacity();
+        }
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private Segment active;
+    private int writePosition;
+    private long appendedOffset;
+    private volatile long committedOffset;
+
+    public MappedEventLog(Path directory, int segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+
+        List<Long> bases = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                bases.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+            }
+        }
+        bases.sort(null);
+        for (long base : bases) {
+            segments.put(base, new Segment(base, segmentPath(base), segmentBytes));
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, new Segment(0L, segmentPath(0L), segmentBytes));
+        }
+        active = segments.lastEntry().getValue();
+        writePosition = recover(active);
+        appendedOffset = active.baseOffset + writePosition;
+        committedOffset = appendedOffset;
+    }
+
+    /** Writes the record into the active segment, rolling to a new one when it does not fit. */
+    public synchronized long append(byte[] payload) throws IOException {
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (payload.length == 0) {
+            throw new IllegalArgumentException("Empty records are not allowed");
+        }
+        if (recordBytes > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes exceeds the segment size");
+        }
+        if (writePosition + recordBytes > active.capacity()) {
+            roll();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        long offset = active.baseOffset + writePosition;
+        ByteBuffer buffer = active.buffer;
+        buffer.putInt(writePosition + 4, (int) crc.getValue());
+        buffer.put(writePosition + HEADER_BYTES, payload);
+        // Length goes in last so a torn write reads back as the end of the log
+        buffer.putInt(writePosition, payload.length);
+        writePosition += recordBytes;
+        appendedOffset = offset + recordBytes;
+        return offset;
+    }
+
+    /** Syncs everything appended so far and publishes it to readers; returns the new end offset. */
+    public synchronized long force() {
+        if (committedOffset != appendedOffset) {
+            active.buffer.force();
+            committedOffset = appendedOffset;
+        }
+        return committedOffset;
+    }
+
+    public long committedOffset() {
+        return committedOffset;
+    }
+
+    public synchronized long firstOffset() {
+        return segments.firstKey();
+    }
+
+    /** Reads up to {@code max} committed records starting at a record boundary. */
+    public List<Entry> read(long fromOffset, int max) {
+        List<Entry> entries = new ArrayList<>();
+        long end = committedOffset;
+        long position = fromOffset;
+        while (entries.size() < max && position < end) {
+            Map.Entry<Long, Segment> floor;
+            Map.Entry<Long, Segment> next;
+            synchronized (this) {
+                floor = segments.floorEntry(position);
+                if (floor == null) {
+                    position = segments.firstKey();
+                    continue;
+                }
+                next = segments.higherEntry(floor.getKey());
+            }
+            Segment segment = floor.getValue();
+            int relative = (int) (position - segment.baseOffset);
+            int length = relative + HEADER_BYTES <= segment.capacity() ? segment.buffer.getInt(relative) : 0;
+            if (length == 0) {
+                // Unused tail of a rolled segment
+                if (next == null) {
+                    break;
+                }
+                position = next.getKey();
+                continue;
+            }
+            if (length < 0 || relative + HEADER_BYTES + length > segment.capacity()) {
+                throw new IllegalArgumentException("Offset " + fromOffset + " is not a record boundary");
+            }
+            byte[] payload = new byte[length];
+            segment.buffer.get(relative + HEADER_BYTES, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != segment.buffer.getInt(relative + 4)) {
+                throw new IllegalArgumentException("Offset " + fromOffset + " is not a record boundary");
+            }
+            long nextOffset = position + HEADER_BYTES + length;
+            entries.add(new Entry(position, nextOffset, payload));
+            position = nextOffset;
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+    }
+
+    private void roll() throws IOException {
+        active.buffer.force();
+        long base = active.baseOffset + active.capacity();
+        active = new Segment(base, segmentPath(base), segmentBytes);
+        segments.put(base, active);
+        writePosition = 0;
+    }
+
+    // Finds the end of the last intact record and clears whatever a crash left behind it
+    private static int recover(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        int position = 0;
+        int garbageEnd = 0;
+        while (position + HEADER_BYTES <= segment.capacity()) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || position + HEADER_BYTES + length > segment.capacity()) {
+                garbageEnd = position + HEADER_BYTES;
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER_BYTES, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                garbageEnd = position + HEADER_BYTES + length;
+                break;
+            }
+            position += HEADER_BYTES + length;
+        }
+        for (int i = position; i < garbageEnd; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        return position;
+    }
+
+    private Path segmentPath(long baseOffset) {
+        return directory.resolve(String.format("%020d%s", baseOffset, SUFFIX));
+    }
+}
@@ -0,0 +1,190 @@
+package com.gigfinder.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Latest position per id, kept off-heap in a direct buffer of fixed-size slots with linear
+ * probing. Ids must be positive (0 marks an empty slot) and are never removed. Each slot
+ * also remembers when it was last relayed and last persisted, and whether its latest position
+ * still has to be, so callers can rate-limit both without keeping per-id objects on the heap.
+ * All methods are synchronized; none allocate except when the table grows.
+ */
+public final class PositionTable {
+
+    // [long id][double lat][double lng][long recordedAt][float speed][float heading][long relayedAt]
+    // [long persistedAt][long flags]
+    private static final int SLOT_BYTES = 64;
+    private static final int ID = 0;
+    private static final int LAT = 8;
+    private static final int LNG = 16;
+    private static final int RECORDED_AT = 24;
+    private static final int SPEED = 32;
+    private static final int HEADING = 36;
+    private static final int RELAYED_AT = 40;
+    private static final int PERSISTED_AT = 48;
+    private static final int FLAGS = 56;
+
+    // Flag bits: the latest position has not been persisted / relayed yet
+    private static final long UNPERSISTED = 1;
+    private static final long UNRELAYED = 2;
+
+    private ByteBuffer slots;
+    private int capacity;
+    private int size;
+
+    public PositionTable(int initialCapacity) {
+        this.capacity = Integer.highestOneBit(Math.max(16, initialCapacity - 1) << 1);
+        this.slots = allocate(capacity);
+    }
+
+    /** Stores the position unless it is older than the one already held. Returns false if it was dropped. */
+    public synchronized boolean put(long id, double lat, double lng, float speed, float heading, long recordedAt) {
+        int base = find(id);
+        if (base < 0) {
+            if ((size + 1) * 2 > capacity) {
+                grow();
+            }
+            base = -find(id) - 1;
+            slots.putLong(base + ID, id);
+            size++;
+        } else if (slots.getLong(base + RECORDED_AT) > recordedAt) {
+            return false;
+        }
+        slots.putDouble(base + LAT, lat);
+        slots.putDouble(base + LNG, lng);
+        slots.putLong(base + RECORDED_AT, recordedAt);
+        slots.putFloat(base + SPEED, speed);
+        slots.putFloat(base + HEADING, heading);
+        slots.putLong(base + FLAGS, UNPERSISTED | UNRELAYED);
+        return true;
+    }
+
+    /** Copies {lat, lng, recordedAt, speed, heading} into {@code out}; false if the id is unknown. */
+    public synchronized boolean get(long id, double[] out) {
+        int base = find(id);
+        if (base < 0) {
+            return false;
+        }
+        out[0] = slots.getDouble(base + LAT);
+        out[1] = slots.getDouble(base + LNG);
+        out[2] = slots.getLong(base + RECORDED_AT);
+        out[3] = slots.getFloat(base + SPEED);
+        out[4] = slots.getFloat(base + HEADING);
+        return true;
+    }
+
+    /**
+     * Claims a relay slot: true (and the time is recorded) if at least {@code minIntervalMs} has
+     * passed. Otherwise the position stays pending for {@link #drainRelayDue}.
+     */
+    public synchronized boolean tryRelay(long id, long now, long minIntervalMs) {
+        int base = find(id);
+        if (base < 0 || now - slots.getLong(base + RELAYED_AT) < minIntervalMs) {
+            return false;
+        }
+        slots.putLong(base + RELAYED_AT, now);
+        slots.putLong(base + FLAGS, slots.getLong(base + FLAGS) & ~UNRELAYED);
+        return true;
+    }
+
+    /**
+     * Collects up to {@code ids.length} ids whose latest position was held back by the relay
+     * interval and whose interval has now passed, claiming their relay slots at {@code now}.
+     * Returns how many were written into the array.
+     */
+    public synchronized int drainRelayDue(long now, long minIntervalMs, long[] ids) {
+        int count = 0;
+        for (int slot = 0; slot < capacity && count < ids.length; slot++) {
+            int base = slot * SLOT_BYTES;
+            long id = slots.getLong(base + ID);
+            if (id == 0) {
+                continue;
+            }
+            long flags = slots.getLong(base + FLAGS);
+            if ((flags & UNRELAYED) != 0 && now - slots.getLong(base + RELAYED_AT) >= minIntervalMs) {
+                ids[count++] = id;
+                slots.putLong(base + RELAYED_AT, now);
+                slots.putLong(base + FLAGS, flags & ~UNRELAYED);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Collects up to {@code ids.length} positions that changed since they were last persisted and
+     * were last persisted at least {@code minIntervalMs} ago, marking them persisted at {@code now}.
+     * Returns how many were written into the arrays.
+     */
+    public synchronized int drainDue(long now, long minIntervalMs, long[] ids, double[] lats, double[] lngs) {
+        int count = 0;
+        for (int slot = 0; slot < capacity && count < ids.length; slot++) {
+            int base = slot * SLOT_BYTES;
+            long id = slots.getLong(base + ID);
+            if (id == 0) {
+                continue;
+            }
+            long flags = slots.getLong(base + FLAGS);
+            if ((flags & UNPERSISTED) != 0 && now - slots.getLong(base + PERSISTED_AT) >= minIntervalMs) {
+                ids[count] = id;
+                lats[count] = slots.getDouble(base + LAT);
+                lngs[count] = slots.getDouble(base + LNG);
+                slots.putLong(base + PERSISTED_AT, now);
+                slots.putLong(base + FLAGS, flags & ~UNPERSISTED);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long offHeapBytes() {
+        return (long) capacity * SLOT_BYTES;
+    }
+
+    // Slot offset of id, or -(offset of the free slot where it belongs) - 1
+    private int find(long id) {
+        int mask = capacity - 1;
+        int slot = (int) (mix(id) & mask);
+        while (true) {
+            int base = slot * SLOT_BYTES;
+            long current = slots.getLong(base + ID);
+            if (current == id) {
+                return base;
+            }
+            if (current == 0) {
+                return -base - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        ByteBuffer old = slots;
+        int oldCapacity = capacity;
+        capacity <<= 1;
+        slots = allocate(capacity);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int from = slot * SLOT_BYTES;
+            long id = old.getLong(from + ID);
+            if (id != 0) {
+                int to = -find(id) - 1;
+                for (int i = 0; i < SLOT_BYTES; i += 8) {
+                    slots.putLong(to + i, old.getLong(from + i));
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    private static long mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
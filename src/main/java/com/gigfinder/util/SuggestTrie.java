@@ -0,0 +1,193 @@
+package com.gigfinder.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compressed (radix) trie for prefix suggestions.
+ * Every node keeps the best K entries of its subtree, so a lookup costs O(prefix length)
+ * and never walks the subtree. Not thread-safe; callers guard it with a lock.
+ */
+public class SuggestTrie {
+
+    public record Entry(String type, Long id, String label, long weight) {
+        public String identity() {
+            return type + ":" + (id != null ? id : label);
+        }
+    }
+
+    private static final Comparator<Entry> BY_WEIGHT = Comparator
+            .comparingLong(Entry::weight).reversed()
+            .thenComparing(Entry::label);
+
+    private static final class Node {
+        String edge;
+        final Map<Character, Node> children = new HashMap<>();
+        final List<Entry> terminals = new ArrayList<>(1);
+        List<Entry> top = new ArrayList<>();
+
+        Node(String edge) {
+            this.edge = edge;
+        }
+    }
+
+    private final int k;
+    private final Node root = new Node("");
+    private int size;
+
+    public SuggestTrie(int k) {
+        this.k = k;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(String key, Entry entry) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        String rest = key;
+
+        while (!rest.isEmpty()) {
+            Node child = node.children.get(rest.charAt(0));
+            if (child == null) {
+                child = new Node(rest);
+                node.children.put(rest.charAt(0), child);
+                path.add(child);
+                node = child;
+                break;
+            }
+            int common = commonPrefix(child.edge, rest);
+            if (common < child.edge.length()) {
+                // Split the edge so the shared part becomes its own node
+                Node mid = new Node(child.edge.substring(0, common));
+                child.edge = child.edge.substring(common);
+                mid.children.put(child.edge.charAt(0), child);
+                mid.top = new ArrayList<>(child.top);
+                node.children.put(mid.edge.charAt(0), mid);
+                child = mid;
+            }
+            path.add(child);
+            node = child;
+            rest = rest.substring(common);
+        }
+
+        node.terminals.add(entry);
+        size++;
+        for (Node n : path) {
+            offer(n, entry);
+        }
+    }
+
+    public boolean remove(String key, String identity) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        String rest = key;
+
+        while (!rest.isEmpty()) {
+            Node child = node.children.get(rest.charAt(0));
+            if (child == null || !rest.startsWith(child.edge)) {
+                return false;
+            }
+            path.add(child);
+            node = child;
+            rest = rest.substring(child.edge.length());
+        }
+
+        boolean removed = node.terminals.removeIf(e -> e.identity().equals(identity));
+        if (!removed) {
+            return false;
+        }
+        size--;
+
+        // Recompute top lists bottom-up and drop leaves that became empty
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node n = path.get(i);
+            if (i > 0 && n.terminals.isEmpty() && n.children.isEmpty()) {
+                path.get(i - 1).children.remove(n.edge.charAt(0));
+                continue;
+            }
+            recompute(n);
+        }
+        return true;
+    }
+
+    public List<Entry> topK(String prefix, int limit) {
+        Node node = root;
+        String rest = prefix;
+
+        while (!rest.isEmpty()) {
+            Node child = node.children.get(rest.charAt(0));
+            if (child == null) {
+                return List.of();
+            }
+            int common = commonPrefix(child.edge, rest);
+            if (common == rest.length()) {
+                node = child;
+                break;
+            }
+            if (common < child.edge.length()) {
+                return List.of();
+            }
+            node = child;
+            rest = rest.substring(common);
+        }
+
+        List<Entry> top = node.top;
+        return List.copyOf(top.subList(0, Math.min(limit, top.size())));
+    }
+
+    private void offer(Node node, Entry entry) {
+        List<Entry> top = node.top;
+        for (int i = 0; i < top.size(); i++) {
+            Entry existing = top.get(i);
+            if (existing.identity().equals(entry.identity())) {
+                if (existing.weight() >= entry.weight()) {
+                    return;
+                }
+                top.remove(i);
+                break;
+            }
+        }
+        int pos = 0;
+        while (pos < top.size() && BY_WEIGHT.compare(top.get(pos), entry) <= 0) {
+            pos++;
+        }
+        if (pos >= k) {
+            return;
+        }
+        top.add(pos, entry);
+        if (top.size() > k) {
+            top.remove(top.size() - 1);
+        }
+    }
+
+    private void recompute(Node node) {
+        Map<String, Entry> best = new HashMap<>();
+        for (Entry e : node.terminals) {
+            best.merge(e.identity(), e, (a, b) -> a.weight() >= b.weight() ? a : b);
+        }
+        for (Node child : node.children.values()) {
+            for (Entry e : child.top) {
+                best.merge(e.identity(), e, (a, b) -> a.weight() >= b.weight() ? a : b);
+            }
+        }
+        List<Entry> top = new ArrayList<>(best.values());
+        top.sort(BY_WEIGHT);
+        node.top = top.size() > k ? new ArrayList<>(top.subList(0, k)) : top;
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
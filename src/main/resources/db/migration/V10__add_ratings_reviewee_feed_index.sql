@@ -0,0 +1,2 @@
+-- Keyset pagination of a worker's reviews, newest first
+CREATE INDEX IF NOT EXISTS idx_ratings_reviewee_id ON ratings(reviewee_id, id);
@@ -0,0 +1,17 @@
+-- Daily rollups for the admin dashboard
+CREATE TABLE IF NOT EXISTS platform_analytics (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  date DATE NOT NULL UNIQUE,
+  total_jobs_posted INT DEFAULT 0,
+  total_jobs_completed INT DEFAULT 0,
+  total_revenue NUMERIC(12,2) DEFAULT 0,
+  active_users INT DEFAULT 0,
+  new_registrations INT DEFAULT 0,
+  total_ratings INT DEFAULT 0,
+  rating_score_sum BIGINT DEFAULT 0,
+  average_rating NUMERIC(3,2),
+  most_popular_category VARCHAR(255),
+  finalized BOOLEAN DEFAULT FALSE,
+  created_at TIMESTAMP,
+  updated_at TIMESTAMP
+);
@@ -0,0 +1,3 @@
+-- Range scans for warming the job latency histograms on startup
+CREATE INDEX IF NOT EXISTS idx_jobs_accepted_at ON jobs(accepted_at);
+CREATE INDEX IF NOT EXISTS idx_job_assignments_completed_at ON job_assignments(completed_at);
@@ -0,0 +1,6 @@
+-- Daily HyperLogLog sketches of authenticated users (2^14 six-bit registers, 12 KB each)
+CREATE TABLE IF NOT EXISTS active_user_sketches (
+  sketch_date DATE PRIMARY KEY,
+  registers BYTEA NOT NULL,
+  updated_at TIMESTAMP
+);
@@ -0,0 +1,7 @@
+-- Unread badge counts, kept in step with notifications and messages
+CREATE TABLE IF NOT EXISTS user_counters (
+  user_id BIGINT PRIMARY KEY,
+  unread_notifications INT NOT NULL DEFAULT 0,
+  unread_messages INT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP
+);
@@ -0,0 +1,11 @@
+-- Durable tier of the per-user push streams, for replay after long disconnects
+CREATE TABLE IF NOT EXISTS push_events (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  seq BIGINT NOT NULL,
+  payload TEXT NOT NULL,
+  created_at TIMESTAMP NOT NULL,
+  UNIQUE (user_id, seq)
+);
+
+CREATE INDEX idx_push_events_created_at ON push_events(created_at);
@@ -0,0 +1,21 @@
+-- One row per thread (ordered user pair, optionally scoped to a job) with its inbox summary
+CREATE TABLE IF NOT EXISTS conversations (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  user_low_id BIGINT NOT NULL,
+  user_high_id BIGINT NOT NULL,
+  job_id BIGINT,
+  last_message_id BIGINT,
+  last_message_preview VARCHAR(255),
+  last_sender_id BIGINT,
+  last_message_at TIMESTAMP,
+  last_seq BIGINT NOT NULL DEFAULT 0,
+  unread_low INT NOT NULL DEFAULT 0,
+  unread_high INT NOT NULL DEFAULT 0,
+  created_at TIMESTAMP,
+  FOREIGN KEY (user_low_id) REFERENCES users(id) ON DELETE CASCADE,
+  FOREIGN KEY (user_high_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_conversations_pair ON conversations(user_low_id, user_high_id);
+CREATE INDEX idx_conversations_low_activity ON conversations(user_low_id, last_message_at);
+CREATE INDEX idx_conversations_high_activity ON conversations(user_high_id, last_message_at);
@@ -0,0 +1,7 @@
+-- Read watermarks: everything up to these positions counts as read without touching the rows
+ALTER TABLE conversations ADD COLUMN last_read_seq_low BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE conversations ADD COLUMN last_read_seq_high BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE user_counters ADD COLUMN last_read_notification_id BIGINT NOT NULL DEFAULT 0;
+
+-- Unread notifications are those past the user's watermark
+CREATE INDEX IF NOT EXISTS idx_notifications_user_id_id ON notifications(user_id, id);
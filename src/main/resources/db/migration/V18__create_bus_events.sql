@@ -0,0 +1,11 @@
+-- Cross-node notification bus: every node appends the frames it publishes and polls for the rest
+CREATE TABLE IF NOT EXISTS bus_events (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  origin_node VARCHAR(64) NOT NULL,
+  user_id BIGINT NOT NULL,
+  destination VARCHAR(255) NOT NULL,
+  payload TEXT NOT NULL,
+  published_at BIGINT NOT NULL
+);
+
+CREATE INDEX idx_bus_events_published_at ON bus_events(published_at);
@@ -0,0 +1,21 @@
+-- Repeats collapsed into a notification by the retention job
+ALTER TABLE notifications ADD COLUMN collapsed_count INT NOT NULL DEFAULT 0;
+
+-- Unread-by-age lookups and retention scans
+CREATE INDEX IF NOT EXISTS idx_notifications_user_read_created ON notifications(user_id, read_status, created_at);
+
+-- Notifications moved out of the live table by the retention job; ids are kept from notifications
+CREATE TABLE IF NOT EXISTS notifications_archive (
+  id BIGINT PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  title VARCHAR(255),
+  message TEXT,
+  created_at TIMESTAMP,
+  read_status BOOLEAN NOT NULL,
+  collapsed_count INT NOT NULL DEFAULT 0,
+  reason VARCHAR(20) NOT NULL,
+  archived_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_notifications_archive_user_id ON notifications_archive(user_id, id);
+CREATE INDEX IF NOT EXISTS idx_notifications_archive_archived_at ON notifications_archive(archived_at);
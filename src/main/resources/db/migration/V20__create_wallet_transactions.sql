@@ -0,0 +1,15 @@
+-- Append-only wallet ledger; every balance change writes one row in the same transaction
+CREATE TABLE IF NOT EXISTS wallet_transactions (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  wallet_id BIGINT NOT NULL REFERENCES wallets(id),
+  type VARCHAR(30) NOT NULL,
+  amount DECIMAL(10,2) NOT NULL,
+  balance_after DECIMAL(10,2) NOT NULL,
+  reference VARCHAR(255),
+  created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_wallet_transactions_wallet_id_id ON wallet_transactions(wallet_id, id);
+
+-- Balance updates are conditional on this; the constraint is the backstop
+ALTER TABLE wallets ADD CONSTRAINT chk_wallets_balance_non_negative CHECK (balance >= 0);
@@ -0,0 +1,28 @@
+-- Nightly worker settlement; last_worker_id is the checkpoint a restarted run resumes after
+CREATE TABLE IF NOT EXISTS settlement_runs (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  cutoff TIMESTAMP NOT NULL,
+  status VARCHAR(20) NOT NULL,
+  last_worker_id BIGINT NOT NULL DEFAULT 0,
+  workers_paid INT NOT NULL DEFAULT 0,
+  payments_settled INT NOT NULL DEFAULT 0,
+  total_amount DECIMAL(12,2) NOT NULL DEFAULT 0,
+  started_at TIMESTAMP NOT NULL,
+  finished_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_settlement_runs_status ON settlement_runs(status);
+
+-- One payout per worker per run; settled payments point at theirs through payments.payout_id
+CREATE TABLE IF NOT EXISTS payouts (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  run_id BIGINT NOT NULL REFERENCES settlement_runs(id),
+  worker_id BIGINT NOT NULL REFERENCES users(id),
+  amount DECIMAL(10,2) NOT NULL,
+  payment_count INT NOT NULL,
+  wallet_transaction_id BIGINT NOT NULL,
+  created_at TIMESTAMP NOT NULL,
+  CONSTRAINT uk_payouts_run_worker UNIQUE (run_id, worker_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_payouts_worker_id ON payouts(worker_id, id);
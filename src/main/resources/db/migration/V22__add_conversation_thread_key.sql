@@ -0,0 +1,11 @@
+-- One conversation per thread. job_key is the job id, or 0 for a pair's general thread, so the
+-- unique key also covers threads without a job (job_id is NULL there and NULLs never collide)
+ALTER TABLE conversations ADD COLUMN job_key BIGINT NOT NULL DEFAULT 0;
+UPDATE conversations SET job_key = job_id WHERE job_id IS NOT NULL;
+ALTER TABLE conversations ADD CONSTRAINT uk_conversations_thread UNIQUE (user_low_id, user_high_id, job_key);
+
+-- Inbox pages are keyed on (last_message_at, id)
+DROP INDEX IF EXISTS idx_conversations_low_activity;
+DROP INDEX IF EXISTS idx_conversations_high_activity;
+CREATE INDEX idx_conversations_low_activity ON conversations(user_low_id, last_message_at, id);
+CREATE INDEX idx_conversations_high_activity ON conversations(user_high_id, last_message_at, id);
@@ -0,0 +1,5 @@
+-- Last seq issued on each user's push stream, shared by every node on the jdbc bus
+CREATE TABLE IF NOT EXISTS push_seqs (
+  user_id BIGINT PRIMARY KEY,
+  seq BIGINT NOT NULL
+);
@@ -0,0 +1,2 @@
+-- Highest seq handed out in each conversation by any node; last_seq is the highest written to messages
+ALTER TABLE conversations ADD COLUMN issued_seq BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Where the worker was when they accepted the job; the start of the trip ETA speeds are learned from
+ALTER TABLE job_assignments ADD COLUMN IF NOT EXISTS origin_lat DECIMAL(9,6);
+ALTER TABLE job_assignments ADD COLUMN IF NOT EXISTS origin_lng DECIMAL(9,6);
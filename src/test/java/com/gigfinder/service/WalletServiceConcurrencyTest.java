@@ -0,0 +1,143 @@
+package com.gigfinder.service;
+
+import com.gigfinder.model.User;
+import com.gigfinder.model.WalletTransaction;
+import com.gigfinder.model.enums.Role;
+import com.gigfinder.model.enums.WalletTransactionType;
+import com.gigfinder.repository.UserRepository;
+import com.gigfinder.repository.WalletRepository;
+import com.gigfinder.repository.WalletTransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent credits and debits against one wallet on H2: the balance ends at the sum of the
+ * operations that succeeded, the ledger has one row per success, and withdrawals beyond the
+ * funds are refused rather than driving the balance negative.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:wallet_concurrency;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class WalletServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private ExecutorService executor;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        userId = userRepository.save(User.builder()
+                .name("Wallet " + tag)
+                .phone("wallet-" + tag)
+                .email("wallet-" + tag + "@test.com")
+                .role(Role.WORKER)
+                .banned(false)
+                .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCreditsAndDebitsAddUp() throws Exception {
+        walletService.credit(userId, new BigDecimal("1000.00"), WalletTransactionType.TOP_UP, "seed");
+        int pairs = 100;
+        List<Callable<WalletTransaction>> ops = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) {
+            String reference = "op-" + i;
+            ops.add(() -> walletService.credit(userId, new BigDecimal("10.00"), WalletTransactionType.TOP_UP, reference));
+            ops.add(() -> walletService.debit(userId, new BigDecimal("4.50"), WalletTransactionType.WITHDRAWAL, reference));
+        }
+
+        int succeeded = runAll(ops);
+
+        assertThat(succeeded).isEqualTo(2 * pairs);
+        assertThat(walletService.getBalance(userId)).isEqualByComparingTo("1550.00");
+        assertThat(ledger()).hasSize(succeeded + 1);
+    }
+
+    @Test
+    void withdrawalsBeyondFundsNeverGoNegative() throws Exception {
+        walletService.credit(userId, new BigDecimal("100.00"), WalletTransactionType.TOP_UP, "seed");
+        List<Callable<WalletTransaction>> ops = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String reference = "withdraw-" + i;
+            ops.add(() -> walletService.debit(userId, new BigDecimal("7.00"), WalletTransactionType.WITHDRAWAL, reference));
+        }
+
+        int succeeded = runAll(ops);
+
+        // 100.00 covers exactly 14 withdrawals of 7.00
+        assertThat(succeeded).isEqualTo(14);
+        assertThat(walletService.getBalance(userId)).isEqualByComparingTo("2.00");
+        List<WalletTransaction> ledger = ledger();
+        assertThat(ledger).hasSize(succeeded + 1);
+        assertThat(ledger).allSatisfy(t -> assertThat(t.getBalanceAfter()).isGreaterThanOrEqualTo(BigDecimal.ZERO));
+    }
+
+    // Starts every op at once and counts the ones that went through; refusals throw
+    private int runAll(List<Callable<WalletTransaction>> ops) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<WalletTransaction>> futures = new ArrayList<>(ops.size());
+        for (Callable<WalletTransaction> op : ops) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return op.call();
+            }));
+        }
+        start.countDown();
+        int succeeded = 0;
+        for (Future<WalletTransaction> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).hasMessage("Insufficient balance");
+            }
+        }
+        return succeeded;
+    }
+
+    private List<WalletTransaction> ledger() {
+        Long walletId = walletRepository.findIdByUserId(userId).orElseThrow();
+        return walletTransactionRepository.findPage(walletId, Long.MAX_VALUE, PageRequest.of(0, Integer.MAX_VALUE));
+    }
+}